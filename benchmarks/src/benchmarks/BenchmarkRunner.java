@@ -0,0 +1,12 @@
+package benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.io.IOException;
+
+public class BenchmarkRunner {
+    public static void main(String[] args) throws IOException {
+        // Argumenty sú bežné voľby JMH, napr. regulárny výraz s názvami benchmarkov alebo -p portfolioSize=1000
+        Main.main(args);
+    }
+}
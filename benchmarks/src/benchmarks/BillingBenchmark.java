@@ -0,0 +1,47 @@
+package benchmarks;
+
+import company.InsuranceCompany;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BillingBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int portfolioSize;
+
+    private InsuranceCompany insurer;
+    private LocalDateTime billingTime;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        insurer = new Portfolio(portfolioSize).insurer;
+        billingTime = Portfolio.START_TIME;
+    }
+
+    // Každé volanie zodpovedá jednému mesačnému zúčtovaniu celého portfólia
+    @Benchmark
+    public InsuranceCompany monthlyBillingRun() {
+        billingTime = billingTime.plusMonths(1);
+        insurer.setCurrentTime(billingTime);
+        insurer.chargePremiumsOnContracts();
+        return insurer;
+    }
+}
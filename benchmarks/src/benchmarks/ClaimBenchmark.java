@@ -0,0 +1,81 @@
+package benchmarks;
+
+import company.InsuranceCompany;
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import objects.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class ClaimBenchmark {
+    // Poistná udalosť na cestovnej zmluve ju deaktivuje, preto sa tieto zmluvy merajú po dávkach
+    private static final int TRAVEL_CLAIM_BATCH = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int portfolioSize;
+
+    private Portfolio portfolio;
+    private InsuranceCompany insurer;
+    private List<SingleVehicleContract> singleContracts;
+    private List<TravelContract> travelClaims;
+    private Set<Person> affectedPersons;
+    private int singleIndex;
+    private int travelIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        portfolio = new Portfolio(portfolioSize);
+        insurer = portfolio.insurer;
+        singleContracts = portfolio.singleContracts;
+        affectedPersons = Set.of(portfolio.travellers.iterator().next());
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareTravelClaims() {
+        travelClaims = new ArrayList<>(TRAVEL_CLAIM_BATCH);
+        for (int i = 0; i < TRAVEL_CLAIM_BATCH; i++) {
+            travelClaims.add(portfolio.insurePersons());
+        }
+        travelIndex = 0;
+    }
+
+    // Škoda pod hranicou totálnej škody (70 % z hodnoty 2 000), zmluva zostane aktívna
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public SingleVehicleContract processSingleVehicleClaim() {
+        SingleVehicleContract contract = singleContracts.get(singleIndex);
+        singleIndex = (singleIndex + 1) % singleContracts.size();
+        insurer.processClaim(contract, 1_000);
+        return contract;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = TRAVEL_CLAIM_BATCH)
+    @Measurement(iterations = 5, batchSize = TRAVEL_CLAIM_BATCH)
+    public TravelContract processTravelClaim() {
+        TravelContract contract = travelClaims.get(travelIndex++);
+        insurer.processClaim(contract, affectedPersons);
+        return contract;
+    }
+}
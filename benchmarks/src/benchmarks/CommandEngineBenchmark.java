@@ -0,0 +1,69 @@
+package benchmarks;
+
+import company.InsuranceCommandEngine;
+import contracts.SingleVehicleContract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import payment.PaymentStatus;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandEngineBenchmark {
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int portfolioSize;
+
+    private InsuranceCommandEngine engine;
+    private SingleVehicleContract[] contracts;
+
+    // Čas zahŕňa zaradenie platieb aj čakanie na výsledok poslednej z nich
+    @Setup(Level.Trial)
+    public void setUp() {
+        Portfolio portfolio = new Portfolio(portfolioSize);
+        engine = InsuranceCommandEngine.start(portfolio.insurer);
+        List<SingleVehicleContract> singleContracts = portfolio.singleContracts;
+
+        SplittableRandom random = new SplittableRandom(42);
+        contracts = new SingleVehicleContract[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            contracts[i] = singleContracts.get(random.nextInt(singleContracts.size()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public PaymentStatus pay() {
+        CompletableFuture<PaymentStatus> last = null;
+        for (SingleVehicleContract contract : contracts) {
+            last = engine.pay(contract, 150);
+        }
+        return last.join();
+    }
+}
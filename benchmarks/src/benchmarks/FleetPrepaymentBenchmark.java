@@ -0,0 +1,103 @@
+package benchmarks;
+
+import company.InsuranceCompany;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import objects.Person;
+import objects.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import payment.ContractPaymentData;
+import payment.PremiumPaymentFrequency;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FleetPrepaymentBenchmark {
+    private static final int MONTHLY_PREMIUM = 100;
+
+    @Param({"10000"})
+    private int fleetSize;
+
+    @Param({"1", "5"})
+    private int prepaidYears;
+
+    private InsuranceCompany insurer;
+    private MasterVehicleContract masterContract;
+    private int amount;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        insurer = new InsuranceCompany(LocalDateTime.of(2025, 1, 1, 0, 0));
+        Person policyHolder = new Person("12345678");
+        masterContract = insurer.createMasterVehicleContract("M0", null, policyHolder);
+
+        for (int i = 0; i < fleetSize; i++) {
+            SingleVehicleContract contract = insurer.insureVehicle("C" + i, null, policyHolder,
+                    MONTHLY_PREMIUM + i % 50, PremiumPaymentFrequency.MONTHLY,
+                    new Vehicle(String.format("BA%05d", i), 20_000));
+            insurer.moveSingleVehicleContractToMasterVehicleContract(masterContract, contract);
+        }
+
+        // Suma na niekoľko rokov dopredu, ktorá nevychádza na celé kolá
+        amount = fleetSize * (MONTHLY_PREMIUM + 25) * 12 * prepaidYears + 7_777;
+    }
+
+    @Benchmark
+    public MasterVehicleContract closedFormAllocation() {
+        insurer.getHandler().pay(masterContract, amount);
+        return masterContract;
+    }
+
+    @Benchmark
+    public MasterVehicleContract roundRobinAllocation() {
+        Set<SingleVehicleContract> childContracts = masterContract.getChildContracts();
+        int remaining = amount;
+
+        // Pôvodné rozdelenie: jedno poistné na zmluvu v každom kole, kým sa suma nevyčerpá
+        while (remaining > 0) {
+            boolean anyPaymentMade = false;
+
+            for (SingleVehicleContract childContract : childContracts) {
+                if (childContract.isActive()) {
+                    ContractPaymentData paymentData = childContract.getContractPaymentData();
+                    int premium = paymentData.getPremium();
+
+                    if (remaining >= premium) {
+                        paymentData.decreaseOutstandingBalance(premium);
+                        remaining -= premium;
+                        anyPaymentMade = true;
+                    } else if (remaining > 0) {
+                        paymentData.decreaseOutstandingBalance(remaining);
+                        remaining = 0;
+                        anyPaymentMade = true;
+                        break;
+                    }
+                }
+            }
+
+            if (!anyPaymentMade) {
+                break;
+            }
+        }
+
+        return masterContract;
+    }
+}
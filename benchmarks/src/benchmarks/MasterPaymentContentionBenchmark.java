@@ -0,0 +1,68 @@
+package benchmarks;
+
+import company.InsuranceCompany;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import objects.Person;
+import objects.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import payment.PaymentHandler;
+import payment.PremiumPaymentFrequency;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class MasterPaymentContentionBenchmark {
+    @Param({"1000"})
+    private int fleetSize;
+
+    @Param({"false", "true"})
+    private boolean combining;
+
+    private PaymentHandler handler;
+    private MasterVehicleContract masterContract;
+
+    // Všetky vlákna platia na jednu rámcovú zmluvu, ako pri výplatnom termíne veľkej flotily
+    @Setup(Level.Trial)
+    public void setUp() {
+        InsuranceCompany insurer = new InsuranceCompany(LocalDateTime.of(2025, 1, 1, 0, 0), 64);
+        Person policyHolder = new Person("12345678");
+        masterContract = insurer.createMasterVehicleContract("M0", null, policyHolder);
+
+        for (int i = 0; i < fleetSize; i++) {
+            SingleVehicleContract contract = insurer.insureVehicle("C" + i, null, policyHolder, 100 + i % 50,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle(String.format("BA%05d", i), 20_000));
+            insurer.moveSingleVehicleContractToMasterVehicleContract(masterContract, contract);
+        }
+
+        handler = insurer.getHandler();
+        if (combining) {
+            handler.enablePaymentCombining();
+        }
+    }
+
+    @Benchmark
+    public MasterVehicleContract payMasterContract() {
+        handler.pay(masterContract, 150);
+        return masterContract;
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, batchSize = OnboardingBenchmark.ONBOARDING_BATCH)
+@Measurement(iterations = 5, batchSize = OnboardingBenchmark.ONBOARDING_BATCH)
+@Fork(1)
+public class OnboardingBenchmark {
+    // Každé volanie pridá novú zmluvu, iterácia preto meria pevnú dávku volaní na čerstvom portfóliu
+    static final int ONBOARDING_BATCH = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int portfolioSize;
+
+    private Portfolio portfolio;
+
+    // Portfólio počas iterácie narastie najviac o ONBOARDING_BATCH zmlúv
+    @Setup(Level.Iteration)
+    public void setUp() {
+        portfolio = new Portfolio(portfolioSize);
+    }
+
+    @Benchmark
+    public SingleVehicleContract insureVehicle() {
+        return portfolio.insureVehicle();
+    }
+
+    @Benchmark
+    public TravelContract insurePersons() {
+        return portfolio.insurePersons();
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import contracts.SingleVehicleContract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import payment.PaymentHandler;
+import payment.PaymentRequest;
+import payment.PaymentStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentBatchBenchmark {
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int portfolioSize;
+
+    private PaymentHandler handler;
+    private List<PaymentRequest> batch;
+
+    // Dávka obsahuje náhodné zmluvy, pri malom portfóliu sa teda zmluvy v dávke opakujú
+    @Setup(Level.Trial)
+    public void setUp() {
+        Portfolio portfolio = new Portfolio(portfolioSize);
+        handler = portfolio.insurer.getHandler();
+        List<SingleVehicleContract> singleContracts = portfolio.singleContracts;
+
+        SplittableRandom random = new SplittableRandom(42);
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new PaymentRequest(singleContracts.get(random.nextInt(singleContracts.size())), 150));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public PaymentHandler payEachRequest() {
+        for (PaymentRequest request : batch) {
+            handler.pay(request.getContract(), request.getAmount());
+        }
+        return handler;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public PaymentStatus[] payAll() {
+        return handler.payAll(batch);
+    }
+}
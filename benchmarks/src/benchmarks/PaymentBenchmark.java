@@ -0,0 +1,62 @@
+package benchmarks;
+
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import payment.PaymentHandler;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int portfolioSize;
+
+    private PaymentHandler handler;
+    private List<SingleVehicleContract> singleContracts;
+    private List<MasterVehicleContract> masterContracts;
+    private int singleIndex;
+    private int masterIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Portfolio portfolio = new Portfolio(portfolioSize);
+        handler = portfolio.insurer.getHandler();
+        singleContracts = portfolio.singleContracts;
+        masterContracts = portfolio.masterContracts;
+    }
+
+    // Platby postupne prechádzajú všetky zmluvy, aby sa meranie neobmedzilo na jednu zmluvu v cache
+    @Benchmark
+    public SingleVehicleContract paySingleContract() {
+        SingleVehicleContract contract = singleContracts.get(singleIndex);
+        singleIndex = (singleIndex + 1) % singleContracts.size();
+        handler.pay(contract, 150);
+        return contract;
+    }
+
+    @Benchmark
+    public MasterVehicleContract payMasterContract() {
+        MasterVehicleContract contract = masterContracts.get(masterIndex);
+        masterIndex = (masterIndex + 1) % masterContracts.size();
+        handler.pay(contract, 150 * Portfolio.FLEET_SIZE + 75);
+        return contract;
+    }
+}
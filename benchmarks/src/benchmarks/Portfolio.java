@@ -0,0 +1,86 @@
+package benchmarks;
+
+import company.InsuranceCompany;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import objects.Person;
+import objects.Vehicle;
+import payment.PremiumPaymentFrequency;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+final class Portfolio {
+    static final LocalDateTime START_TIME = LocalDateTime.of(2025, 1, 1, 0, 0);
+    static final int FLEET_SIZE = 100;
+
+    private static final PremiumPaymentFrequency[] FREQUENCIES = PremiumPaymentFrequency.values();
+
+    final InsuranceCompany insurer;
+    final Person legalPerson;
+    final Set<Person> travellers;
+    final List<SingleVehicleContract> singleContracts;
+    final List<TravelContract> travelContracts;
+    final List<MasterVehicleContract> masterContracts;
+    private int nextContractNumber;
+
+    /* Zloženie portfólia: každá desiata zmluva je cestovná, každá piata zmluva
+    na vozidlo patrí do flotily rámcovej zmluvy so 100 dcérskymi zmluvami */
+    Portfolio(int size) {
+        this.insurer = new InsuranceCompany(START_TIME);
+        this.legalPerson = new Person("12345678");
+        this.travellers = new LinkedHashSet<>(List.of(new Person("8004175146"), new Person("8054176383")));
+        this.singleContracts = new ArrayList<>();
+        this.travelContracts = new ArrayList<>();
+        this.masterContracts = new ArrayList<>();
+
+        MasterVehicleContract fleet = null;
+        int fleetChildCount = FLEET_SIZE;
+
+        for (int i = 0; i < size; i++) {
+            if (i % 10 == 9) {
+                travelContracts.add(insurePersons());
+                continue;
+            }
+
+            SingleVehicleContract contract = insureVehicle();
+            if (i % 5 != 0) {
+                singleContracts.add(contract);
+                continue;
+            }
+
+            if (fleetChildCount == FLEET_SIZE) {
+                fleet = insurer.createMasterVehicleContract(nextContractNumber(), null, legalPerson);
+                masterContracts.add(fleet);
+                fleetChildCount = 0;
+            }
+            insurer.moveSingleVehicleContractToMasterVehicleContract(fleet, contract);
+            fleetChildCount++;
+        }
+    }
+
+    SingleVehicleContract insureVehicle() {
+        int index = nextContractNumber;
+        return insurer.insureVehicle(nextContractNumber(), null, legalPerson, 100 + index % 50,
+                FREQUENCIES[index % FREQUENCIES.length], new Vehicle(licensePlate(index), 2_000));
+    }
+
+    TravelContract insurePersons() {
+        int index = nextContractNumber;
+        return insurer.insurePersons(nextContractNumber(), legalPerson, 20 + index % 10,
+                FREQUENCIES[index % FREQUENCIES.length], travellers);
+    }
+
+    static String licensePlate(int index) {
+        String digits = Integer.toString(index % 100_000);
+        return "BA" + "00000".substring(digits.length()) + digits;
+    }
+
+    private String nextContractNumber() {
+        return "C" + nextContractNumber++;
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import payment.ContractPaymentData;
+import payment.PremiumPaymentFrequency;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PremiumCatchUpBenchmark {
+    private static final int PREMIUM = 150;
+
+    @Param({"MONTHLY", "QUARTERLY", "ANNUAL"})
+    private PremiumPaymentFrequency frequency;
+
+    // Deň 31 vynúti skracovanie dňa na koniec mesiaca
+    @Param({"15", "31"})
+    private int startDay;
+
+    private LocalDateTime startTime;
+    private LocalDateTime currentTime;
+
+    @Setup
+    public void setUp() {
+        startTime = LocalDateTime.of(1995, 1, startDay, 9, 30);
+        currentTime = startTime.plusYears(30);
+    }
+
+    @Benchmark
+    public ContractPaymentData loopCatchUp() {
+        ContractPaymentData paymentData = new ContractPaymentData(PREMIUM, frequency, startTime, 0);
+
+        // Pôvodný výpočet: jedna iterácia a jedno plusMonths na každé zmeškané obdobie
+        while (!paymentData.getNextPaymentTime().isAfter(currentTime)) {
+            paymentData.setOutstandingBalance(paymentData.getOutstandingBalance() + paymentData.getPremium());
+            paymentData.updateNextPaymentTime();
+        }
+
+        return paymentData;
+    }
+
+    @Benchmark
+    public ContractPaymentData closedFormCatchUp() {
+        ContractPaymentData paymentData = new ContractPaymentData(PREMIUM, frequency, startTime, 0);
+
+        long duePaymentCount = paymentData.getDuePaymentCount(currentTime);
+        paymentData.setOutstandingBalance(paymentData.getOutstandingBalance()
+                + (int) (paymentData.getPremium() * duePaymentCount));
+        paymentData.updateNextPaymentTime(duePaymentCount);
+
+        return paymentData;
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import objects.Person;
+import objects.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private static final int SAMPLE_SIZE = 1024;
+
+    private String[] birthNumbers;
+    private String[] licensePlates;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        List<String> samples = new ArrayList<>(SAMPLE_SIZE);
+
+        // Polovica vzoriek sú platné rodné čísla, zvyšok zlyhá na rôznych kontrolách
+        for (int serial = 0; samples.size() < SAMPLE_SIZE / 2; serial++) {
+            String birthNumber = validBirthNumber(serial);
+            if (birthNumber != null) {
+                samples.add(birthNumber);
+            }
+        }
+        String[] invalid = {"8004175147", "8013175146", "800417514", "80041751460", "80O4175146", "8002305146"};
+        for (int i = 0; samples.size() < SAMPLE_SIZE; i++) {
+            samples.add(invalid[i % invalid.length]);
+        }
+
+        birthNumbers = samples.toArray(new String[0]);
+        licensePlates = new String[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            licensePlates[i] = Portfolio.licensePlate(i * 97);
+        }
+    }
+
+    // Desaťmiestne rodné číslo s dopočítanou kontrolnou číslicou, ak pre danú sériu existuje
+    private static String validBirthNumber(int serial) {
+        int month = 1 + serial % 12 + (serial % 2 == 0 ? 0 : 50);
+        int day = 1 + serial % 28;
+        String prefix = String.format("%02d%02d%02d%03d", 60 + serial % 40, month, day, serial % 1000);
+
+        int sum = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int digit = prefix.charAt(i) - '0';
+            sum += i % 2 == 0 ? digit : -digit;
+        }
+
+        int checkDigit = Math.floorMod(sum, 11);
+        return checkDigit < 10 ? prefix + checkDigit : null;
+    }
+
+    @Benchmark
+    public boolean isValidBirthNumber() {
+        String birthNumber = birthNumbers[index];
+        index = (index + 1) & (SAMPLE_SIZE - 1);
+        return Person.isValidBirthNumber(birthNumber);
+    }
+
+    @Benchmark
+    public Vehicle createVehicle() {
+        String licensePlate = licensePlates[index];
+        index = (index + 1) & (SAMPLE_SIZE - 1);
+        return new Vehicle(licensePlate, 20_000);
+    }
+}
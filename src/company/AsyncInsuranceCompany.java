@@ -0,0 +1,224 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import objects.Person;
+import objects.Vehicle;
+import payment.PremiumPaymentFrequency;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/* Každá operácia beží na vlastnom virtuálnom vlákne. Operácie na rovnakej zmluve sa reťazia za seba
+v poradí volania, operácie na rôznych zmluvách bežia súbežne */
+public class AsyncInsuranceCompany implements AutoCloseable {
+    private final InsuranceCompany company;
+    private final ExecutorService executor;
+
+    // Posledná zaradená operácia pre číslo zmluvy, po jej dokončení sa záznam odstráni
+    private final ConcurrentHashMap<String, CompletableFuture<?>> lastOperations;
+    private volatile boolean closed;
+
+    public AsyncInsuranceCompany(InsuranceCompany company) {
+        // Či je company null
+        if (company == null) {
+            throw new IllegalArgumentException("Company cannot be null.");
+        }
+
+        // Súbežné operácie vyžadujú poisťovňu so zámkami zmlúv
+        if (!company.isConcurrentAccessEnabled()) {
+            throw new IllegalArgumentException("Company must be created with concurrent access enabled.");
+        }
+
+        this.company = company;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.lastOperations = new ConcurrentHashMap<>();
+    }
+
+    public InsuranceCompany getCompany() {
+        return company;
+    }
+
+    public CompletableFuture<SingleVehicleContract> insureVehicle(String contractNumber, Person beneficiary,
+                                                                  Person policyHolder, int proposedPremium,
+                                                                  PremiumPaymentFrequency proposedPaymentFrequency,
+                                                                  Vehicle vehicleToInsure) {
+        return submit(contractNumber, () -> company.insureVehicle(contractNumber, beneficiary, policyHolder,
+                proposedPremium, proposedPaymentFrequency, vehicleToInsure));
+    }
+
+    public CompletableFuture<TravelContract> insurePersons(String contractNumber, Person policyHolder,
+                                                           int proposedPremium,
+                                                           PremiumPaymentFrequency proposedPaymentFrequency,
+                                                           Set<Person> personsToInsure) {
+        return submit(contractNumber, () -> company.insurePersons(contractNumber, policyHolder, proposedPremium,
+                proposedPaymentFrequency, personsToInsure));
+    }
+
+    public CompletableFuture<MasterVehicleContract> createMasterVehicleContract(String contractNumber,
+                                                                                Person beneficiary,
+                                                                                Person policyHolder) {
+        return submit(contractNumber, () -> company.createMasterVehicleContract(contractNumber, beneficiary,
+                policyHolder));
+    }
+
+    // Presun čaká na predchádzajúce operácie oboch zmlúv
+    public CompletableFuture<Void> moveSingleVehicleContractToMasterVehicleContract(
+            MasterVehicleContract masterVehicleContract, SingleVehicleContract singleVehicleContract) {
+        // Či je masterVehicleContract alebo singleVehicleContract null
+        if (masterVehicleContract == null || singleVehicleContract == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Contracts cannot be null."));
+        }
+
+        return submit(masterVehicleContract.getContractNumber(), singleVehicleContract.getContractNumber(), () -> {
+            company.moveSingleVehicleContractToMasterVehicleContract(masterVehicleContract, singleVehicleContract);
+            return null;
+        });
+    }
+
+    // Platba rámcovej zmluvy sa radí za operácie rámcovej zmluvy, nie jej dcérskych zmlúv
+    public CompletableFuture<Void> pay(MasterVehicleContract contract, int amount) {
+        return submit(contract, () -> {
+            company.getHandler().pay(contract, amount);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> pay(AbstractContract contract, int amount) {
+        return submit(contract, () -> {
+            company.getHandler().pay(contract, amount);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> processClaim(TravelContract travelContract, Set<Person> affectedPersons) {
+        return submit(travelContract, () -> {
+            company.processClaim(travelContract, affectedPersons);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> processClaim(SingleVehicleContract singleVehicleContract, int expectedDamages) {
+        return submit(singleVehicleContract, () -> {
+            company.processClaim(singleVehicleContract, expectedDamages);
+            return null;
+        });
+    }
+
+    // Počet čísel zmlúv, ktoré majú nedokončenú operáciu
+    public int getPendingContractCount() {
+        return lastOperations.size();
+    }
+
+    // Počká na dokončenie zaradených operácií, nové operácie sa už neprijmú
+    @Override
+    public void close() {
+        closed = true;
+
+        // Zreťazená operácia sa odovzdá vykonávateľovi až po dokončení predchodcu, čakáme preto na všetky
+        for (CompletableFuture<?> operation : lastOperations.values()) {
+            operation.handle((value, error) -> null).join();
+        }
+        executor.close();
+    }
+
+    private <T> CompletableFuture<T> submit(AbstractContract contract, Supplier<T> operation) {
+        // Chýbajúcu zmluvu odmietne až samotná operácia, bez radenia za inú zmluvu
+        if (contract == null) {
+            return run(operation);
+        }
+        return submit(contract.getContractNumber(), operation);
+    }
+
+    private <T> CompletableFuture<T> submit(String contractNumber, Supplier<T> operation) {
+        // Neplatné číslo zmluvy odmietne až samotná operácia
+        if (contractNumber == null) {
+            return run(operation);
+        }
+
+        if (closed) {
+            return closedFuture();
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<?> previous = lastOperations.put(contractNumber, result);
+        schedule(previous, result, operation, contractNumber);
+        return result;
+    }
+
+    private <T> CompletableFuture<T> submit(String firstContractNumber, String secondContractNumber,
+                                            Supplier<T> operation) {
+        if (closed) {
+            return closedFuture();
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<?> previous;
+
+        /* Zaradenie pod oba kľúče musí byť atomické voči iným operáciám s dvoma kľúčmi, inak by sa
+        dva presuny s opačným poradím kľúčov mohli čakať navzájom */
+        synchronized (lastOperations) {
+            CompletableFuture<?> first = lastOperations.put(firstContractNumber, result);
+            CompletableFuture<?> second = firstContractNumber.equals(secondContractNumber)
+                    ? null : lastOperations.put(secondContractNumber, result);
+            previous = first == null ? second : second == null ? first : CompletableFuture.allOf(first, second);
+        }
+
+        schedule(previous, result, operation, firstContractNumber, secondContractNumber);
+        return result;
+    }
+
+    // Chyba predchádzajúcej operácie nezastaví nasledujúce, každá operácia vracia vlastný výsledok
+    private <T> void schedule(CompletableFuture<?> previous, CompletableFuture<T> result, Supplier<T> operation,
+                              String... contractNumbers) {
+        Runnable task = () -> {
+            try {
+                result.complete(operation.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                for (String contractNumber : contractNumbers) {
+                    lastOperations.remove(contractNumber, result);
+                }
+            }
+        };
+
+        if (previous == null) {
+            execute(task, result, contractNumbers);
+        } else {
+            previous.whenComplete((value, error) -> execute(task, result, contractNumbers));
+        }
+    }
+
+    private void execute(Runnable task, CompletableFuture<?> result, String... contractNumbers) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IllegalStateException("Async insurance company is closed."));
+            for (String contractNumber : contractNumbers) {
+                lastOperations.remove(contractNumber, result);
+            }
+        }
+    }
+
+    private static <T> CompletableFuture<T> closedFuture() {
+        return CompletableFuture.failedFuture(new IllegalStateException("Async insurance company is closed."));
+    }
+
+    private <T> CompletableFuture<T> run(Supplier<T> operation) {
+        if (closed) {
+            return closedFuture();
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        schedule(null, result, operation);
+        return result;
+    }
+}
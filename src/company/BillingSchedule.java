@@ -0,0 +1,102 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import payment.ContractPaymentData;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+class BillingSchedule {
+    private final PriorityQueue<Entry> queue;
+    private final Map<AbstractContract, Entry> scheduledEntries;
+
+    BillingSchedule(InsuranceCompany owner) {
+        this.queue = new PriorityQueue<>(Comparator.comparing(Entry::dueTime));
+        this.scheduledEntries = new ContractSlotMap<>(owner);
+    }
+
+    // Rámcová zmluva bez aktívnej dcérskej zmluvy sa z rozvrhu vyradí, vráti ju doň až nová dcérska zmluva
+    synchronized void schedule(AbstractContract contract) {
+        LocalDateTime dueTime = getDueTime(contract);
+        if (dueTime == null) {
+            scheduledEntries.remove(contract);
+            return;
+        }
+        put(contract, dueTime);
+    }
+
+    // Nová dcérska zmluva môže termín rámcovej zmluvy len posunúť skôr
+    synchronized void scheduleNoLaterThan(AbstractContract contract, LocalDateTime dueTime) {
+        Entry entry = scheduledEntries.get(contract);
+        if (entry == null || dueTime.isBefore(entry.dueTime())) {
+            put(contract, dueTime);
+        }
+    }
+
+    private void put(AbstractContract contract, LocalDateTime dueTime) {
+        Entry entry = new Entry(dueTime, contract);
+
+        // Predchádzajúci záznam zmluvy v halde sa tým stáva neplatným
+        scheduledEntries.put(contract, entry);
+        queue.add(entry);
+    }
+
+    synchronized void unschedule(AbstractContract contract) {
+        scheduledEntries.remove(contract);
+    }
+
+    synchronized void clear() {
+        queue.clear();
+        scheduledEntries.clear();
+    }
+
+    synchronized List<AbstractContract> pollDue(LocalDateTime currentTime) {
+        List<AbstractContract> dueContracts = new ArrayList<>();
+
+        while (!queue.isEmpty() && !queue.peek().dueTime().isAfter(currentTime)) {
+            Entry entry = queue.poll();
+
+            // Neplatné záznamy (zmluva bola preplánovaná alebo odstránená) preskočíme
+            if (scheduledEntries.get(entry.contract()) != entry) {
+                continue;
+            }
+
+            scheduledEntries.remove(entry.contract());
+            dueContracts.add(entry.contract());
+        }
+
+        return dueContracts;
+    }
+
+    // Termín rámcovej zmluvy je najskorší termín jej dcérskych zmlúv, bez aktívnej dcérskej zmluvy nemá termín
+    private static LocalDateTime getDueTime(AbstractContract contract) {
+        if (contract instanceof MasterVehicleContract masterContract) {
+            LocalDateTime earliest = null;
+            synchronized (masterContract) {
+                if (masterContract.getChildContracts().isEmpty() || !masterContract.isActive()) {
+                    return null;
+                }
+
+                for (SingleVehicleContract childContract : masterContract.getChildContracts()) {
+                    LocalDateTime nextPaymentTime = childContract.getContractPaymentData().getNextPaymentTime();
+                    if (earliest == null || nextPaymentTime.isBefore(earliest)) {
+                        earliest = nextPaymentTime;
+                    }
+                }
+            }
+            return earliest;
+        }
+
+        ContractPaymentData paymentData = contract.getContractPaymentData();
+        return paymentData != null ? paymentData.getNextPaymentTime() : LocalDateTime.MIN;
+    }
+
+    private record Entry(LocalDateTime dueTime, AbstractContract contract) {
+    }
+}
@@ -0,0 +1,82 @@
+package company;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/* Ohraničený kruhový buffer pre viacerých zapisovateľov a jediného čitateľa. Každá bunka má poradové
+číslo: zapisovateľ do nej smie zapísať, keď sa rovná jeho pozícii, čitateľ ju smie prevziať o jedno neskôr */
+final class CommandRingBuffer<E> {
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong producerPosition;
+
+    // Pozíciu čitateľa mení len vlákno, ktoré buffer vyprázdňuje
+    private long consumerPosition;
+
+    CommandRingBuffer(int capacity) {
+        // Kapacitu zaokrúhlime nahor na mocninu dvoch, index sa potom počíta maskou
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.producerPosition = new AtomicLong();
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+
+    // Pri plnom buffri zapisovateľ čaká, kým čitateľ uvoľní miesto
+    void put(E element) {
+        int spins = 0;
+        while (true) {
+            long position = producerPosition.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (producerPosition.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, position + 1);
+                    return;
+                }
+            } else if (difference < 0) {
+                if (++spins < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(1_000);
+                }
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) consumerPosition & mask) != consumerPosition + 1;
+    }
+
+    // Prevezme najviac batch.length prvkov v poradí zápisu a vráti ich počet
+    @SuppressWarnings("unchecked")
+    int drainTo(E[] batch) {
+        int count = 0;
+        while (count < batch.length) {
+            int index = (int) consumerPosition & mask;
+            if (sequences.get(index) != consumerPosition + 1) {
+                break;
+            }
+
+            batch[count++] = (E) elements[index];
+            elements[index] = null;
+            sequences.set(index, consumerPosition + elements.length);
+            consumerPosition++;
+        }
+        return count;
+    }
+}
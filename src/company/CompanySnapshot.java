@@ -0,0 +1,494 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.AbstractVehicleContract;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import objects.Person;
+import payment.ContractPaymentData;
+import payment.PaymentInstance;
+import payment.PaymentLedger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class CompanySnapshot {
+    static final int MAGIC = 0x49534E50;
+    static final int VERSION = 2;
+
+    /* Hlavička: magic, verzia, aktuálny čas (8 + 4), počty zmlúv, zmlúv v registri, osôb a záznamov ŠPZ,
+    rezerva, pozície indexov: pozície záznamov zmlúv, čísla zmlúv, osoby, ŠPZ a ich zmluvy,
+    a pozícia v logu, od ktorej sa za snapshotom prehrávajú záznamy (-1 bez logu) */
+    static final int HEADER_SIZE = 88;
+    static final int CONTRACT_COUNT_OFFSET = 20;
+    static final int INDEX_POSITIONS_OFFSET = 40;
+    static final int LOG_POSITION_OFFSET = 80;
+
+    // Súbor sa mapuje po častiach, žiadny záznam ani prvok indexu neprekračuje hranicu časti
+    static final int CHUNK_SHIFT = 30;
+    static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+
+    static final byte SINGLE_VEHICLE_CONTRACT = 1;
+    static final byte MASTER_VEHICLE_CONTRACT = 2;
+    static final byte TRAVEL_CONTRACT = 3;
+
+    static final int ACTIVE = 1;
+    static final int HELD_BY_POLICY_HOLDER = 2;
+    static final int HAS_PAYMENT_DATA = 4;
+
+    static final int PAYMENT_DATA_SIZE = 4 + 1 + 12 + 4;
+    static final int PAYMENT_SIZE = 12 + 4;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private CompanySnapshot() {
+    }
+
+    public static void write(InsuranceCompany company, Path path) throws IOException {
+        // Či je company alebo path null
+        if (company == null || path == null) {
+            throw new IllegalArgumentException("Company and path cannot be null.");
+        }
+
+        // Súbor sa zapíše vedľa cieľa a presunie sa naň až celý, starší snapshot tak nikdy nie je poškodený
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            new Writer(company, channel).write();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw e;
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static InsuranceCompany load(Path path) throws IOException {
+        // Či je path null
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+        return InsuranceCompany.fromSnapshot(MappedSnapshot.open(path));
+    }
+
+    private static final class Writer {
+        private final InsuranceCompany company;
+        private final FileChannel channel;
+        private final Map<AbstractContract, Set<PaymentInstance>> paymentHistory;
+
+        // Zmluvy z registra poisťovne majú poradové čísla 0 až registeredCount - 1 v poradí registra
+        private final List<AbstractContract> contracts;
+        private final Map<AbstractContract, Integer> contractOrdinals;
+        private final Map<SingleVehicleContract, Integer> ownerMasters;
+        private final int registeredCount;
+
+        private final Map<String, Integer> personOrdinals;
+        private byte[][] personIds;
+        private int[] paidOutAmounts;
+
+        private ByteBuffer buffer;
+        private long position;
+
+        Writer(InsuranceCompany company, FileChannel channel) {
+            this.company = company;
+            this.channel = channel;
+            this.paymentHistory = company.getHandler().getPaymentHistory();
+            this.contracts = new ArrayList<>(company.getContracts());
+            this.contractOrdinals = new IdentityHashMap<>();
+            this.ownerMasters = new IdentityHashMap<>();
+            this.registeredCount = contracts.size();
+            this.personOrdinals = new HashMap<>();
+            this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+
+        void write() throws IOException {
+            collectContracts();
+            collectPersons();
+
+            // Hlavičku zapíšeme až na konci, keď poznáme pozície indexov
+            buffer.put(new byte[HEADER_SIZE]);
+            position = HEADER_SIZE;
+
+            long[] personOffsets = writePersons();
+            long[] contractOffsets = writeContracts();
+
+            long contractOffsetsPosition = writeLongs(contractOffsets);
+            long numberIndexPosition = writeInts(sortRegisteredByNumber());
+            long personOffsetsPosition = writeLongs(personOffsets);
+
+            long[] plates = collectLicensePlates();
+            List<List<SingleVehicleContract>> olderContracts = new ArrayList<>(plates.length);
+            int plateEntryCount = plates.length;
+            for (long plate : plates) {
+                List<SingleVehicleContract> olderActiveContracts = new ArrayList<>();
+                for (SingleVehicleContract contract : company.findOlderActiveContractsByLicensePlate(plate)) {
+                    if (contractOrdinals.containsKey(contract)) {
+                        olderActiveContracts.add(contract);
+                    }
+                }
+                olderContracts.add(olderActiveContracts);
+                plateEntryCount += olderActiveContracts.size();
+            }
+
+            // Staršie aktívne zmluvy ŠPZ sú uložené pred jej poslednou zmluvou s rovnakým kľúčom
+            long[] plateKeys = new long[plateEntryCount];
+            int[] plateOrdinals = new int[plateEntryCount];
+            int plateEntry = 0;
+            for (int i = 0; i < plates.length; i++) {
+                for (SingleVehicleContract contract : olderContracts.get(i)) {
+                    plateKeys[plateEntry] = plates[i];
+                    plateOrdinals[plateEntry++] = contractOrdinals.get(contract);
+                }
+                plateKeys[plateEntry] = plates[i];
+                plateOrdinals[plateEntry++] = contractOrdinals.get(company.findContractByLicensePlate(plates[i]));
+            }
+            long plateKeysPosition = writeLongs(plateKeys);
+            long plateOrdinalsPosition = writeInts(plateOrdinals);
+            drain();
+
+            // Pripojený log musí obsahovať všetky zmeny zapísaného stavu, inak ide o pozíciu prehraného logu
+            WriteAheadLog writeAheadLog = company.getWriteAheadLog();
+            long logPosition = writeAheadLog != null ? writeAheadLog.getCommittedLength() : company.getLogPosition();
+
+            LocalDateTime currentTime = company.getCurrentTime();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(currentTime.toEpochSecond(ZoneOffset.UTC))
+                    .putInt(currentTime.getNano())
+                    .putInt(contracts.size())
+                    .putInt(registeredCount)
+                    .putInt(personIds.length)
+                    .putInt(plateOrdinals.length)
+                    .putInt(0)
+                    .putLong(contractOffsetsPosition)
+                    .putLong(numberIndexPosition)
+                    .putLong(personOffsetsPosition)
+                    .putLong(plateKeysPosition)
+                    .putLong(plateOrdinalsPosition)
+                    .putLong(logPosition)
+                    .flip();
+            channel.position(0);
+            writeFully(header);
+        }
+
+        private void collectContracts() {
+            for (int ordinal = 0; ordinal < registeredCount; ordinal++) {
+                contractOrdinals.put(contracts.get(ordinal), ordinal);
+            }
+
+            // Dcérske zmluvy nie sú v registri poisťovne, dostanú poradové čísla za ním
+            for (int ordinal = 0; ordinal < registeredCount; ordinal++) {
+                if (contracts.get(ordinal) instanceof MasterVehicleContract masterContract) {
+                    for (SingleVehicleContract childContract : masterContract.getChildContracts()) {
+                        ownerMasters.putIfAbsent(childContract, ordinal);
+                        if (!contractOrdinals.containsKey(childContract)) {
+                            contractOrdinals.put(childContract, contracts.size());
+                            contracts.add(childContract);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void collectPersons() {
+            // Rôzne inštancie s rovnakým ID sa po načítaní stanú jednou osobou so súčtom výplat
+            Map<Person, Boolean> visitedPersons = new IdentityHashMap<>();
+            Map<String, Integer> paidOutById = new HashMap<>();
+            for (AbstractContract contract : contracts) {
+                collectPerson(contract.getPolicyHolder(), visitedPersons, paidOutById);
+                if (contract instanceof AbstractVehicleContract vehicleContract) {
+                    collectPerson(vehicleContract.getBeneficiary(), visitedPersons, paidOutById);
+                }
+                if (contract instanceof TravelContract travelContract) {
+                    for (Person person : travelContract.getInsuredPersons()) {
+                        collectPerson(person, visitedPersons, paidOutById);
+                    }
+                }
+            }
+
+            // Osoby sú zoradené podľa ID, aby sa dali v súbore vyhľadať binárnym vyhľadávaním
+            personIds = new byte[paidOutById.size()][];
+            int index = 0;
+            for (String id : paidOutById.keySet()) {
+                personIds[index++] = encode(id);
+            }
+            Arrays.sort(personIds, Arrays::compareUnsigned);
+
+            paidOutAmounts = new int[personIds.length];
+            for (int ordinal = 0; ordinal < personIds.length; ordinal++) {
+                String id = new String(personIds[ordinal], StandardCharsets.UTF_8);
+                personOrdinals.put(id, ordinal);
+                paidOutAmounts[ordinal] = paidOutById.get(id);
+            }
+        }
+
+        private static void collectPerson(Person person, Map<Person, Boolean> visitedPersons,
+                                          Map<String, Integer> paidOutById) {
+            if (person == null || visitedPersons.put(person, Boolean.TRUE) != null) {
+                return;
+            }
+            paidOutById.merge(person.getId(), person.getPaidOutAmount(), Integer::sum);
+        }
+
+        private long[] writePersons() throws IOException {
+            long[] offsets = new long[personIds.length];
+            for (int ordinal = 0; ordinal < personIds.length; ordinal++) {
+                offsets[ordinal] = beginRecord(2 + personIds[ordinal].length + 4);
+                putBytes(personIds[ordinal]);
+                buffer.putInt(paidOutAmounts[ordinal]);
+            }
+            return offsets;
+        }
+
+        private long[] writeContracts() throws IOException {
+            long[] offsets = new long[contracts.size()];
+            for (int ordinal = 0; ordinal < contracts.size(); ordinal++) {
+                offsets[ordinal] = writeContract(contracts.get(ordinal));
+            }
+            return offsets;
+        }
+
+        private long writeContract(AbstractContract contract) throws IOException {
+            byte[] number = encode(contract.getContractNumber());
+            ContractPaymentData paymentData = contract.getContractPaymentData();
+            Set<PaymentInstance> payments = paymentHistory.get(contract);
+            int paymentCount = payments != null ? payments.size() : 0;
+
+            int flags = 0;
+            if (contract.isActive()) {
+                flags |= ACTIVE;
+            }
+            if (contract.getPolicyHolder().getContracts().contains(contract)) {
+                flags |= HELD_BY_POLICY_HOLDER;
+            }
+            if (paymentData != null) {
+                flags |= HAS_PAYMENT_DATA;
+            }
+
+            int size = 2 + 2 + number.length + 8 + (paymentData != null ? PAYMENT_DATA_SIZE : 0)
+                    + 4 + paymentCount * PAYMENT_SIZE;
+            if (contract instanceof SingleVehicleContract) {
+                size += 4 + 8 + 4 + 4;
+            } else if (contract instanceof MasterVehicleContract masterContract) {
+                size += 4 + 4 + 4 * masterContract.getChildContracts().size();
+            } else {
+                size += 4 + 4 * ((TravelContract) contract).getInsuredPersons().size();
+            }
+
+            long offset = beginRecord(size);
+            buffer.put(typeOf(contract));
+            buffer.put((byte) flags);
+            putBytes(number);
+            buffer.putInt(personOrdinal(contract.getPolicyHolder()));
+            buffer.putInt(contract.getCoverageAmount());
+
+            if (paymentData != null) {
+                buffer.putInt(paymentData.getPremium());
+                buffer.put((byte) paymentData.getPremiumPaymentFrequency().ordinal());
+
+                // Termín splatnosti a zostatok musia pochádzať z rovnakého stavu predpisu poistného
+                LocalDateTime nextPaymentTime;
+                int outstandingBalance;
+                int readVersion;
+                do {
+                    readVersion = paymentData.beginRead();
+                    nextPaymentTime = paymentData.getNextPaymentTime();
+                    outstandingBalance = paymentData.getOutstandingBalance();
+                } while (!paymentData.validateRead(readVersion));
+
+                putTime(nextPaymentTime);
+                buffer.putInt(outstandingBalance);
+            }
+
+            if (contract instanceof SingleVehicleContract singleContract) {
+                buffer.putInt(personOrdinal(singleContract.getBeneficiary()));
+                buffer.putLong(singleContract.getInsuredVehicle().getPackedLicensePlate());
+                buffer.putInt(singleContract.getInsuredVehicle().getOriginalValue());
+                buffer.putInt(ownerMasters.getOrDefault(singleContract, -1));
+            } else if (contract instanceof MasterVehicleContract masterContract) {
+                buffer.putInt(personOrdinal(masterContract.getBeneficiary()));
+                buffer.putInt(masterContract.getChildContracts().size());
+                for (SingleVehicleContract childContract : masterContract.getChildContracts()) {
+                    buffer.putInt(contractOrdinals.get(childContract));
+                }
+            } else {
+                Set<Person> insuredPersons = ((TravelContract) contract).getInsuredPersons();
+                buffer.putInt(insuredPersons.size());
+                for (Person person : insuredPersons) {
+                    buffer.putInt(personOrdinal(person));
+                }
+            }
+
+            buffer.putInt(paymentCount);
+            if (payments instanceof PaymentLedger ledger) {
+                for (int i = 0; i < paymentCount; i++) {
+                    putTime(ledger.getPaymentTime(i));
+                    buffer.putInt(ledger.getPaymentAmount(i));
+                }
+            } else if (payments != null) {
+                for (PaymentInstance payment : payments) {
+                    putTime(payment.getPaymentTime());
+                    buffer.putInt(payment.getPaymentAmount());
+                }
+            }
+            return offset;
+        }
+
+        private static byte typeOf(AbstractContract contract) {
+            if (contract instanceof SingleVehicleContract) {
+                return SINGLE_VEHICLE_CONTRACT;
+            }
+            return contract instanceof MasterVehicleContract ? MASTER_VEHICLE_CONTRACT : TRAVEL_CONTRACT;
+        }
+
+        private int personOrdinal(Person person) {
+            return person != null ? personOrdinals.get(person.getId()) : -1;
+        }
+
+        private int[] sortRegisteredByNumber() {
+            byte[][] numbers = new byte[registeredCount][];
+            Integer[] ordinals = new Integer[registeredCount];
+            for (int ordinal = 0; ordinal < registeredCount; ordinal++) {
+                numbers[ordinal] = encode(contracts.get(ordinal).getContractNumber());
+                ordinals[ordinal] = ordinal;
+            }
+            Arrays.sort(ordinals, (first, second) -> Arrays.compareUnsigned(numbers[first], numbers[second]));
+
+            int[] sortedOrdinals = new int[registeredCount];
+            for (int i = 0; i < registeredCount; i++) {
+                sortedOrdinals[i] = ordinals[i];
+            }
+            return sortedOrdinals;
+        }
+
+        private long[] collectLicensePlates() {
+            // Uložíme len ŠPZ, pre ktoré index poisťovne vracia zmluvu zo snapshotu
+            long[] plates = new long[contracts.size()];
+            int plateCount = 0;
+            for (AbstractContract contract : contracts) {
+                if (contract instanceof SingleVehicleContract singleContract) {
+                    long plate = singleContract.getInsuredVehicle().getPackedLicensePlate();
+                    if (contractOrdinals.containsKey(company.findContractByLicensePlate(plate))) {
+                        plates[plateCount++] = plate;
+                    }
+                }
+            }
+
+            // Viac zmlúv na rovnakú ŠPZ zanechá po zoradení susedné duplicity
+            Arrays.sort(plates, 0, plateCount);
+            int uniqueCount = 0;
+            for (int i = 0; i < plateCount; i++) {
+                if (uniqueCount == 0 || plates[uniqueCount - 1] != plates[i]) {
+                    plates[uniqueCount++] = plates[i];
+                }
+            }
+            return Arrays.copyOf(plates, uniqueCount);
+        }
+
+        private long beginRecord(int size) throws IOException {
+            // Či by záznam presahoval hranicu mapovanej časti
+            if (size > CHUNK_SIZE) {
+                throw new IllegalStateException("Snapshot record is too large.");
+            }
+            long chunkEnd = (position | (CHUNK_SIZE - 1)) + 1;
+            if (position + size > chunkEnd) {
+                pad(chunkEnd - position);
+            }
+
+            if (buffer.remaining() < size) {
+                drain();
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocate(size);
+                }
+            }
+
+            long offset = position;
+            position += size;
+            return offset;
+        }
+
+        private long writeLongs(long[] values) throws IOException {
+            // Indexy sú zarovnané na 8 bajtov, preto ich prvky neprekračujú hranicu časti
+            pad(-position & 7);
+            long start = position;
+            for (long value : values) {
+                beginRecord(8);
+                buffer.putLong(value);
+            }
+            return start;
+        }
+
+        private long writeInts(int[] values) throws IOException {
+            pad(-position & 7);
+            long start = position;
+            for (int value : values) {
+                beginRecord(4);
+                buffer.putInt(value);
+            }
+            return start;
+        }
+
+        private void pad(long bytes) throws IOException {
+            for (long i = 0; i < bytes; i++) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                buffer.put((byte) 0);
+            }
+            position += bytes;
+        }
+
+        private void putBytes(byte[] bytes) {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+
+        private void putTime(LocalDateTime time) {
+            buffer.putLong(time.toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(time.getNano());
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            if (buffer.capacity() > BUFFER_SIZE) {
+                buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            } else {
+                buffer.clear();
+            }
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+
+        private static byte[] encode(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+            // Či sa dĺžka zmestí do dvojbajtovej predpony
+            if (bytes.length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Value is too long for the snapshot.");
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.TravelContract;
+import objects.Person;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Sekundárne indexy registra podľa ID poistníka a ID osôb poistených cestovnými zmluvami
+class ContractIndex {
+    private final Map<String, ContractSet> byPolicyHolder;
+    private final Map<String, ContractSet> byInsuredPerson;
+
+    ContractIndex(boolean concurrent) {
+        if (concurrent) {
+            this.byPolicyHolder = new ConcurrentHashMap<>();
+            this.byInsuredPerson = new ConcurrentHashMap<>();
+        } else {
+            this.byPolicyHolder = new HashMap<>();
+            this.byInsuredPerson = new HashMap<>();
+        }
+    }
+
+    void add(AbstractContract contract) {
+        put(byPolicyHolder, contract.getPolicyHolder().getId(), contract);
+
+        // Neaktívna cestovná zmluva už nikoho nepoisťuje
+        if (contract instanceof TravelContract travelContract && travelContract.isActive()) {
+            for (Person person : travelContract.getInsuredPersons()) {
+                put(byInsuredPerson, person.getId(), contract);
+            }
+        }
+    }
+
+    void remove(AbstractContract contract) {
+        remove(byPolicyHolder, contract.getPolicyHolder().getId(), contract);
+        deactivated(contract);
+    }
+
+    void deactivated(AbstractContract contract) {
+        if (contract instanceof TravelContract travelContract) {
+            for (Person person : travelContract.getInsuredPersons()) {
+                remove(byInsuredPerson, person.getId(), contract);
+            }
+        }
+    }
+
+    List<AbstractContract> findByPolicyHolder(String personId) {
+        return find(byPolicyHolder, personId);
+    }
+
+    List<AbstractContract> findByInsuredPerson(String personId) {
+        return find(byInsuredPerson, personId);
+    }
+
+    void clear() {
+        byPolicyHolder.clear();
+        byInsuredPerson.clear();
+    }
+
+    /* Zmeny množiny prebiehajú vo vnútri compute, aby prázdnu množinu bolo možné bezpečne odstrániť.
+    Odstránenú množinu už nikto nemení, čitateľ v nej nanajvýš nájde prázdny výsledok */
+    private static void put(Map<String, ContractSet> index, String personId, AbstractContract contract) {
+        index.compute(personId, (id, contracts) -> {
+            if (contracts == null) {
+                contracts = new ContractSet();
+            }
+            contracts.add(contract);
+            return contracts;
+        });
+    }
+
+    private static void remove(Map<String, ContractSet> index, String personId, AbstractContract contract) {
+        index.computeIfPresent(personId, (id, contracts) -> contracts.remove(contract) && contracts.isEmpty()
+                ? null : contracts);
+    }
+
+    // Výsledok je kópia zoradená podľa slotu, teda v poradí vzniku zmlúv
+    private static List<AbstractContract> find(Map<String, ContractSet> index, String personId) {
+        ContractSet contracts = index.get(personId);
+        if (contracts == null) {
+            return new ArrayList<>(0);
+        }
+
+        List<AbstractContract> result = contracts.toList();
+        result.sort(Comparator.comparingInt(AbstractContract::getSlot));
+        return result;
+    }
+
+    /* Otvorené adresovanie s lineárnym skúšaním podľa slotu zmluvy. Väčšina osôb má len niekoľko zmlúv,
+    poistník flotily ich však môže mať milióny, preto množina nepoužíva uzly ako HashSet */
+    private static final class ContractSet {
+        private static final int DEFAULT_CAPACITY = 4;
+
+        private AbstractContract[] contracts;
+        private int size;
+
+        ContractSet() {
+            this.contracts = new AbstractContract[DEFAULT_CAPACITY];
+        }
+
+        synchronized void add(AbstractContract contract) {
+            // Tabuľka sa zväčší pri zaplnení na polovicu, aby boli sekvencie skúšania krátke
+            if ((size + 1) * 2 > contracts.length) {
+                resize(contracts.length * 2);
+            }
+
+            int index = findIndex(contracts, contract);
+            if (contracts[index] == null) {
+                contracts[index] = contract;
+                size++;
+            }
+        }
+
+        synchronized boolean remove(AbstractContract contract) {
+            int index = findIndex(contracts, contract);
+            if (contracts[index] == null) {
+                return false;
+            }
+
+            // Nasledujúce prvky sekvencie posunieme dozadu, aby sa skúšanie neprerušilo dierou
+            int mask = contracts.length - 1;
+            int hole = index;
+            for (int next = (index + 1) & mask; contracts[next] != null; next = (next + 1) & mask) {
+                int home = mix(contracts[next].getSlot()) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    contracts[hole] = contracts[next];
+                    hole = next;
+                }
+            }
+            contracts[hole] = null;
+            size--;
+            return true;
+        }
+
+        synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        synchronized List<AbstractContract> toList() {
+            List<AbstractContract> result = new ArrayList<>(size);
+            for (AbstractContract contract : contracts) {
+                if (contract != null) {
+                    result.add(contract);
+                }
+            }
+            return result;
+        }
+
+        private void resize(int capacity) {
+            AbstractContract[] oldContracts = contracts;
+            contracts = new AbstractContract[capacity];
+            for (AbstractContract contract : oldContracts) {
+                if (contract != null) {
+                    contracts[findIndex(contracts, contract)] = contract;
+                }
+            }
+        }
+
+        // Index danej zmluvy, alebo prvý prázdny index, na ktorý sa zmluva vloží
+        private static int findIndex(AbstractContract[] contracts, AbstractContract contract) {
+            int mask = contracts.length - 1;
+            int index = mix(contract.getSlot()) & mask;
+            while (contracts[index] != null && !contracts[index].equals(contract)) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        // Susedné sloty sa rozptýlia po celej tabuľke
+        private static int mix(int slot) {
+            return slot * 0x9E3779B9 ^ slot >>> 16;
+        }
+    }
+}
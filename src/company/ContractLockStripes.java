@@ -0,0 +1,65 @@
+package company;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+class ContractLockStripes {
+    private static final int MAX_STRIPE_COUNT = 1 << 16;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    ContractLockStripes(int stripeCount) {
+        // Počet zámkov zaokrúhlime nahor na mocninu dvoch, index sa potom počíta maskou
+        int requested = Math.min(stripeCount, MAX_STRIPE_COUNT);
+        int size = requested == 1 ? 1 : Integer.highestOneBit(requested - 1) << 1;
+
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    int getStripeCount() {
+        return locks.length;
+    }
+
+    void lock(String contractNumber) {
+        locks[indexOf(contractNumber)].lock();
+    }
+
+    void unlock(String contractNumber) {
+        locks[indexOf(contractNumber)].unlock();
+    }
+
+    void lock(String firstContractNumber, String secondContractNumber) {
+        int first = indexOf(firstContractNumber);
+        int second = indexOf(secondContractNumber);
+
+        // Zámky sa vždy berú vzostupne podľa indexu, aby nemohlo dôjsť k uviaznutiu
+        locks[Math.min(first, second)].lock();
+        if (first != second) {
+            locks[Math.max(first, second)].lock();
+        }
+    }
+
+    void unlock(String firstContractNumber, String secondContractNumber) {
+        int first = indexOf(firstContractNumber);
+        int second = indexOf(secondContractNumber);
+
+        if (first != second) {
+            locks[Math.max(first, second)].unlock();
+        }
+        locks[Math.min(first, second)].unlock();
+    }
+
+    private int indexOf(String contractNumber) {
+        // Neplatné číslo zmluvy odmietne až samotná operácia, zámok musí existovať aj preň
+        if (contractNumber == null) {
+            return 0;
+        }
+
+        int hash = contractNumber.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
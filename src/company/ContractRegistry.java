@@ -0,0 +1,245 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ContractRegistry extends AbstractSet<AbstractContract> {
+    private final InsuranceCompany owner;
+    private final Set<AbstractContract> contracts;
+    private final Map<String, Integer> slotsByNumber;
+    private final AtomicInteger slotCount;
+    private final ContractSlotTable<AbstractContract> contractsBySlot;
+    private final BillingSchedule billingSchedule;
+    private final ContractIndex contractIndex;
+    private MappedSnapshot snapshot;
+
+    ContractRegistry(InsuranceCompany owner, boolean concurrent) {
+        this.owner = owner;
+
+        // Súbežný register nezachováva poradie pridania zmlúv
+        if (concurrent) {
+            this.contracts = ConcurrentHashMap.newKeySet();
+            this.slotsByNumber = new ConcurrentHashMap<>();
+        } else {
+            this.contracts = new LinkedHashSet<>();
+            this.slotsByNumber = new HashMap<>();
+        }
+        this.slotCount = new AtomicInteger();
+        this.contractsBySlot = new ContractSlotTable<>();
+        this.billingSchedule = new BillingSchedule(owner);
+        this.contractIndex = new ContractIndex(concurrent);
+    }
+
+    // Číslo zmluvy dostane slot pri prvom použití a ponechá si ho, aj keď zmluva z registra odíde
+    int slotOf(String contractNumber) {
+        Integer slot = slotsByNumber.get(contractNumber);
+        if (slot == null) {
+            slot = slotsByNumber.computeIfAbsent(contractNumber, number -> slotCount.getAndIncrement());
+        }
+        return slot;
+    }
+
+    // Vráti slot zmluvy, ktorá do registra nevstúpila, posledný pridelený slot sa znova použije
+    void releaseSlot(String contractNumber, int slot) {
+        if (contractsBySlot.get(slot) == null && slotsByNumber.remove(contractNumber, slot)) {
+            slotCount.compareAndSet(slot + 1, slot);
+        }
+    }
+
+    int getSlotCount() {
+        return slotCount.get();
+    }
+
+    private int indexSlot(AbstractContract contract) {
+        // Zmluva inej poisťovne má slot z jej číselného radu
+        return contract.getInsurer() == owner ? contract.getSlot() : slotOf(contract.getContractNumber());
+    }
+
+    void attachSnapshot(MappedSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    BillingSchedule getBillingSchedule() {
+        // Zúčtovanie potrebuje termíny všetkých zmlúv, aj tých zo snapshotu
+        materializeSnapshot();
+        return billingSchedule;
+    }
+
+    AbstractContract findByNumber(String contractNumber) {
+        Integer slot = slotsByNumber.get(contractNumber);
+        AbstractContract contract = slot != null ? contractsBySlot.get(slot) : null;
+
+        // Zmluvu zo snapshotu vytvoríme pri prvom prístupe
+        if (contract == null && snapshot != null) {
+            contract = snapshot.findContract(contractNumber);
+        }
+        return contract;
+    }
+
+    boolean containsNumber(String contractNumber) {
+        // ConcurrentHashMap nepovoľuje null kľúč
+        if (contractNumber == null) {
+            return false;
+        }
+        Integer slot = slotsByNumber.get(contractNumber);
+        return slot != null && contractsBySlot.get(slot) != null
+                || snapshot != null && snapshot.containsUnmaterializedContract(contractNumber);
+    }
+
+    // Index pokrýva len vytvorené zmluvy, pri prvom dopyte preto vytvoríme všetky zmluvy zo snapshotu
+    List<AbstractContract> findByPolicyHolder(String personId) {
+        materializeSnapshot();
+        return contractIndex.findByPolicyHolder(personId);
+    }
+
+    List<AbstractContract> findByInsuredPerson(String personId) {
+        materializeSnapshot();
+        return contractIndex.findByInsuredPerson(personId);
+    }
+
+    void deactivated(AbstractContract contract) {
+        // Zmluva mimo registra, napríklad dcérska zmluva, v indexoch nie je
+        if (contracts.contains(contract)) {
+            contractIndex.deactivated(contract);
+        }
+    }
+
+    void childAdded(MasterVehicleContract masterContract, SingleVehicleContract childContract) {
+        // Rámcová zmluva mimo registra sa nezúčtováva
+        if (contracts.contains(masterContract)) {
+            billingSchedule.scheduleNoLaterThan(masterContract,
+                    childContract.getContractPaymentData().getNextPaymentTime());
+        }
+    }
+
+    SingleVehicleContract findByLicensePlate(long packedLicensePlate) {
+        return snapshot != null ? snapshot.findContractByLicensePlate(packedLicensePlate) : null;
+    }
+
+    // Zmluva vytvorená zo snapshotu sa zaradí bez kontroly, snapshot obsahuje každé číslo najviac raz
+    void restore(AbstractContract contract) {
+        contracts.add(contract);
+        contractsBySlot.set(indexSlot(contract), contract);
+        billingSchedule.schedule(contract);
+        contractIndex.add(contract);
+    }
+
+    private void materializeSnapshot() {
+        if (snapshot == null) {
+            return;
+        }
+
+        /* Zmluvy vytvorené pri prvom prístupe sú v množine v poradí prístupu. Obnovíme poradie
+        zo snapshotu a za ním poradie zmlúv pridaných po jeho načítaní */
+        List<AbstractContract> snapshotContracts = snapshot.materializeAll();
+        Set<AbstractContract> orderedContracts = new LinkedHashSet<>();
+        for (AbstractContract contract : snapshotContracts) {
+            if (contracts.contains(contract)) {
+                orderedContracts.add(contract);
+            }
+        }
+        orderedContracts.addAll(contracts);
+
+        contracts.clear();
+        contracts.addAll(orderedContracts);
+        snapshot = null;
+    }
+
+    @Override
+    public boolean add(AbstractContract contract) {
+        if (!contracts.add(contract)) {
+            return false;
+        }
+        contractsBySlot.set(indexSlot(contract), contract);
+        billingSchedule.schedule(contract);
+        contractIndex.add(contract);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contracts.remove(o)) {
+            return false;
+        }
+        unindex((AbstractContract) o);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (contracts.contains(o)) {
+            return true;
+        }
+
+        // Rovnaká zmluva zo snapshotu ešte nemusí byť vytvorená
+        if (snapshot != null && o instanceof AbstractContract contract) {
+            findByNumber(contract.getContractNumber());
+            return contracts.contains(o);
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        int unmaterializedContracts = snapshot != null ? snapshot.getUnmaterializedContractCount() : 0;
+        return contracts.size() + unmaterializedContracts;
+    }
+
+    @Override
+    public void clear() {
+        snapshot = null;
+        contracts.clear();
+        contractsBySlot.clear();
+        billingSchedule.clear();
+        contractIndex.clear();
+    }
+
+    @Override
+    public Iterator<AbstractContract> iterator() {
+        materializeSnapshot();
+        Iterator<AbstractContract> iterator = contracts.iterator();
+
+        return new Iterator<>() {
+            private AbstractContract current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public AbstractContract next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                unindex(current);
+            }
+        };
+    }
+
+    private void unindex(AbstractContract contract) {
+        // Index odstránime len ak ukazuje práve na odstraňovanú zmluvu
+        int slot = indexSlot(contract);
+        AbstractContract indexedContract = contractsBySlot.get(slot);
+        if (contract.equals(indexedContract)) {
+            contractsBySlot.compareAndSet(slot, indexedContract, null);
+        }
+        billingSchedule.unschedule(contract);
+        contractIndex.remove(contract);
+    }
+}
@@ -0,0 +1,263 @@
+package company;
+
+import contracts.AbstractContract;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public final class ContractSlotMap<V> extends AbstractMap<AbstractContract, V> {
+    private final InsuranceCompany owner;
+    private final ContractSlotTable<SlotEntry<V>> entries;
+    private final AtomicInteger entryCount;
+
+    // Zmluvy iných poisťovní majú sloty z iného číselného radu, ukladajú sa podľa equals
+    private final Map<AbstractContract, V> foreignEntries;
+
+    public ContractSlotMap(InsuranceCompany owner) {
+        // Či je owner null
+        if (owner == null) {
+            throw new IllegalArgumentException("Owner cannot be null.");
+        }
+
+        this.owner = owner;
+        this.entries = new ContractSlotTable<>();
+        this.entryCount = new AtomicInteger();
+        this.foreignEntries = owner.isConcurrentAccessEnabled() ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    // Rovnaké zmluvy poisťovne majú rovnaký slot, kľúč preto netreba porovnávať
+    private AbstractContract ownContract(Object key) {
+        return key instanceof AbstractContract contract && contract.getInsurer() == owner ? contract : null;
+    }
+
+    @Override
+    public V get(Object key) {
+        AbstractContract contract = ownContract(key);
+        if (contract == null) {
+            return foreignEntries.get(key);
+        }
+
+        SlotEntry<V> entry = entries.get(contract.getSlot());
+        return entry != null ? entry.value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        AbstractContract contract = ownContract(key);
+        if (contract == null) {
+            return foreignEntries.containsKey(key);
+        }
+        return entries.get(contract.getSlot()) != null;
+    }
+
+    @Override
+    public V put(AbstractContract key, V value) {
+        AbstractContract contract = ownContract(key);
+        if (contract == null) {
+            return foreignEntries.put(key, value);
+        }
+
+        int slot = contract.getSlot();
+        while (true) {
+            SlotEntry<V> entry = entries.get(slot);
+            if (entry != null) {
+                return entry.setValue(value);
+            }
+
+            if (entries.compareAndSet(slot, null, new SlotEntry<>(contract, value))) {
+                entryCount.incrementAndGet();
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(AbstractContract key, Function<? super AbstractContract, ? extends V> mappingFunction) {
+        AbstractContract contract = ownContract(key);
+        if (contract == null) {
+            return foreignEntries.computeIfAbsent(key, mappingFunction);
+        }
+
+        int slot = contract.getSlot();
+        SlotEntry<V> entry = entries.get(slot);
+        if (entry != null && entry.value != null) {
+            return entry.value;
+        }
+
+        V value = mappingFunction.apply(contract);
+        if (value == null) {
+            return null;
+        }
+
+        // Pri súbežnom vložení platí hodnota, ktorá bola v tabuľke prvá
+        while (true) {
+            entry = entries.get(slot);
+            if (entry == null) {
+                if (entries.compareAndSet(slot, null, new SlotEntry<>(contract, value))) {
+                    entryCount.incrementAndGet();
+                    return value;
+                }
+            } else {
+                synchronized (entry) {
+                    if (entry.value == null) {
+                        entry.value = value;
+                    }
+                    return entry.value;
+                }
+            }
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        AbstractContract contract = ownContract(key);
+        if (contract == null) {
+            return foreignEntries.remove(key);
+        }
+
+        SlotEntry<V> entry = entries.getAndSet(contract.getSlot(), null);
+        if (entry == null) {
+            return null;
+        }
+        entryCount.decrementAndGet();
+        return entry.value;
+    }
+
+    @Override
+    public int size() {
+        return entryCount.get() + foreignEntries.size();
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        entryCount.set(0);
+        foreignEntries.clear();
+    }
+
+    @Override
+    public Set<Entry<AbstractContract, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<AbstractContract, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ContractSlotMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                ContractSlotMap.this.clear();
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<AbstractContract, V>> {
+        private final int capacity;
+        private final Iterator<Entry<AbstractContract, V>> foreignIterator;
+        private int nextSlot;
+        private SlotEntry<V> nextEntry;
+        private Entry<AbstractContract, V> current;
+        private boolean currentForeign;
+
+        EntryIterator() {
+            this.capacity = entries.capacity();
+            this.foreignIterator = foreignEntries.entrySet().iterator();
+            advance();
+        }
+
+        // Sloty prechádzame v poradí pridelenia, teda v poradí vzniku zmlúv
+        private void advance() {
+            nextEntry = null;
+            while (nextEntry == null && nextSlot < capacity) {
+                nextEntry = entries.get(nextSlot++);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextEntry != null || foreignIterator.hasNext();
+        }
+
+        @Override
+        public Entry<AbstractContract, V> next() {
+            if (nextEntry != null) {
+                current = nextEntry;
+                currentForeign = false;
+                advance();
+                return current;
+            }
+
+            if (!foreignIterator.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = foreignIterator.next();
+            currentForeign = true;
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+
+            if (currentForeign) {
+                foreignIterator.remove();
+            } else {
+                ContractSlotMap.this.remove(current.getKey());
+            }
+            current = null;
+        }
+    }
+
+    private static final class SlotEntry<V> implements Entry<AbstractContract, V> {
+        private final AbstractContract key;
+        private volatile V value;
+
+        SlotEntry(AbstractContract key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public AbstractContract getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public synchronized V setValue(V value) {
+            V previousValue = this.value;
+            this.value = value;
+            return previousValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> entry && key.equals(entry.getKey())
+                    && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ (value != null ? value.hashCode() : 0);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package company;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Tabuľka hodnôt indexovaná číslom slotu zmluvy, rastie po segmentoch bez kopírovania hodnôt
+final class ContractSlotTable<V> {
+    private static final int SEGMENT_SHIFT = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    // Pri raste sa kopírujú len odkazy na segmenty, zápis do segmentu sa preto nikdy nestratí
+    private volatile AtomicReferenceArray<AtomicReferenceArray<V>> segments;
+
+    ContractSlotTable() {
+        this.segments = new AtomicReferenceArray<>(0);
+    }
+
+    V get(int slot) {
+        AtomicReferenceArray<AtomicReferenceArray<V>> currentSegments = segments;
+        int segmentIndex = slot >>> SEGMENT_SHIFT;
+        if (segmentIndex >= currentSegments.length()) {
+            return null;
+        }
+
+        AtomicReferenceArray<V> segment = currentSegments.get(segmentIndex);
+        return segment != null ? segment.get(slot & SEGMENT_MASK) : null;
+    }
+
+    void set(int slot, V value) {
+        segment(slot).set(slot & SEGMENT_MASK, value);
+    }
+
+    boolean compareAndSet(int slot, V expectedValue, V newValue) {
+        return segment(slot).compareAndSet(slot & SEGMENT_MASK, expectedValue, newValue);
+    }
+
+    V getAndSet(int slot, V value) {
+        return segment(slot).getAndSet(slot & SEGMENT_MASK, value);
+    }
+
+    // Horná hranica slotov, ktoré môžu obsahovať hodnotu
+    int capacity() {
+        return segments.length() << SEGMENT_SHIFT;
+    }
+
+    synchronized void clear() {
+        segments = new AtomicReferenceArray<>(0);
+    }
+
+    private AtomicReferenceArray<V> segment(int slot) {
+        // Či je slot záporný
+        if (slot < 0) {
+            throw new IllegalArgumentException("Slot cannot be negative.");
+        }
+
+        AtomicReferenceArray<AtomicReferenceArray<V>> currentSegments = segments;
+        int segmentIndex = slot >>> SEGMENT_SHIFT;
+        if (segmentIndex < currentSegments.length()) {
+            AtomicReferenceArray<V> segment = currentSegments.get(segmentIndex);
+            if (segment != null) {
+                return segment;
+            }
+        }
+        return createSegment(segmentIndex);
+    }
+
+    private synchronized AtomicReferenceArray<V> createSegment(int segmentIndex) {
+        AtomicReferenceArray<AtomicReferenceArray<V>> currentSegments = segments;
+        if (segmentIndex >= currentSegments.length()) {
+            AtomicReferenceArray<AtomicReferenceArray<V>> grownSegments = new AtomicReferenceArray<>(
+                    Math.max(segmentIndex + 1, currentSegments.length() * 2));
+            for (int i = 0; i < currentSegments.length(); i++) {
+                grownSegments.set(i, currentSegments.get(i));
+            }
+            currentSegments = grownSegments;
+        }
+
+        AtomicReferenceArray<V> segment = currentSegments.get(segmentIndex);
+        if (segment == null) {
+            segment = new AtomicReferenceArray<>(SEGMENT_SIZE);
+            currentSegments.set(segmentIndex, segment);
+        }
+        segments = currentSegments;
+        return segment;
+    }
+}
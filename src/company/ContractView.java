@@ -0,0 +1,36 @@
+package company;
+
+import contracts.AbstractContract;
+
+// Nemenný stav zmluvy, ktorý zverejnil zapisovateľ InsuranceCommandEngine po spracovaní dávky príkazov
+public final class ContractView {
+    private final AbstractContract contract;
+    private final boolean active;
+    private final int outstandingBalance;
+    private final long sequence;
+
+    ContractView(AbstractContract contract, boolean active, int outstandingBalance, long sequence) {
+        this.contract = contract;
+        this.active = active;
+        this.outstandingBalance = outstandingBalance;
+        this.sequence = sequence;
+    }
+
+    public AbstractContract getContract() {
+        return contract;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    // Pri rámcovej zmluve súčet zostatkov jej dcérskych zmlúv
+    public int getOutstandingBalance() {
+        return outstandingBalance;
+    }
+
+    // Poradové číslo dávky, po ktorej bol stav zverejnený
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,464 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import objects.Person;
+import objects.Vehicle;
+import payment.PaymentRequest;
+import payment.PaymentStatus;
+import payment.PremiumPaymentFrequency;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/* Všetky zmeny poisťovne prechádzajú ako príkazy cez ohraničený kruhový buffer. Jediné zapisovacie vlákno
+ich preberá po dávkach a vykonáva v poradí zaradenia, poisťovňa preto nepotrebuje zámky a log dostane
+úplné poradie zmien. Čítanie zmlúv ide cez stav zverejnený po každej dávke, bez čakania na zapisovateľa.
+Výsledky príkazov sa dokončujú na zapisovacom vlákne, závislá akcia preto nesmie čakať na ďalší príkaz */
+public class InsuranceCommandEngine implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    // Značka v buffri, po ktorej zapisovateľ skončí
+    private static final Command<Void> STOP = new Command<>(null);
+
+    private final InsuranceCompany company;
+    private final CommandRingBuffer<Command<?>> commands;
+    private final Thread writer;
+
+    // Zverejnený stav zmlúv podľa slotu, zapisuje ho len zapisovateľ
+    private final ContractSlotTable<ContractView> views;
+    private volatile long publishedSequence;
+
+    // Dcérska zmluva nepozná svoju rámcovú zmluvu, zmena dcérskej zmluvy však mení aj stav rámcovej
+    private final ContractSlotTable<MasterVehicleContract> masterContracts;
+
+    private volatile boolean sleeping;
+    private volatile boolean closed;
+    private volatile boolean terminated;
+
+    // Chyba logu, po ktorej zapisovateľ skončil, zmeny nepotvrdenej dávky v poisťovni zostali bez zverejnenia
+    private volatile Throwable failure;
+
+    public static InsuranceCommandEngine start(InsuranceCompany company) {
+        return start(company, DEFAULT_CAPACITY);
+    }
+
+    // Poisťovňu odteraz smie meniť len tento engine, zapisovateľ sa spustí až po dokončení konštruktora
+    public static InsuranceCommandEngine start(InsuranceCompany company, int capacity) {
+        InsuranceCommandEngine engine = new InsuranceCommandEngine(company, capacity);
+        engine.writer.start();
+        return engine;
+    }
+
+    private InsuranceCommandEngine(InsuranceCompany company, int capacity) {
+        // Či je company null
+        if (company == null) {
+            throw new IllegalArgumentException("Company cannot be null.");
+        }
+
+        // Či nie je kapacita kladná
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0.");
+        }
+
+        this.company = company;
+        this.commands = new CommandRingBuffer<>(capacity);
+        this.views = new ContractSlotTable<>();
+        this.masterContracts = new ContractSlotTable<>();
+
+        // Existujúce zmluvy zverejníme ešte pred spustením zapisovateľa
+        for (AbstractContract contract : company.getContracts()) {
+            if (contract instanceof MasterVehicleContract masterContract) {
+                for (SingleVehicleContract childContract : masterContract.getChildContracts()) {
+                    masterContracts.set(childContract.getSlot(), masterContract);
+                }
+            }
+            publish(contract, 0);
+        }
+
+        this.writer = new Thread(this::runWriter, "insurance-command-writer");
+        this.writer.setDaemon(true);
+    }
+
+    public InsuranceCompany getCompany() {
+        return company;
+    }
+
+    public CompletableFuture<SingleVehicleContract> insureVehicle(String contractNumber, Person beneficiary,
+                                                                  Person policyHolder, int proposedPremium,
+                                                                  PremiumPaymentFrequency proposedPaymentFrequency,
+                                                                  Vehicle vehicleToInsure) {
+        return submit(new Command<>(insurer -> insurer.insureVehicle(contractNumber, beneficiary, policyHolder,
+                proposedPremium, proposedPaymentFrequency, vehicleToInsure)));
+    }
+
+    public CompletableFuture<TravelContract> insurePersons(String contractNumber, Person policyHolder,
+                                                           int proposedPremium,
+                                                           PremiumPaymentFrequency proposedPaymentFrequency,
+                                                           Set<Person> personsToInsure) {
+        return submit(new Command<>(insurer -> insurer.insurePersons(contractNumber, policyHolder, proposedPremium,
+                proposedPaymentFrequency, personsToInsure)));
+    }
+
+    public CompletableFuture<MasterVehicleContract> createMasterVehicleContract(String contractNumber,
+                                                                                Person beneficiary,
+                                                                                Person policyHolder) {
+        return submit(new Command<>(insurer -> insurer.createMasterVehicleContract(contractNumber, beneficiary,
+                policyHolder)));
+    }
+
+    public CompletableFuture<Void> moveSingleVehicleContractToMasterVehicleContract(
+            MasterVehicleContract masterVehicleContract, SingleVehicleContract singleVehicleContract) {
+        return submit(new Command<>(insurer -> {
+            insurer.moveSingleVehicleContractToMasterVehicleContract(masterVehicleContract, singleVehicleContract);
+            masterContracts.set(singleVehicleContract.getSlot(), masterVehicleContract);
+            return null;
+        }, masterVehicleContract, singleVehicleContract));
+    }
+
+    // Odmietnutá platba dokončí výsledok stavom, rovnako ako pri PaymentHandler.payAll
+    public CompletableFuture<PaymentStatus> pay(AbstractContract contract, int amount) {
+        return submit(new PaymentCommand(new PaymentRequest(contract, amount)));
+    }
+
+    public CompletableFuture<PaymentStatus> pay(AbstractContract contract, int amount, String reference) {
+        return submit(new PaymentCommand(new PaymentRequest(contract, amount, reference)));
+    }
+
+    public CompletableFuture<Void> processClaim(TravelContract travelContract, Set<Person> affectedPersons) {
+        return submit(new Command<>(insurer -> {
+            insurer.processClaim(travelContract, affectedPersons);
+            return null;
+        }, travelContract));
+    }
+
+    public CompletableFuture<Void> processClaim(SingleVehicleContract singleVehicleContract, int expectedDamages) {
+        return submit(new Command<>(insurer -> {
+            insurer.processClaim(singleVehicleContract, expectedDamages);
+            return null;
+        }, singleVehicleContract));
+    }
+
+    public CompletableFuture<Void> setCurrentTime(LocalDateTime newCurrentTime) {
+        return submit(new Command<>(insurer -> {
+            insurer.setCurrentTime(newCurrentTime);
+            return null;
+        }));
+    }
+
+    // Predpis poistného mení zostatky všetkých zmlúv, po dávke sa preto zverejnia všetky
+    public CompletableFuture<Void> chargePremiumsOnContracts() {
+        Command<Void> command = new Command<>(insurer -> {
+            insurer.chargePremiumsOnContracts();
+            return null;
+        });
+        command.changesAllContracts = true;
+        return submit(command);
+    }
+
+    // Naposledy zverejnený stav zmluvy, alebo null, ak zmluva ešte nebola zverejnená
+    public ContractView getView(AbstractContract contract) {
+        // Či je contract null
+        if (contract == null) {
+            throw new IllegalArgumentException("Contract cannot be null.");
+        }
+
+        // Slot zmluvy inej poisťovne môže patriť inej zmluve
+        ContractView view = views.get(contract.getSlot());
+        return view != null && view.getContract() == contract ? view : null;
+    }
+
+    // Poradové číslo poslednej spracovanej dávky
+    public long getPublishedSequence() {
+        return publishedSequence;
+    }
+
+    // Spracuje príkazy zaradené pred zatvorením, neskoršie príkazy sa odmietnu
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        put(STOP);
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Command<T> command) {
+        if (closed || failure != null) {
+            return CompletableFuture.failedFuture(rejection());
+        }
+        put(command);
+        return command.future;
+    }
+
+    private void put(Command<?> command) {
+        commands.put(command);
+
+        /* Zapisovateľ pred uspaním nastaví príznak a znovu skontroluje buffer, zapisovateľ po vložení
+        príznak skontroluje, jeden z nich teda príkaz vždy uvidí */
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+
+        // Príkaz vložený po skončení zapisovateľa by inak nikto neprevzal
+        if (terminated) {
+            rejectPending();
+        }
+    }
+
+    private void runWriter() {
+        Command<?>[] batch = new Command<?>[MAX_BATCH_SIZE];
+        List<PaymentRequest> payments = new ArrayList<>();
+        Set<AbstractContract> changedContracts = new HashSet<>();
+
+        boolean stopped = false;
+        while (!stopped) {
+            int count = commands.drainTo(batch);
+            if (count == 0) {
+                sleeping = true;
+                if (commands.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+                continue;
+            }
+            stopped = applyBatch(batch, count, payments, changedContracts);
+        }
+
+        terminated = true;
+        rejectPending();
+    }
+
+    private boolean applyBatch(Command<?>[] batch, int count, List<PaymentRequest> payments,
+                               Set<AbstractContract> changedContracts) {
+        boolean stopped = false;
+        boolean changesAllContracts = false;
+
+        // Príkazy dávky nečakajú na fsync jednotlivo, celá dávka sa zapíše do logu naraz pred zverejnením
+        WriteAheadLog writeAheadLog = company.getWriteAheadLog();
+        if (writeAheadLog != null) {
+            writeAheadLog.beginBatch();
+        }
+
+        // Po sebe idúce platby sa pripíšu jednou dávkou, poradie voči ostatným príkazom sa zachová
+        int paymentStart = -1;
+        int applied = count;
+        for (int i = 0; i < count; i++) {
+            Command<?> command = batch[i];
+            if (command instanceof PaymentCommand) {
+                if (paymentStart < 0) {
+                    paymentStart = i;
+                }
+                continue;
+            }
+
+            if (paymentStart >= 0) {
+                applyPayments(batch, paymentStart, i, payments);
+                paymentStart = -1;
+            }
+
+            // Príkazy zaradené za značku prišli po zatvorení, nevykonajú sa
+            if (command == STOP) {
+                stopped = true;
+                applied = i;
+                break;
+            }
+            command.apply(company);
+            changesAllContracts |= command.changesAllContracts;
+        }
+        if (paymentStart >= 0) {
+            applyPayments(batch, paymentStart, applied, payments);
+        }
+
+        // Výsledky dávky sa zverejnia až po zápise dávky do logu
+        Throwable logError = null;
+        if (writeAheadLog != null) {
+            try {
+                writeAheadLog.endBatch();
+            } catch (Throwable e) {
+                logError = e;
+            }
+        }
+
+        /* Dávku, ktorú log nepotvrdil, nezverejníme a zapisovateľ skončí. Jej zmeny v poisťovni už nastali
+        a nedajú sa vrátiť, ďalšie príkazy by preto stavali na stave, ktorý po obnove z logu nebude existovať */
+        if (logError != null) {
+            failure = logError;
+            for (int i = 0; i < count; i++) {
+                if (i < applied) {
+                    batch[i].complete(logError);
+                } else if (batch[i] != STOP) {
+                    batch[i].future.completeExceptionally(rejection());
+                }
+                batch[i] = null;
+            }
+            return true;
+        }
+
+        long sequence = publishedSequence + 1;
+        if (changesAllContracts) {
+            for (AbstractContract contract : company.getContracts()) {
+                publish(contract, sequence);
+            }
+        } else {
+            for (int i = 0; i < applied; i++) {
+                batch[i].collectChangedContracts(changedContracts);
+            }
+            for (AbstractContract contract : changedContracts) {
+                // Odmietnutá platba môže niesť zmluvu inej poisťovne
+                if (contract.getInsurer() != company) {
+                    continue;
+                }
+
+                MasterVehicleContract masterContract = masterContracts.get(contract.getSlot());
+                if (masterContract != null) {
+                    publish(masterContract, sequence);
+                } else {
+                    publish(contract, sequence);
+                }
+            }
+            changedContracts.clear();
+        }
+        publishedSequence = sequence;
+
+        for (int i = 0; i < count; i++) {
+            if (i < applied) {
+                batch[i].complete(logError);
+            } else if (batch[i] != STOP) {
+                batch[i].future.completeExceptionally(rejection());
+            }
+            batch[i] = null;
+        }
+        return stopped;
+    }
+
+    private void applyPayments(Command<?>[] batch, int from, int to, List<PaymentRequest> payments) {
+        for (int i = from; i < to; i++) {
+            payments.add(((PaymentCommand) batch[i]).request);
+        }
+
+        try {
+            PaymentStatus[] statuses = company.getHandler().payAll(payments);
+            for (int i = from; i < to; i++) {
+                ((PaymentCommand) batch[i]).result = statuses[i - from];
+            }
+        } catch (Throwable e) {
+            for (int i = from; i < to; i++) {
+                batch[i].error = e;
+            }
+        } finally {
+            payments.clear();
+        }
+    }
+
+    // Rámcová zmluva sa zverejní spolu so svojimi dcérskymi zmluvami
+    private void publish(AbstractContract contract, long sequence) {
+        if (contract instanceof MasterVehicleContract masterContract) {
+            int outstandingBalance = 0;
+            for (SingleVehicleContract childContract : masterContract.getChildContracts()) {
+                publish(childContract, sequence);
+                outstandingBalance += childContract.getContractPaymentData().getOutstandingBalance();
+            }
+            views.set(contract.getSlot(), new ContractView(contract, contract.isActive(), outstandingBalance,
+                    sequence));
+        } else {
+            views.set(contract.getSlot(), new ContractView(contract, contract.isActive(),
+                    contract.getContractPaymentData().getOutstandingBalance(), sequence));
+        }
+    }
+
+    // Po skončení zapisovateľa preberá buffer ten, kto ho vyprázdňuje pod zámkom
+    private synchronized void rejectPending() {
+        Command<?>[] batch = new Command<?>[MAX_BATCH_SIZE];
+        int count;
+        while ((count = commands.drainTo(batch)) > 0) {
+            for (int i = 0; i < count; i++) {
+                batch[i].future.completeExceptionally(rejection());
+            }
+        }
+    }
+
+    private IllegalStateException rejection() {
+        Throwable failure = this.failure;
+        if (failure != null) {
+            return new IllegalStateException("Command engine stopped after a write-ahead log failure.", failure);
+        }
+        return new IllegalStateException("Command engine is closed.");
+    }
+
+    private static class Command<T> {
+        private final Function<InsuranceCompany, T> operation;
+        private final AbstractContract[] affectedContracts;
+        final CompletableFuture<T> future;
+        boolean changesAllContracts;
+        T result;
+        Throwable error;
+
+        Command(Function<InsuranceCompany, T> operation, AbstractContract... affectedContracts) {
+            this.operation = operation;
+            this.affectedContracts = affectedContracts;
+            this.future = new CompletableFuture<>();
+        }
+
+        void apply(InsuranceCompany company) {
+            try {
+                result = operation.apply(company);
+            } catch (Throwable e) {
+                error = e;
+            }
+        }
+
+        // Zmluvy, ktorých stav sa príkazom mohol zmeniť, vrátane novo vytvorenej zmluvy
+        void collectChangedContracts(Set<AbstractContract> changedContracts) {
+            for (AbstractContract contract : affectedContracts) {
+                if (contract != null) {
+                    changedContracts.add(contract);
+                }
+            }
+            if (result instanceof AbstractContract contract) {
+                changedContracts.add(contract);
+            }
+        }
+
+        void complete(Throwable logError) {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else if (logError != null) {
+                future.completeExceptionally(logError);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+
+    private static final class PaymentCommand extends Command<PaymentStatus> {
+        private final PaymentRequest request;
+
+        PaymentCommand(PaymentRequest request) {
+            super(null, request.getContract());
+            this.request = request;
+        }
+    }
+}
@@ -1,32 +1,94 @@
 package company;
 
 import contracts.*;
+import objects.LicensePlates;
 import objects.Person;
+import objects.PersonRegistry;
 import objects.Vehicle;
 import payment.ContractPaymentData;
+import payment.PaymentDataStore;
 import payment.PaymentHandler;
 import payment.PremiumPaymentFrequency;
 
 import java.time.LocalDateTime;
-import java.util.LinkedHashSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class InsuranceCompany {
+    // Paralelné zúčtovanie delí zmluvy na niekoľko úsekov na vlákno, aby sa vyrovnala nerovnomerná práca
+    private static final int BILLING_TASKS_PER_THREAD = 4;
+    private static final int MIN_BILLING_LEAF_SIZE = 64;
+
     private final Set<AbstractContract> contracts;
+    private final ContractRegistry contractRegistry;
     private final PaymentHandler handler;
-    private LocalDateTime currentTime;
+    private final ContractLockStripes contractLocks;
+    private final PersonRegistry personRegistry;
+    private final LicensePlateIndex licensePlateIndex;
+
+    /* Predpis poistného s logom drží zápis, zmeny, ktoré s ním nekomutujú (čas, poistné udalosti a platby
+    rámcových zmlúv), čítanie. V logu sú tak v poradí, v akom sa prejavili */
+    private final ReentrantReadWriteLock billingOrderLock;
+    private volatile LocalDateTime currentTime;
+    private ForkJoinPool billingPool;
+    private int parallelBillingThreshold;
+    private PaymentDataStore paymentDataStore;
+    private volatile WriteAheadLog writeAheadLog;
+
+    // Pozícia v logu, po ktorú sú jeho záznamy v tomto stave, -1 ak stav nepochádza z logu
+    private volatile long logPosition = -1;
 
     public InsuranceCompany(LocalDateTime currentTime) {
+        this(currentTime, null);
+    }
+
+    public InsuranceCompany(LocalDateTime currentTime, int lockStripes) {
+        this(currentTime, createContractLocks(lockStripes));
+    }
+
+    private InsuranceCompany(LocalDateTime currentTime, ContractLockStripes contractLocks) {
+        this(currentTime, contractLocks, new PersonRegistry());
+    }
+
+    private InsuranceCompany(LocalDateTime currentTime, ContractLockStripes contractLocks,
+                             PersonRegistry personRegistry) {
         // Či je currentTime null
         if (currentTime == null) {
             throw new IllegalArgumentException("CurrentTime cannot be null.");
         }
 
         this.currentTime = currentTime;
-        this.contracts = new LinkedHashSet<>();
+        this.contractLocks = contractLocks;
+        this.contractRegistry = new ContractRegistry(this, contractLocks != null);
+        this.contracts = contractRegistry;
+        this.personRegistry = personRegistry;
+        this.licensePlateIndex = new LicensePlateIndex();
+        this.billingOrderLock = new ReentrantReadWriteLock();
         this.handler = new PaymentHandler(this);
     }
 
+    // Poisťovňa načítaná zo snapshotu vytvára osoby a zmluvy zo súboru až pri prvom prístupe
+    static InsuranceCompany fromSnapshot(MappedSnapshot snapshot) {
+        InsuranceCompany company = new InsuranceCompany(snapshot.getCurrentTime(), null,
+                new PersonRegistry(snapshot::createPerson));
+        snapshot.attach(company, company.contractRegistry, company.licensePlateIndex);
+        company.logPosition = snapshot.getLogPosition();
+        return company;
+    }
+
+    private static ContractLockStripes createContractLocks(int lockStripes) {
+        // Či nie je počet zámkov kladný
+        if (lockStripes <= 0) {
+            throw new IllegalArgumentException("Lock stripe count must be greater than 0.");
+        }
+        return new ContractLockStripes(lockStripes);
+    }
+
     public LocalDateTime getCurrentTime() {
         return currentTime;
     }
@@ -35,7 +97,17 @@ public class InsuranceCompany {
         if (newCurrentTime == null) {
             throw new IllegalArgumentException("CurrentTime cannot be null.");
         }
-        this.currentTime = newCurrentTime;
+
+        // Zmena sa zapíše do logu skôr, než sa prejaví, chyba logu ju tak celú zruší
+        billingOrderLock.readLock().lock();
+        try {
+            if (writeAheadLog != null) {
+                writeAheadLog.logCurrentTime(newCurrentTime);
+            }
+            this.currentTime = newCurrentTime;
+        } finally {
+            billingOrderLock.readLock().unlock();
+        }
     }
 
     public Set<AbstractContract> getContracts() {
@@ -46,98 +118,240 @@ public class InsuranceCompany {
         return handler;
     }
 
-    private boolean contractNumberExists(String contractNumber) {
-        return contracts.stream()
-                .anyMatch(contract -> contract.getContractNumber().equals(contractNumber));
+    public PersonRegistry getPersonRegistry() {
+        return personRegistry;
     }
 
-    private static int getTwoPercentsOfVehicleValue(PremiumPaymentFrequency proposedPaymentFrequency, Vehicle vehicleToInsure) {
-        // Či je vozidlo na poistenie null
-        if (vehicleToInsure == null) {
-            throw new IllegalArgumentException("vehicleToInsure to insure cannot be null.");
+    public void attachWriteAheadLog(WriteAheadLog writeAheadLog) {
+        // Či je writeAheadLog null
+        if (writeAheadLog == null) {
+            throw new IllegalArgumentException("Write-ahead log cannot be null.");
         }
 
-        // Či je proposedPaymentFrequency null
-        if (proposedPaymentFrequency == null) {
-            throw new IllegalArgumentException("ProposedPaymentFrequency cannot be null.");
+        // Či už poisťovňa nezapisuje do iného logu
+        if (this.writeAheadLog != null) {
+            throw new IllegalStateException("Write-ahead log is already attached.");
         }
 
-        int vehicleValue = vehicleToInsure.getOriginalValue();
-        return (int) (vehicleValue * 0.02);
+        // Log začína aktuálnym časom poisťovne, od neho sa odvíjajú všetky ďalšie záznamy
+        writeAheadLog.logCurrentTime(currentTime);
+        this.writeAheadLog = writeAheadLog;
     }
 
-    public SingleVehicleContract insureVehicle(String contractNumber, Person beneficiary, Person policyHolder,
-                                               int proposedPremium, PremiumPaymentFrequency proposedPaymentFrequency,
-                                               Vehicle vehicleToInsure) {
-        // Či v danej poisťovni nejestvuje iná zmluva s contractNumber
-        if (contractNumberExists(contractNumber)) {
-            throw new IllegalArgumentException("Contract number already exists");
+    public WriteAheadLog getWriteAheadLog() {
+        return writeAheadLog;
+    }
+
+    // Platba rámcovej zmluvy ho drží od zápisu do logu po rozdelenie sumy, aby ju predpis poistného neprekryl
+    public Lock getMasterPaymentLock() {
+        return billingOrderLock.readLock();
+    }
+
+    long getLogPosition() {
+        return logPosition;
+    }
+
+    void setLogPosition(long logPosition) {
+        this.logPosition = logPosition;
+    }
+
+    public int getContractSlot(String contractNumber) {
+        // Či je contractNumber null
+        if (contractNumber == null) {
+            throw new IllegalArgumentException("Contract number cannot be null.");
         }
+        return contractRegistry.slotOf(contractNumber);
+    }
 
-        // Či je vozidlo na poistenie null
-        if (vehicleToInsure == null) {
-            throw new IllegalArgumentException("PersonsToInsure cannot be null.");
+    // Zmluva, ktorú log odmietol, vráti slot, ak ho dostala až pri svojom vytvorení
+    private void releaseContractSlot(AbstractContract contract, int slotCountBefore) {
+        if (contract.getSlot() >= slotCountBefore) {
+            contractRegistry.releaseSlot(contract.getContractNumber(), contract.getSlot());
         }
+    }
 
-        // Či je proposedPaymentFrequency null
-        if (proposedPaymentFrequency == null) {
-            throw new IllegalArgumentException("ProposedPaymentFrequency cannot be null.");
+    // Počet pridelených slotov, tabuľky indexované slotom zmluvy ho používajú ako svoju veľkosť
+    public int getContractSlotCount() {
+        return contractRegistry.getSlotCount();
+    }
+
+    public boolean isConcurrentAccessEnabled() {
+        return contractLocks != null;
+    }
+
+    private void lockContractNumber(String contractNumber) {
+        if (contractLocks != null) {
+            contractLocks.lock(contractNumber);
         }
+    }
 
-        // Či nie je proposedPremium kladné
-        if (proposedPremium <= 0) {
-            throw new IllegalArgumentException("proposedPremium must be greater than 0.");
+    private void unlockContractNumber(String contractNumber) {
+        if (contractLocks != null) {
+            contractLocks.unlock(contractNumber);
         }
+    }
 
-        int twoPercentsOfVehicleValue = getTwoPercentsOfVehicleValue(proposedPaymentFrequency, vehicleToInsure);
-        // Celková ročná čiastka
-        int paymentAmount = (int) (proposedPremium * ((double)12 / proposedPaymentFrequency.getValueInMonths()));
+    private void lockContractNumbers(String firstContractNumber, String secondContractNumber) {
+        if (contractLocks != null) {
+            contractLocks.lock(firstContractNumber, secondContractNumber);
+        }
+    }
 
-        /* Či celková ročná čiastka, ktorú poistník zaplatí je
-        väčšia alebo rovná 2% z ceny */
-        if (paymentAmount < twoPercentsOfVehicleValue) {
-            throw new IllegalArgumentException("Total payment amount does not meet minimum 2% requirement.");
+    private void unlockContractNumbers(String firstContractNumber, String secondContractNumber) {
+        if (contractLocks != null) {
+            contractLocks.unlock(firstContractNumber, secondContractNumber);
         }
+    }
 
-        /* V platobných dátach sa nastaví premium a premiumPaymentFrequency podľa navrhovaných hodnôt,
-         nedoplatok sa nastaví na 0 a dátum ďalšej platby sa nastaví na currentTime poisťovne */
-        ContractPaymentData paymentData = new ContractPaymentData(
-                proposedPremium,
-                proposedPaymentFrequency,
-                currentTime,
-                0
-        );
+    public void enableParallelBilling(int parallelism, int threshold) {
+        // Či nie je paralelizmus kladný
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0.");
+        }
 
-        int halfOfVehicleValue = vehicleToInsure.getOriginalValue() / 2;
+        // Či nie je prah kladný
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Parallel billing threshold must be greater than 0.");
+        }
 
-        SingleVehicleContract newContract = new SingleVehicleContract(
-                contractNumber,
-                this,
-                beneficiary,
-                policyHolder,
-                paymentData,
-                halfOfVehicleValue,
-                vehicleToInsure
-        );
+        disableParallelBilling();
+        this.billingPool = new ForkJoinPool(parallelism);
+        this.parallelBillingThreshold = threshold;
+    }
 
-        chargePremiumOnContract(newContract);
+    public void disableParallelBilling() {
+        if (billingPool != null) {
+            billingPool.shutdown();
+            billingPool = null;
+        }
+    }
 
-        contracts.add(newContract);
-        policyHolder.addContract(newContract);
+    public boolean isParallelBillingEnabled() {
+        return billingPool != null;
+    }
 
-        return newContract;
+    public void enableColumnarPaymentData(int initialCapacity) {
+        // Platobné dáta existujúcich zmlúv sa do úložiska nepresúvajú
+        if (!contracts.isEmpty()) {
+            throw new IllegalStateException("Columnar payment data must be enabled before any contract is created.");
+        }
+
+        // Úložisko sa pri raste prealokuje, súbežný zápis do starého poľa by sa stratil
+        if (contractLocks != null) {
+            throw new IllegalStateException("Columnar payment data is not supported with concurrent access.");
+        }
+        this.paymentDataStore = new PaymentDataStore(initialCapacity);
     }
 
-    public TravelContract insurePersons(String contractNumber, Person policyHolder, int proposedPremium,
-                                        PremiumPaymentFrequency proposedPaymentFrequency, Set<Person> personsToInsure) {
-        // Či v danej poisťovni nejestvuje iná zmluva s contractNumber
-        if (contractNumberExists(contractNumber)) {
-            throw new IllegalArgumentException("Contract number already exists");
+    public boolean isColumnarPaymentDataEnabled() {
+        return paymentDataStore != null;
+    }
+
+    private ContractPaymentData createPaymentData(int premium, PremiumPaymentFrequency premiumPaymentFrequency,
+                                                  LocalDateTime nextPaymentTime, int outstandingBalance) {
+        if (paymentDataStore != null) {
+            return paymentDataStore.create(premium, premiumPaymentFrequency, nextPaymentTime, outstandingBalance);
         }
+        return new ContractPaymentData(premium, premiumPaymentFrequency, nextPaymentTime, outstandingBalance);
+    }
+
+    public AbstractContract findContract(String contractNumber) {
+        if (contractNumber == null) {
+            throw new IllegalArgumentException("Contract number cannot be null.");
+        }
+        return contractRegistry.findByNumber(contractNumber);
+    }
+
+    public SingleVehicleContract findContractByLicensePlate(String licensePlate) {
+        return findContractByLicensePlate(LicensePlates.encode(licensePlate));
+    }
+
+    public SingleVehicleContract findContractByLicensePlate(long packedLicensePlate) {
+        SingleVehicleContract contract = licensePlateIndex.get(packedLicensePlate);
+
+        // Zmluvu zo snapshotu vyhľadáme v ňom a vytvoríme ju pri prvom prístupe
+        if (contract == null) {
+            contract = contractRegistry.findByLicensePlate(packedLicensePlate);
+        }
+        return contract;
+    }
+
+    // Všetky zmluvy v registri poisťovne, ktorých poistník má dané ID, dcérske zmluvy sú v rámcových zmluvách
+    public List<AbstractContract> findContractsByPolicyHolder(String personId) {
+        // Či je personId null
+        if (personId == null) {
+            throw new IllegalArgumentException("Person ID cannot be null.");
+        }
+        return contractRegistry.findByPolicyHolder(personId);
+    }
 
-        // Či sú ľudia na poistenie null
-        if (personsToInsure == null) {
-            throw new IllegalArgumentException("PersonsToInsure cannot be null.");
+    // Aktívne cestovné zmluvy, ktoré poisťujú osobu s daným ID
+    public List<TravelContract> findTravelContractsByInsuredPerson(String personId) {
+        // Či je personId null
+        if (personId == null) {
+            throw new IllegalArgumentException("Person ID cannot be null.");
+        }
+
+        List<TravelContract> travelContracts = new ArrayList<>();
+        for (AbstractContract contract : contractRegistry.findByInsuredPerson(personId)) {
+            travelContracts.add((TravelContract) contract);
+        }
+        return travelContracts;
+    }
+
+    // Volá AbstractContract.setInactive, aby sa deaktivácia prejavila v indexoch
+    public void contractDeactivated(AbstractContract contract) {
+        // Či je contract null alebo stále aktívny
+        if (contract == null || contract.isActive()) {
+            throw new IllegalArgumentException("Contract must be an inactive contract.");
+        }
+
+        if (contract.getInsurer() == this) {
+            contractRegistry.deactivated(contract);
+
+            // Dcérske zmluvy sú v indexe ŠPZ tiež, deaktivácia ich vyradí zo starších aktívnych zmlúv
+            if (contract instanceof SingleVehicleContract singleContract) {
+                licensePlateIndex.deactivated(singleContract.getInsuredVehicle().getPackedLicensePlate(),
+                        singleContract);
+            }
+        }
+    }
+
+    // Volá MasterVehicleContract.addChildContract, aby rozvrh zúčtovania poznal termín novej dcérskej zmluvy
+    public void childContractAdded(MasterVehicleContract masterContract, SingleVehicleContract childContract) {
+        // Či je masterContract alebo childContract null
+        if (masterContract == null || childContract == null) {
+            throw new IllegalArgumentException("Master contract and child contract cannot be null.");
+        }
+
+        if (masterContract.getInsurer() == this) {
+            contractRegistry.childAdded(masterContract, childContract);
+        }
+    }
+
+    public boolean isLicensePlateInsured(long packedLicensePlate) {
+        // Zmluvy zo snapshotu sa do indexu načítajú pri prvom vyhľadaní ŠPZ
+        if (findContractByLicensePlate(packedLicensePlate) == null) {
+            return false;
+        }
+
+        // Či je na vozidlo s danou ŠPZ aktívna posledná zmluva alebo niektorá staršia
+        return licensePlateIndex.isInsured(packedLicensePlate);
+    }
+
+    // Staršie aktívne zmluvy na ŠPZ bez poslednej zmluvy, od najstaršej
+    List<SingleVehicleContract> findOlderActiveContractsByLicensePlate(long packedLicensePlate) {
+        return licensePlateIndex.getOlderActive(packedLicensePlate);
+    }
+
+    private boolean contractNumberExists(String contractNumber) {
+        return contractRegistry.containsNumber(contractNumber);
+    }
+
+    private static int getTwoPercentsOfVehicleValue(PremiumPaymentFrequency proposedPaymentFrequency, Vehicle vehicleToInsure) {
+        // Či je vozidlo na poistenie null
+        if (vehicleToInsure == null) {
+            throw new IllegalArgumentException("vehicleToInsure to insure cannot be null.");
         }
 
         // Či je proposedPaymentFrequency null
@@ -145,65 +359,202 @@ public class InsuranceCompany {
             throw new IllegalArgumentException("ProposedPaymentFrequency cannot be null.");
         }
 
-        // Či nie je proposed
-        if (proposedPremium <= 0) {
-            throw new IllegalArgumentException("proposedPremium must be greater than zero.");
-        }
+        int vehicleValue = vehicleToInsure.getOriginalValue();
+        return (int) (vehicleValue * 0.02);
+    }
+
+    public SingleVehicleContract insureVehicle(String contractNumber, Person beneficiary, Person policyHolder,
+                                               int proposedPremium, PremiumPaymentFrequency proposedPaymentFrequency,
+                                               Vehicle vehicleToInsure) {
+        // Kontrola jedinečnosti čísla a registrácia zmluvy prebehnú pod rovnakým zámkom
+        lockContractNumber(contractNumber);
+        try {
+            // Či v danej poisťovni nejestvuje iná zmluva s contractNumber
+            if (contractNumberExists(contractNumber)) {
+                throw new IllegalArgumentException("Contract number already exists");
+            }
+
+            // Či je vozidlo na poistenie null
+            if (vehicleToInsure == null) {
+                throw new IllegalArgumentException("PersonsToInsure cannot be null.");
+            }
+
+            // Či je proposedPaymentFrequency null
+            if (proposedPaymentFrequency == null) {
+                throw new IllegalArgumentException("ProposedPaymentFrequency cannot be null.");
+            }
+
+            // Či nie je proposedPremium kladné
+            if (proposedPremium <= 0) {
+                throw new IllegalArgumentException("proposedPremium must be greater than 0.");
+            }
+
+            int twoPercentsOfVehicleValue = getTwoPercentsOfVehicleValue(proposedPaymentFrequency, vehicleToInsure);
+            // Celková ročná čiastka
+            int paymentAmount = (int) (proposedPremium * ((double)12 / proposedPaymentFrequency.getValueInMonths()));
+
+            /* Či celková ročná čiastka, ktorú poistník zaplatí je
+            väčšia alebo rovná 2% z ceny */
+            if (paymentAmount < twoPercentsOfVehicleValue) {
+                throw new IllegalArgumentException("Total payment amount does not meet minimum 2% requirement.");
+            }
+
+            /* V platobných dátach sa nastaví premium a premiumPaymentFrequency podľa navrhovaných hodnôt,
+             nedoplatok sa nastaví na 0 a dátum ďalšej platby sa nastaví na currentTime poisťovne */
+            ContractPaymentData paymentData = createPaymentData(
+                    proposedPremium,
+                    proposedPaymentFrequency,
+                    currentTime,
+                    0
+            );
+
+            int halfOfVehicleValue = vehicleToInsure.getOriginalValue() / 2;
+
+            int slotCount = contractRegistry.getSlotCount();
+            SingleVehicleContract newContract = new SingleVehicleContract(
+                    contractNumber,
+                    this,
+                    beneficiary,
+                    policyHolder,
+                    paymentData,
+                    halfOfVehicleValue,
+                    vehicleToInsure
+            );
+
+            if (writeAheadLog != null) {
+                try {
+                    writeAheadLog.logInsureVehicle(contractNumber, beneficiary, policyHolder, proposedPremium,
+                            proposedPaymentFrequency, vehicleToInsure);
+                } catch (RuntimeException e) {
+                    releaseContractSlot(newContract, slotCount);
+                    throw e;
+                }
+            }
+
+            chargeDuePremiums(newContract);
 
-        int personsToInsureCount = personsToInsure.size();
-        int fiveTimesPersonCount = 5 * personsToInsureCount;
+            contracts.add(newContract);
+            policyHolder.addContract(newContract);
 
-        // Celková ročná čiastka
-        int paymentAmount = (int) (proposedPremium * ((double)12 / proposedPaymentFrequency.getValueInMonths()));
+            /* Index ŠPZ ukazuje na poslednú zmluvu uzavretú na dané vozidlo, nahradená aktívna zmluva
+            v ňom ostane medzi staršími. Zmluvy zo snapshotu preto doň načítame skôr */
+            long packedLicensePlate = vehicleToInsure.getPackedLicensePlate();
+            findContractByLicensePlate(packedLicensePlate);
+            licensePlateIndex.put(packedLicensePlate, newContract);
 
-        // Či celková ročná čiastka je väčšia alebo rovná 5-násobku počtu poistených osôb
-        if (paymentAmount < fiveTimesPersonCount) {
-            throw new IllegalArgumentException("Total payment amount does not meet minimum requirement of 5 times the number of insured persons");
+            return newContract;
+        } finally {
+            unlockContractNumber(contractNumber);
         }
+    }
 
-        ContractPaymentData paymentData = new ContractPaymentData(
-                proposedPremium,
-                proposedPaymentFrequency,
-                currentTime,
-                0
-        );
+    public TravelContract insurePersons(String contractNumber, Person policyHolder, int proposedPremium,
+                                        PremiumPaymentFrequency proposedPaymentFrequency, Set<Person> personsToInsure) {
+        lockContractNumber(contractNumber);
+        try {
+            // Či v danej poisťovni nejestvuje iná zmluva s contractNumber
+            if (contractNumberExists(contractNumber)) {
+                throw new IllegalArgumentException("Contract number already exists");
+            }
 
-        // coverageAmount nastavený na 10 násobok počtu poistených osôb
-        int coverageAmount = 10 * personsToInsureCount;
+            // Či sú ľudia na poistenie null
+            if (personsToInsure == null) {
+                throw new IllegalArgumentException("PersonsToInsure cannot be null.");
+            }
 
-        TravelContract newContract = new TravelContract(
-                contractNumber,
-                this,
-                policyHolder,
-                paymentData,
-                coverageAmount,
-                personsToInsure
-        );
+            // Či je proposedPaymentFrequency null
+            if (proposedPaymentFrequency == null) {
+                throw new IllegalArgumentException("ProposedPaymentFrequency cannot be null.");
+            }
 
-        chargePremiumOnContract(newContract);
-        contracts.add(newContract);
-        policyHolder.addContract(newContract);
+            // Či nie je proposed
+            if (proposedPremium <= 0) {
+                throw new IllegalArgumentException("proposedPremium must be greater than zero.");
+            }
+
+            int personsToInsureCount = personsToInsure.size();
+            int fiveTimesPersonCount = 5 * personsToInsureCount;
+
+            // Celková ročná čiastka
+            int paymentAmount = (int) (proposedPremium * ((double)12 / proposedPaymentFrequency.getValueInMonths()));
+
+            // Či celková ročná čiastka je väčšia alebo rovná 5-násobku počtu poistených osôb
+            if (paymentAmount < fiveTimesPersonCount) {
+                throw new IllegalArgumentException("Total payment amount does not meet minimum requirement of 5 times the number of insured persons");
+            }
+
+            ContractPaymentData paymentData = createPaymentData(
+                    proposedPremium,
+                    proposedPaymentFrequency,
+                    currentTime,
+                    0
+            );
+
+            // coverageAmount nastavený na 10 násobok počtu poistených osôb
+            int coverageAmount = 10 * personsToInsureCount;
+
+            int slotCount = contractRegistry.getSlotCount();
+            TravelContract newContract = new TravelContract(
+                    contractNumber,
+                    this,
+                    policyHolder,
+                    paymentData,
+                    coverageAmount,
+                    personsToInsure
+            );
+
+            if (writeAheadLog != null) {
+                try {
+                    writeAheadLog.logInsurePersons(contractNumber, policyHolder, proposedPremium,
+                            proposedPaymentFrequency, personsToInsure);
+                } catch (RuntimeException e) {
+                    releaseContractSlot(newContract, slotCount);
+                    throw e;
+                }
+            }
 
-        return newContract;
+            chargeDuePremiums(newContract);
+            contracts.add(newContract);
+            policyHolder.addContract(newContract);
+
+            return newContract;
+        } finally {
+            unlockContractNumber(contractNumber);
+        }
     }
 
     public MasterVehicleContract createMasterVehicleContract(String contractNumber, Person beneficiary, Person policyHolder) {
-        // Či v danej poisťovni nejestvuje iná zmluva s contractNumber
-        if (contractNumberExists(contractNumber)) {
-            throw new IllegalArgumentException("Contract number already exists");
-        }
+        lockContractNumber(contractNumber);
+        try {
+            // Či v danej poisťovni nejestvuje iná zmluva s contractNumber
+            if (contractNumberExists(contractNumber)) {
+                throw new IllegalArgumentException("Contract number already exists");
+            }
 
-        MasterVehicleContract newContract = new MasterVehicleContract(
-                contractNumber,
-                this,
-                beneficiary,
-                policyHolder
-        );
+            int slotCount = contractRegistry.getSlotCount();
+            MasterVehicleContract newContract = new MasterVehicleContract(
+                    contractNumber,
+                    this,
+                    beneficiary,
+                    policyHolder
+            );
+
+            if (writeAheadLog != null) {
+                try {
+                    writeAheadLog.logCreateMasterVehicleContract(contractNumber, beneficiary, policyHolder);
+                } catch (RuntimeException e) {
+                    releaseContractSlot(newContract, slotCount);
+                    throw e;
+                }
+            }
 
-        contracts.add(newContract);
-        policyHolder.addContract(newContract);
+            contracts.add(newContract);
+            policyHolder.addContract(newContract);
 
-        return newContract;
+            return newContract;
+        } finally {
+            unlockContractNumber(contractNumber);
+        }
     }
 
     public void moveSingleVehicleContractToMasterVehicleContract(MasterVehicleContract masterVehicleContract,
@@ -218,72 +569,199 @@ public class InsuranceCompany {
             throw new IllegalArgumentException("Single vehicle contract is null.");
         }
 
-        // Či nie sú obe zmluvy aktívne
-        if (!masterVehicleContract.isActive() || !singleVehicleContract.isActive()) {
-            throw new InvalidContractException("Master vehicle contract or single vehicle contract is not active.");
-        }
+        String masterContractNumber = masterVehicleContract.getContractNumber();
+        String singleContractNumber = singleVehicleContract.getContractNumber();
+        lockContractNumbers(masterContractNumber, singleContractNumber);
+        try {
+            // Či nie sú obe zmluvy aktívne
+            if (!masterVehicleContract.isActive() || !singleVehicleContract.isActive()) {
+                throw new InvalidContractException("Master vehicle contract or single vehicle contract is not active.");
+            }
+
+            // Či nemajú zmluvy rovnakú poisťovňu
+            if (!singleVehicleContract.getInsurer().equals(this) || !masterVehicleContract.getInsurer().equals(this)) {
+                throw new InvalidContractException("Contracts must belong to this insurance company.");
+            }
+
+            // Či nemajú zmluvy rovnakého poistníka
+            if (!masterVehicleContract.getPolicyHolder().equals(singleVehicleContract.getPolicyHolder())) {
+                throw new InvalidContractException("Contracts do not have the same policy holder.");
+            }
 
-        // Či nemajú zmluvy rovnakú poisťovňu
-        if (!singleVehicleContract.getInsurer().equals(this) || !masterVehicleContract.getInsurer().equals(this)) {
-            throw new InvalidContractException("Contracts must belong to this insurance company.");
+            // Či poisťovňa obsahuje obe zmluvy
+            if (!contracts.contains(singleVehicleContract) || !contracts.contains(masterVehicleContract)) {
+                throw new InvalidContractException("Contracts must be in the company's contract list.");
+            }
+
+            // Či masterVehicleContract je v zozname zmlúv svojho poistníka
+            if (!holdsContract(masterVehicleContract)) {
+                throw new InvalidContractException("Policy holder must have the master contract in their contract list.");
+            }
+
+            // Či singleVehicleContract je v zozname zmlúv svojho poistníka
+            if (!holdsContract(singleVehicleContract)) {
+                throw new InvalidContractException("Policy holder must have the single contract in their contract list.");
+            }
+
+            if (writeAheadLog != null) {
+                writeAheadLog.logMoveToMasterVehicleContract(masterContractNumber, singleContractNumber);
+            }
+
+            contracts.remove(singleVehicleContract);
+
+            // Odstránenime singleVehicleContract z množiny zmlúv poistníka
+            Person policyHolder = singleVehicleContract.getPolicyHolder();
+            synchronized (policyHolder) {
+                Set<AbstractContract> policyHolderContracts = policyHolder.getContracts();
+                policyHolderContracts.remove(singleVehicleContract);
+            }
+
+            masterVehicleContract.addChildContract(singleVehicleContract);
+        } finally {
+            unlockContractNumbers(masterContractNumber, singleContractNumber);
         }
+    }
 
-        // Či nemajú zmluvy rovnakého poistníka
-        if (!masterVehicleContract.getPolicyHolder().equals(singleVehicleContract.getPolicyHolder())) {
-            throw new InvalidContractException("Contracts do not have the same policy holder.");
+    // Zoznam zmlúv poistníka mení aj vytváranie iných zmlúv, ktoré nedrží zámok tejto zmluvy
+    private static boolean holdsContract(AbstractContract contract) {
+        Person policyHolder = contract.getPolicyHolder();
+        synchronized (policyHolder) {
+            return policyHolder.getContracts().contains(contract);
         }
+    }
 
-        // Či poisťovňa obsahuje obe zmluvy
-        if (!contracts.contains(singleVehicleContract) || !contracts.contains(masterVehicleContract)) {
-            throw new InvalidContractException("Contracts must be in the company's contract list.");
+    public void chargePremiumsOnContracts() {
+        WriteAheadLog writeAheadLog = this.writeAheadLog;
+        if (writeAheadLog == null) {
+            chargeDueContracts();
+            return;
         }
 
-        // Či masterVehicleContract je v zozname zmlúv svojho poistníka
-        if (!masterVehicleContract.getPolicyHolder().getContracts().contains(masterVehicleContract)) {
-            throw new InvalidContractException("Policy holder must have the master contract in their contract list.");
+        runLoggedBilling(writeAheadLog, () -> {
+            writeAheadLog.logChargePremiums();
+            chargeDueContracts();
+        });
+    }
+
+    // Zmena zapísaná do logu prebehne bez súbežných platieb rámcových zmlúv, na fsync sa čaká až po uvoľnení zámku
+    private void runLoggedBilling(WriteAheadLog writeAheadLog, Runnable billing) {
+        writeAheadLog.beginBatch();
+        try {
+            billingOrderLock.writeLock().lock();
+            try {
+                billing.run();
+            } finally {
+                billingOrderLock.writeLock().unlock();
+            }
+        } finally {
+            writeAheadLog.endBatch();
         }
+    }
 
-        // Či singleVehicleContract je v zozname zmlúv svojho poistníka
-        if (!singleVehicleContract.getPolicyHolder().getContracts().contains(singleVehicleContract)) {
-            throw new InvalidContractException("Policy holder must have the single contract in their contract list.");
+    private void chargeDueContracts() {
+        BillingSchedule billingSchedule = contractRegistry.getBillingSchedule();
+
+        // Prechádzame len zmluvy, ktorých termín splatnosti nastal pred currentTime alebo je s ním zhodný
+        List<AbstractContract> dueContracts = billingSchedule.pollDue(currentTime);
+
+        if (billingPool != null && dueContracts.size() >= parallelBillingThreshold) {
+            chargePremiumsInParallel(dueContracts);
+        } else {
+            for (AbstractContract contract : dueContracts) {
+                if (contract instanceof MasterVehicleContract masterContract) {
+                    if (masterContract.isActive()) {
+                        chargeDuePremiums(masterContract);
+                    }
+                } else if (contract.isActive()) {
+                    chargeDuePremiums(contract);
+                }
+            }
         }
 
-        contracts.remove(singleVehicleContract);
+        for (AbstractContract contract : dueContracts) {
+            // Neaktívna zmluva z rozvrhu odchádza, rámcovú zmluvu doň vráti až nová dcérska zmluva
+            if (contract.isActive()) {
+                billingSchedule.schedule(contract);
+            }
+        }
+    }
 
-        // Odstránenime singleVehicleContract z množiny zmlúv poistníka
-        Person policyHolder = singleVehicleContract.getPolicyHolder();
-        Set<AbstractContract> policyHolderContracts = policyHolder.getContracts();
-        policyHolderContracts.remove(singleVehicleContract);
+    private void chargePremiumsInParallel(List<AbstractContract> dueContracts) {
+        List<AbstractContract> billedContracts = new ArrayList<>(dueContracts.size());
+        Set<ContractPaymentData> billedPaymentData = new HashSet<>();
 
-        Set<SingleVehicleContract> childContracts = masterVehicleContract.getChildContracts();
-        childContracts.add(singleVehicleContract);
-    }
+        /* Rámcové zmluvy rozložíme na dcérske zmluvy, aby každé platobné dáta
+        zúčtovala práve jedna úloha a výsledok nezávisel od poradia vlákien */
+        for (AbstractContract contract : dueContracts) {
+            if (!contract.isActive()) {
+                continue;
+            }
 
-    public void chargePremiumsOnContracts() {
-        for (AbstractContract contract : contracts) {
-            if (contract.isActive()) {
-                contract.updateBalance();
+            if (contract instanceof MasterVehicleContract masterContract) {
+                synchronized (masterContract) {
+                    for (SingleVehicleContract childContract : masterContract.getChildContracts()) {
+                        if (billedPaymentData.add(childContract.getContractPaymentData())) {
+                            billedContracts.add(childContract);
+                        }
+                    }
+                }
+            } else if (billedPaymentData.add(contract.getContractPaymentData())) {
+                billedContracts.add(contract);
             }
         }
+
+        // Prah rozhoduje len o tom, či zúčtovať paralelne, veľkosť úseku určuje počet vlákien
+        int leafSize = Math.max(MIN_BILLING_LEAF_SIZE,
+                billedContracts.size() / (billingPool.getParallelism() * BILLING_TASKS_PER_THREAD));
+        billingPool.invoke(new ParallelBillingTask(this, billedContracts, 0, billedContracts.size(), leafSize));
     }
 
+    // Predpis mimo zúčtovania všetkých zmlúv sa zapíše do logu ako samostatný záznam zmluvy
     public void chargePremiumOnContract(AbstractContract contract) {
-        ContractPaymentData paymentData = contract.getContractPaymentData();
+        WriteAheadLog writeAheadLog = this.writeAheadLog;
+        if (writeAheadLog == null) {
+            chargeDuePremiums(contract);
+            return;
+        }
 
-        // Či daná zmluva má termín splatnosti pred časom currentTime alebo je zhodný s časom currentTime
-        while (paymentData.getNextPaymentTime().isBefore(currentTime) ||
-                paymentData.getNextPaymentTime().isEqual(currentTime)) {
-            int premium = paymentData.getPremium();
-            int outStandingBalance = paymentData.getOutstandingBalance();
+        runLoggedBilling(writeAheadLog, () -> {
+            writeAheadLog.logChargePremium(contract.getContractNumber());
+            chargeDuePremiums(contract);
+        });
+    }
 
-            paymentData.setOutstandingBalance(outStandingBalance + premium);
-            paymentData.updateNextPaymentTime();
+    // Dcérske zmluvy sa do logu zapíšu každá zvlášť, v poradí, v akom sa im predpíše poistné
+    public void chargePremiumOnContract(MasterVehicleContract contract) {
+        WriteAheadLog writeAheadLog = this.writeAheadLog;
+        if (writeAheadLog == null) {
+            chargeChildContracts(contract);
+            return;
         }
+
+        runLoggedBilling(writeAheadLog, () -> chargeChildContracts(contract));
     }
 
-    public void chargePremiumOnContract(MasterVehicleContract contract) {
-        for (SingleVehicleContract childContract : contract.getChildContracts()) {
-            chargePremiumOnContract(childContract);
+    private void chargeChildContracts(MasterVehicleContract contract) {
+        // Množinu dcérskych zmlúv chráni monitor rámcovej zmluvy
+        synchronized (contract) {
+            for (SingleVehicleContract childContract : contract.getChildContracts()) {
+                chargePremiumOnContract(childContract);
+            }
+        }
+    }
+
+    // Predpis poistného bez záznamu v logu, zmenu už pokrýva záznam zúčtovania alebo vzniku zmluvy
+    void chargeDuePremiums(AbstractContract contract) {
+        // Všetky zmeškané obdobia zaúčtujeme naraz, zostatok a termín splatnosti sa zmenia spolu bez zámku
+        contract.getContractPaymentData().chargeDuePremiums(currentTime);
+    }
+
+    private void chargeDuePremiums(MasterVehicleContract contract) {
+        // Množinu dcérskych zmlúv chráni monitor rámcovej zmluvy
+        synchronized (contract) {
+            for (SingleVehicleContract childContract : contract.getChildContracts()) {
+                chargeDuePremiums(childContract);
+            }
         }
     }
 
@@ -322,14 +800,27 @@ public class InsuranceCompany {
             throw new IllegalArgumentException("Affected persons must not be null or empty.");
         }
 
-        // Výpočet výšky poistného plnenia pre každú poškodenú osobu.
-        int payoutPerPerson = getPayoutPerPerson(travelContract, affectedPersons);
+        // Kontrola aktivity a deaktivácia prebehnú pod zámkom zmluvy, súbežná udalosť sa tak nevyplatí dvakrát
+        String contractNumber = travelContract.getContractNumber();
+        lockContractNumber(contractNumber);
+        billingOrderLock.readLock().lock();
+        try {
+            // Výpočet výšky poistného plnenia pre každú poškodenú osobu.
+            int payoutPerPerson = getPayoutPerPerson(travelContract, affectedPersons);
 
-        for (Person person : affectedPersons) {
-            person.payout(payoutPerPerson);
-        }
+            if (writeAheadLog != null) {
+                writeAheadLog.logTravelClaim(contractNumber, affectedPersons);
+            }
 
-        travelContract.setInactive();
+            for (Person person : affectedPersons) {
+                person.payout(payoutPerPerson);
+            }
+
+            travelContract.setInactive();
+        } finally {
+            billingOrderLock.readLock().unlock();
+            unlockContractNumber(contractNumber);
+        }
     }
 
     public void processClaim(SingleVehicleContract singleVehicleContract, int expectedDamages) {
@@ -343,21 +834,34 @@ public class InsuranceCompany {
             throw new IllegalArgumentException("Expected damage amount to be greater than 0");
         }
 
-        // Či nie je singleVehicleContract aktívna zmluva
-        if (!singleVehicleContract.isActive()) {
-            throw new InvalidContractException("Contract is not active");
-        }
+        // Kontrola aktivity a deaktivácia prebehnú pod zámkom zmluvy, súbežná udalosť sa tak nevyplatí dvakrát
+        String contractNumber = singleVehicleContract.getContractNumber();
+        lockContractNumber(contractNumber);
+        billingOrderLock.readLock().lock();
+        try {
+            // Či nie je singleVehicleContract aktívna zmluva
+            if (!singleVehicleContract.isActive()) {
+                throw new InvalidContractException("Contract is not active");
+            }
 
-        Person recipient = resolveRecipient(singleVehicleContract);
+            if (writeAheadLog != null) {
+                writeAheadLog.logVehicleClaim(contractNumber, expectedDamages);
+            }
+
+            Person recipient = resolveRecipient(singleVehicleContract);
 
-        int payoutAmount = singleVehicleContract.getCoverageAmount();
-        recipient.payout(payoutAmount);
+            int payoutAmount = singleVehicleContract.getCoverageAmount();
+            recipient.payout(payoutAmount);
 
-        /* Ak je parameter expectedDamages väčší alebo rovný 70% hodnoty vozidla,
-        tak sa to považuje za totálnu škodu a zmluva samotná sa zmení na neaktívnu. */
-        int vehicleValue = singleVehicleContract.getInsuredVehicle().getOriginalValue();
-        if (expectedDamages >= (int)(vehicleValue * 0.7)) {
-            singleVehicleContract.setInactive();
+            /* Ak je parameter expectedDamages väčší alebo rovný 70% hodnoty vozidla,
+            tak sa to považuje za totálnu škodu a zmluva samotná sa zmení na neaktívnu. */
+            int vehicleValue = singleVehicleContract.getInsuredVehicle().getOriginalValue();
+            if (expectedDamages >= (int)(vehicleValue * 0.7)) {
+                singleVehicleContract.setInactive();
+            }
+        } finally {
+            billingOrderLock.readLock().unlock();
+            unlockContractNumber(contractNumber);
         }
     }
 
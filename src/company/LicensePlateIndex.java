@@ -0,0 +1,111 @@
+package company;
+
+import contracts.SingleVehicleContract;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class LicensePlateIndex {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long EMPTY = -1;
+
+    // Otvorené adresovanie s lineárnym skúšaním, kľúčom je zakódovaná ŠPZ
+    private long[] plates;
+    private SingleVehicleContract[] contracts;
+    private int size;
+
+    // Staršie stále aktívne zmluvy na ŠPZ, ktorú nahradila novšia zmluva, od najstaršej. Takých ŠPZ je málo
+    private final Map<Long, List<SingleVehicleContract>> olderActiveContracts;
+
+    LicensePlateIndex() {
+        this.plates = new long[DEFAULT_CAPACITY];
+        this.contracts = new SingleVehicleContract[DEFAULT_CAPACITY];
+        this.olderActiveContracts = new HashMap<>();
+        Arrays.fill(plates, EMPTY);
+    }
+
+    synchronized void put(long packedLicensePlate, SingleVehicleContract contract) {
+        // Tabuľka sa zväčší pri zaplnení na polovicu, aby boli sekvencie skúšania krátke
+        if ((size + 1) * 2 > plates.length) {
+            resize(plates.length * 2);
+        }
+
+        int slot = findSlot(plates, packedLicensePlate);
+        if (plates[slot] == EMPTY) {
+            plates[slot] = packedLicensePlate;
+            size++;
+        } else if (contracts[slot] != contract && contracts[slot].isActive()) {
+            // Nahradená zmluva poisťuje vozidlo ďalej, kým sa nedeaktivuje
+            olderActiveContracts.computeIfAbsent(packedLicensePlate, plate -> new ArrayList<>(1)).add(contracts[slot]);
+        }
+        contracts[slot] = contract;
+    }
+
+    synchronized void deactivated(long packedLicensePlate, SingleVehicleContract contract) {
+        List<SingleVehicleContract> olderContracts = olderActiveContracts.get(packedLicensePlate);
+        if (olderContracts != null && olderContracts.remove(contract) && olderContracts.isEmpty()) {
+            olderActiveContracts.remove(packedLicensePlate);
+        }
+    }
+
+    // Či je na ŠPZ aktívna posledná zmluva alebo niektorá staršia
+    synchronized boolean isInsured(long packedLicensePlate) {
+        int slot = findSlot(plates, packedLicensePlate);
+        if (plates[slot] == EMPTY) {
+            return false;
+        }
+        return contracts[slot].isActive() || olderActiveContracts.containsKey(packedLicensePlate);
+    }
+
+    synchronized List<SingleVehicleContract> getOlderActive(long packedLicensePlate) {
+        List<SingleVehicleContract> olderContracts = olderActiveContracts.get(packedLicensePlate);
+        return olderContracts != null ? new ArrayList<>(olderContracts) : List.of();
+    }
+
+    synchronized SingleVehicleContract get(long packedLicensePlate) {
+        int slot = findSlot(plates, packedLicensePlate);
+        return plates[slot] == EMPTY ? null : contracts[slot];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] oldPlates = plates;
+        SingleVehicleContract[] oldContracts = contracts;
+
+        plates = new long[capacity];
+        contracts = new SingleVehicleContract[capacity];
+        Arrays.fill(plates, EMPTY);
+
+        for (int i = 0; i < oldPlates.length; i++) {
+            if (oldPlates[i] != EMPTY) {
+                int slot = findSlot(plates, oldPlates[i]);
+                plates[slot] = oldPlates[i];
+                contracts[slot] = oldContracts[i];
+            }
+        }
+    }
+
+    // Slot s daným kľúčom, alebo prvý prázdny slot, do ktorého sa kľúč vloží
+    private static int findSlot(long[] plates, long packedLicensePlate) {
+        int mask = plates.length - 1;
+        int slot = mix(packedLicensePlate) & mask;
+        while (plates[slot] != EMPTY && plates[slot] != packedLicensePlate) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        // Finalizér z MurmurHash3, susedné ŠPZ sa rozptýlia po celej tabuľke
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,438 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import objects.LicensePlates;
+import objects.Person;
+import objects.PersonRegistry;
+import objects.Vehicle;
+import payment.ContractPaymentData;
+import payment.PaymentHandler;
+import payment.PaymentLedger;
+import payment.PremiumPaymentFrequency;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static company.CompanySnapshot.*;
+
+final class MappedSnapshot {
+    private static final PremiumPaymentFrequency[] FREQUENCIES = PremiumPaymentFrequency.values();
+
+    private final ByteBuffer[] chunks;
+    private final LocalDateTime currentTime;
+    private final int contractCount;
+    private final int registeredCount;
+    private final int personCount;
+    private final int plateCount;
+    private final long contractOffsetsPosition;
+    private final long numberIndexPosition;
+    private final long personOffsetsPosition;
+    private final long plateKeysPosition;
+    private final long plateOrdinalsPosition;
+    private final long logPosition;
+
+    private InsuranceCompany company;
+    private ContractRegistry contractRegistry;
+    private LicensePlateIndex licensePlateIndex;
+    private PaymentHandler handler;
+    private PersonRegistry personRegistry;
+
+    // Vytvorené zmluvy podľa poradového čísla, null pre zmluvy, ktoré ešte neboli potrebné
+    private AbstractContract[] contracts;
+    private int unmaterializedContractCount;
+
+    private MappedSnapshot(ByteBuffer[] chunks, long size) throws IOException {
+        this.chunks = chunks;
+
+        ByteBuffer header = chunks[0];
+        if (size < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("File is not a company snapshot.");
+        }
+
+        this.currentTime = LocalDateTime.ofEpochSecond(header.getLong(8), header.getInt(16), ZoneOffset.UTC);
+        this.contractCount = header.getInt(CONTRACT_COUNT_OFFSET);
+        this.registeredCount = header.getInt(CONTRACT_COUNT_OFFSET + 4);
+        this.personCount = header.getInt(CONTRACT_COUNT_OFFSET + 8);
+        this.plateCount = header.getInt(CONTRACT_COUNT_OFFSET + 12);
+        this.contractOffsetsPosition = header.getLong(INDEX_POSITIONS_OFFSET);
+        this.numberIndexPosition = header.getLong(INDEX_POSITIONS_OFFSET + 8);
+        this.personOffsetsPosition = header.getLong(INDEX_POSITIONS_OFFSET + 16);
+        this.plateKeysPosition = header.getLong(INDEX_POSITIONS_OFFSET + 24);
+        this.plateOrdinalsPosition = header.getLong(INDEX_POSITIONS_OFFSET + 32);
+        this.logPosition = header.getLong(LOG_POSITION_OFFSET);
+
+        // Či sa všetky indexy nachádzajú v súbore
+        if (contractCount < 0 || registeredCount < 0 || registeredCount > contractCount || personCount < 0
+                || plateCount < 0
+                || !fits(contractOffsetsPosition, 8L * contractCount, size)
+                || !fits(numberIndexPosition, 4L * registeredCount, size)
+                || !fits(personOffsetsPosition, 8L * personCount, size)
+                || !fits(plateKeysPosition, 8L * plateCount, size)
+                || !fits(plateOrdinalsPosition, 4L * plateCount, size)) {
+            throw new IOException("Company snapshot is corrupt.");
+        }
+
+        this.contracts = new AbstractContract[contractCount];
+        this.unmaterializedContractCount = registeredCount;
+    }
+
+    static MappedSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            // Mapovanie zostáva platné aj po zatvorení kanála
+            ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+            }
+            return new MappedSnapshot(chunks, size);
+        }
+    }
+
+    private static boolean fits(long position, long length, long size) {
+        return position >= HEADER_SIZE && position <= size - length;
+    }
+
+    void attach(InsuranceCompany company, ContractRegistry contractRegistry, LicensePlateIndex licensePlateIndex) {
+        this.company = company;
+        this.contractRegistry = contractRegistry;
+        this.licensePlateIndex = licensePlateIndex;
+        this.handler = company.getHandler();
+        this.personRegistry = company.getPersonRegistry();
+        contractRegistry.attachSnapshot(this);
+    }
+
+    long getLogPosition() {
+        return logPosition;
+    }
+
+    LocalDateTime getCurrentTime() {
+        return currentTime;
+    }
+
+    int getUnmaterializedContractCount() {
+        return unmaterializedContractCount;
+    }
+
+    Person createPerson(String id) {
+        Person person = new Person(id);
+
+        // Osoba zo snapshotu dostane svoju doterajšiu sumu výplat
+        int ordinal = findPerson(id.getBytes(StandardCharsets.UTF_8));
+        if (ordinal >= 0) {
+            int paidOutAmount = new Cursor(getLong(personOffsetsPosition + 8L * ordinal)).skipBytes().getInt();
+            if (paidOutAmount > 0) {
+                person.payout(paidOutAmount);
+            }
+        }
+        return person;
+    }
+
+    AbstractContract findContract(String contractNumber) {
+        // Už vytvorenú zmluvu pozná register poisťovne, mohla byť z neho medzičasom odstránená
+        int ordinal = findRegisteredContract(contractNumber.getBytes(StandardCharsets.UTF_8));
+        return ordinal >= 0 && contracts[ordinal] == null ? contract(ordinal) : null;
+    }
+
+    boolean containsUnmaterializedContract(String contractNumber) {
+        int ordinal = findRegisteredContract(contractNumber.getBytes(StandardCharsets.UTF_8));
+        return ordinal >= 0 && contracts[ordinal] == null;
+    }
+
+    SingleVehicleContract findContractByLicensePlate(long packedLicensePlate) {
+        int low = 0;
+        int high = plateCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long plate = getLong(plateKeysPosition + 8L * middle);
+
+            if (plate < packedLicensePlate) {
+                low = middle + 1;
+            } else if (plate > packedLicensePlate) {
+                high = middle - 1;
+            } else {
+                int first = middle;
+                while (first > 0 && getLong(plateKeysPosition + 8L * (first - 1)) == packedLicensePlate) {
+                    first--;
+                }
+                return loadLicensePlate(packedLicensePlate, first, lastPlateEntry(middle));
+            }
+        }
+        return null;
+    }
+
+    private int lastPlateEntry(int entry) {
+        long plate = getLong(plateKeysPosition + 8L * entry);
+        while (entry + 1 < plateCount && getLong(plateKeysPosition + 8L * (entry + 1)) == plate) {
+            entry++;
+        }
+        return entry;
+    }
+
+    // Staršie aktívne zmluvy ŠPZ predchádzajú jej poslednú zmluvu, index ich v tomto poradí odloží medzi staršie
+    private SingleVehicleContract loadLicensePlate(long packedLicensePlate, int first, int last) {
+        SingleVehicleContract contract = null;
+        for (int entry = first; entry <= last; entry++) {
+            contract = (SingleVehicleContract) contract(getInt(plateOrdinalsPosition + 4L * entry));
+            licensePlateIndex.put(packedLicensePlate, contract);
+        }
+        return contract;
+    }
+
+    List<AbstractContract> materializeAll() {
+        for (int ordinal = 0; ordinal < contractCount; ordinal++) {
+            contract(ordinal);
+        }
+
+        // ŠPZ, ku ktorým poisťovňa od načítania neuzavrela novšiu zmluvu
+        for (int first = 0; first < plateCount; ) {
+            long plate = getLong(plateKeysPosition + 8L * first);
+            int last = lastPlateEntry(first);
+            if (licensePlateIndex.get(plate) == null) {
+                loadLicensePlate(plate, first, last);
+            }
+            first = last + 1;
+        }
+
+        List<AbstractContract> registeredContracts = new ArrayList<>(registeredCount);
+        for (int ordinal = 0; ordinal < registeredCount; ordinal++) {
+            registeredContracts.add(contracts[ordinal]);
+        }
+
+        // Ďalej snapshot slúži už len na vytváranie osôb
+        contracts = null;
+        return registeredContracts;
+    }
+
+    private AbstractContract contract(int ordinal) {
+        if (contracts[ordinal] != null) {
+            return contracts[ordinal];
+        }
+
+        // Dcérsku zmluvu vytvorí jej rámcová zmluva, aby bola v jej množine dcérskych zmlúv
+        Cursor cursor = new Cursor(getLong(contractOffsetsPosition + 8L * ordinal));
+        if (cursor.getByte() == SINGLE_VEHICLE_CONTRACT) {
+            int ownerMaster = cursor.skipToOwnerMaster();
+            if (ownerMaster >= 0) {
+                contract(ownerMaster);
+                return contracts[ordinal];
+            }
+        }
+        return materialize(ordinal);
+    }
+
+    private AbstractContract materialize(int ordinal) {
+        Cursor cursor = new Cursor(getLong(contractOffsetsPosition + 8L * ordinal));
+        byte type = cursor.getByte();
+        int flags = cursor.getByte();
+        String contractNumber = cursor.getString();
+        Person policyHolder = person(cursor.getInt());
+        int coverageAmount = cursor.getInt();
+
+        ContractPaymentData paymentData = null;
+        if ((flags & HAS_PAYMENT_DATA) != 0) {
+            int premium = cursor.getInt();
+            PremiumPaymentFrequency frequency = FREQUENCIES[cursor.getByte()];
+            LocalDateTime nextPaymentTime = cursor.getTime();
+            paymentData = new ContractPaymentData(premium, frequency, nextPaymentTime, cursor.getInt());
+        }
+
+        AbstractContract contract;
+        if (type == SINGLE_VEHICLE_CONTRACT) {
+            Person beneficiary = person(cursor.getInt());
+            String licensePlate = LicensePlates.decode(cursor.getLong());
+            Vehicle vehicle = new Vehicle(licensePlate, cursor.getInt());
+            cursor.getInt();
+
+            contract = new SingleVehicleContract(contractNumber, company, beneficiary, policyHolder, paymentData,
+                    coverageAmount, vehicle);
+            contracts[ordinal] = contract;
+        } else if (type == MASTER_VEHICLE_CONTRACT) {
+            MasterVehicleContract masterContract = new MasterVehicleContract(contractNumber, company,
+                    person(cursor.getInt()), policyHolder);
+            contract = masterContract;
+            contracts[ordinal] = contract;
+
+            int childCount = cursor.getInt();
+            for (int i = 0; i < childCount; i++) {
+                int childOrdinal = cursor.getInt();
+                AbstractContract childContract = contracts[childOrdinal];
+                masterContract.addChildContract((SingleVehicleContract) (childContract != null
+                        ? childContract : materialize(childOrdinal)));
+            }
+        } else {
+            int personCount = cursor.getInt();
+            Set<Person> insuredPersons = new HashSet<>();
+            for (int i = 0; i < personCount; i++) {
+                insuredPersons.add(person(cursor.getInt()));
+            }
+
+            contract = new TravelContract(contractNumber, company, policyHolder, paymentData, coverageAmount,
+                    insuredPersons);
+            contracts[ordinal] = contract;
+        }
+
+        int paymentCount = cursor.getInt();
+        if (paymentCount > 0) {
+            PaymentLedger payments = new PaymentLedger();
+            for (int i = 0; i < paymentCount; i++) {
+                LocalDateTime paymentTime = cursor.getTime();
+                payments.append(paymentTime, cursor.getInt());
+            }
+            handler.getPaymentHistory().put(contract, payments);
+        }
+
+        // Aktivita rámcovej zmluvy s dcérskymi zmluvami sa odvodzuje od nich
+        boolean derivedActivity = contract instanceof MasterVehicleContract masterContract
+                && !masterContract.getChildContracts().isEmpty();
+        if ((flags & ACTIVE) == 0 && !derivedActivity) {
+            contract.setInactive();
+        }
+
+        if ((flags & HELD_BY_POLICY_HOLDER) != 0) {
+            policyHolder.addContract(contract);
+        }
+
+        if (ordinal < registeredCount) {
+            contractRegistry.restore(contract);
+            unmaterializedContractCount--;
+        }
+        return contract;
+    }
+
+    private Person person(int ordinal) {
+        if (ordinal < 0) {
+            return null;
+        }
+
+        // Osobu vytvorí register poisťovne, aby každé ID malo jedinú inštanciu
+        return personRegistry.getOrCreate(new Cursor(getLong(personOffsetsPosition + 8L * ordinal)).getString());
+    }
+
+    private int findPerson(byte[] id) {
+        int low = 0;
+        int high = personCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = new Cursor(getLong(personOffsetsPosition + 8L * middle)).compareBytes(id);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int findRegisteredContract(byte[] contractNumber) {
+        int low = 0;
+        int high = registeredCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int ordinal = getInt(numberIndexPosition + 4L * middle);
+
+            // Číslo zmluvy nasleduje v zázname za typom a príznakmi
+            Cursor cursor = new Cursor(getLong(contractOffsetsPosition + 8L * ordinal) + 2);
+            int comparison = cursor.compareBytes(contractNumber);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    private int getInt(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getInt((int) (offset & (CHUNK_SIZE - 1)));
+    }
+
+    private long getLong(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getLong((int) (offset & (CHUNK_SIZE - 1)));
+    }
+
+    // Čítanie jedného záznamu, záznam sa vždy nachádza celý v jednej mapovanej časti
+    private final class Cursor {
+        private final ByteBuffer chunk;
+        private int position;
+
+        Cursor(long offset) {
+            this.chunk = chunks[(int) (offset >>> CHUNK_SHIFT)];
+            this.position = (int) (offset & (CHUNK_SIZE - 1));
+        }
+
+        byte getByte() {
+            return chunk.get(position++);
+        }
+
+        int getInt() {
+            int value = chunk.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        long getLong() {
+            long value = chunk.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        LocalDateTime getTime() {
+            long epochSecond = getLong();
+            return LocalDateTime.ofEpochSecond(epochSecond, getInt(), ZoneOffset.UTC);
+        }
+
+        String getString() {
+            int length = chunk.getShort(position);
+            byte[] bytes = new byte[length];
+            chunk.get(position + 2, bytes);
+            position += 2 + length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Cursor skipBytes() {
+            position += 2 + chunk.getShort(position);
+            return this;
+        }
+
+        // Za typom záznamu samostatnej zmluvy preskočí všetko okrem poradového čísla rámcovej zmluvy
+        int skipToOwnerMaster() {
+            int flags = getByte();
+            skipBytes();
+            position += 8 + ((flags & HAS_PAYMENT_DATA) != 0 ? PAYMENT_DATA_SIZE : 0) + 4 + 8 + 4;
+            return getInt();
+        }
+
+        int compareBytes(byte[] other) {
+            int length = chunk.getShort(position);
+            int commonLength = Math.min(length, other.length);
+            for (int i = 0; i < commonLength; i++) {
+                int comparison = Byte.compareUnsigned(chunk.get(position + 2 + i), other[i]);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return length - other.length;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package company;
+
+import contracts.AbstractContract;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+class ParallelBillingTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    // Úloha žije len počas jedného zúčtovania, serializovať sa nebude
+    private final transient InsuranceCompany insurer;
+    private final transient List<AbstractContract> contracts;
+    private final int from;
+    private final int to;
+    private final int leafSize;
+
+    ParallelBillingTask(InsuranceCompany insurer, List<AbstractContract> contracts, int from, int to, int leafSize) {
+        this.insurer = insurer;
+        this.contracts = contracts;
+        this.from = from;
+        this.to = to;
+        this.leafSize = leafSize;
+    }
+
+    @Override
+    protected void compute() {
+        // Dostatočne malý úsek zúčtujeme priamo v tomto vlákne
+        if (to - from <= leafSize) {
+            for (int i = from; i < to; i++) {
+                insurer.chargeDuePremiums(contracts.get(i));
+            }
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        invokeAll(
+                new ParallelBillingTask(insurer, contracts, from, middle, leafSize),
+                new ParallelBillingTask(insurer, contracts, middle, to, leafSize)
+        );
+    }
+}
@@ -0,0 +1,200 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import objects.Person;
+import objects.Vehicle;
+import payment.PaymentStatus;
+import payment.PremiumPaymentFrequency;
+
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/* Jedna logická poisťovňa rozdelená na oddiely podľa poistníka. Každý oddiel je samostatná poisťovňa so
+svojimi zmluvami, platobnými dátami a históriou platieb, ktorú mení len jeho vlastné zapisovacie vlákno.
+Rámcová zmluva a jej dcérske zmluvy majú rovnakého poistníka, ležia teda vždy v rovnakom oddiele */
+public class PartitionedInsuranceCompany implements AutoCloseable {
+    private final InsuranceCommandEngine[] partitions;
+
+    // Oddiel podľa poisťovne zmluvy, po vytvorení sa už nemení
+    private final Map<InsuranceCompany, InsuranceCommandEngine> partitionsByCompany;
+
+    // Čísla zmlúv sú jedinečné v celej poisťovni, nielen v oddiele
+    private final ConcurrentHashMap<String, Integer> contractPartitions;
+
+    public PartitionedInsuranceCompany(LocalDateTime currentTime, int partitionCount) {
+        // Či je currentTime null
+        if (currentTime == null) {
+            throw new IllegalArgumentException("Current time cannot be null.");
+        }
+
+        // Či nie je počet oddielov kladný
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("Partition count must be greater than 0.");
+        }
+
+        this.partitions = new InsuranceCommandEngine[partitionCount];
+        this.partitionsByCompany = new IdentityHashMap<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = InsuranceCommandEngine.start(new InsuranceCompany(currentTime));
+            partitionsByCompany.put(partitions[i].getCompany(), partitions[i]);
+        }
+        this.contractPartitions = new ConcurrentHashMap<>();
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    public InsuranceCommandEngine getPartition(int index) {
+        // Či je index mimo rozsahu
+        if (index < 0 || index >= partitions.length) {
+            throw new IllegalArgumentException("Partition index is out of range.");
+        }
+        return partitions[index];
+    }
+
+    // Oddiel, ktorému patria zmluvy daného poistníka
+    public int getPartitionIndex(Person policyHolder) {
+        // Či je policyHolder null
+        if (policyHolder == null) {
+            throw new IllegalArgumentException("Policy holder cannot be null.");
+        }
+
+        int hash = policyHolder.getId().hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ hash >>> 16, partitions.length);
+    }
+
+    // Oddiel zmluvy s daným číslom, alebo -1, ak taká zmluva neexistuje
+    public int getPartitionIndex(String contractNumber) {
+        // Či je contractNumber null
+        if (contractNumber == null) {
+            throw new IllegalArgumentException("Contract number cannot be null.");
+        }
+
+        Integer index = contractPartitions.get(contractNumber);
+        return index == null ? -1 : index;
+    }
+
+    public CompletableFuture<SingleVehicleContract> insureVehicle(String contractNumber, Person beneficiary,
+                                                                  Person policyHolder, int proposedPremium,
+                                                                  PremiumPaymentFrequency proposedPaymentFrequency,
+                                                                  Vehicle vehicleToInsure) {
+        return create(contractNumber, policyHolder, partition -> partition.insureVehicle(contractNumber,
+                beneficiary, policyHolder, proposedPremium, proposedPaymentFrequency, vehicleToInsure));
+    }
+
+    public CompletableFuture<TravelContract> insurePersons(String contractNumber, Person policyHolder,
+                                                           int proposedPremium,
+                                                           PremiumPaymentFrequency proposedPaymentFrequency,
+                                                           Set<Person> personsToInsure) {
+        return create(contractNumber, policyHolder, partition -> partition.insurePersons(contractNumber,
+                policyHolder, proposedPremium, proposedPaymentFrequency, personsToInsure));
+    }
+
+    public CompletableFuture<MasterVehicleContract> createMasterVehicleContract(String contractNumber,
+                                                                                Person beneficiary,
+                                                                                Person policyHolder) {
+        return create(contractNumber, policyHolder, partition -> partition.createMasterVehicleContract(
+                contractNumber, beneficiary, policyHolder));
+    }
+
+    // Zmluvy z rôznych oddielov nemajú rovnakého poistníka, presun medzi nimi odmietne samotná poisťovňa
+    public CompletableFuture<Void> moveSingleVehicleContractToMasterVehicleContract(
+            MasterVehicleContract masterVehicleContract, SingleVehicleContract singleVehicleContract) {
+        return partitionOf(masterVehicleContract).moveSingleVehicleContractToMasterVehicleContract(
+                masterVehicleContract, singleVehicleContract);
+    }
+
+    public CompletableFuture<PaymentStatus> pay(AbstractContract contract, int amount) {
+        return partitionOf(contract).pay(contract, amount);
+    }
+
+    public CompletableFuture<PaymentStatus> pay(AbstractContract contract, int amount, String reference) {
+        return partitionOf(contract).pay(contract, amount, reference);
+    }
+
+    public CompletableFuture<Void> processClaim(TravelContract travelContract, Set<Person> affectedPersons) {
+        return partitionOf(travelContract).processClaim(travelContract, affectedPersons);
+    }
+
+    public CompletableFuture<Void> processClaim(SingleVehicleContract singleVehicleContract, int expectedDamages) {
+        return partitionOf(singleVehicleContract).processClaim(singleVehicleContract, expectedDamages);
+    }
+
+    public CompletableFuture<Void> setCurrentTime(LocalDateTime newCurrentTime) {
+        CompletableFuture<?>[] results = new CompletableFuture<?>[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            results[i] = partitions[i].setCurrentTime(newCurrentTime);
+        }
+        return CompletableFuture.allOf(results);
+    }
+
+    // Každý oddiel zúčtuje svoje zmluvy na svojom vlákne, oddiely sa navzájom nečakajú
+    public CompletableFuture<Void> chargePremiumsOnContracts() {
+        CompletableFuture<?>[] results = new CompletableFuture<?>[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            results[i] = partitions[i].chargePremiumsOnContracts();
+        }
+        return CompletableFuture.allOf(results);
+    }
+
+    public ContractView getView(AbstractContract contract) {
+        // Či je contract null
+        if (contract == null) {
+            throw new IllegalArgumentException("Contract cannot be null.");
+        }
+        return partitionOf(contract).getView(contract);
+    }
+
+    @Override
+    public void close() {
+        for (InsuranceCommandEngine partition : partitions) {
+            partition.close();
+        }
+    }
+
+    private <T> CompletableFuture<T> create(String contractNumber, Person policyHolder,
+                                            Function<InsuranceCommandEngine, CompletableFuture<T>> command) {
+        // Či je contractNumber null
+        if (contractNumber == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Contract number cannot be null."));
+        }
+
+        // Či je policyHolder null
+        if (policyHolder == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Policy holder cannot be null."));
+        }
+
+        // Číslo zmluvy si oddiel rezervuje pred odoslaním príkazu, neúspešné vytvorenie rezerváciu uvoľní
+        int index = getPartitionIndex(policyHolder);
+        if (contractPartitions.putIfAbsent(contractNumber, index) != null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Contract number already exists"));
+        }
+
+        CompletableFuture<T> result = command.apply(partitions[index]);
+        return result.whenComplete((contract, error) -> {
+            if (error != null) {
+                contractPartitions.remove(contractNumber, index);
+            }
+        });
+    }
+
+    // Zmluva inej poisťovne alebo null sa pošle prvému oddielu, ktorý ju odmietne rovnako ako poisťovňa
+    private InsuranceCommandEngine partitionOf(AbstractContract contract) {
+        if (contract != null) {
+            InsuranceCommandEngine partition = partitionsByCompany.get(contract.getInsurer());
+            if (partition != null) {
+                return partition;
+            }
+        }
+        return partitions[0];
+    }
+}
@@ -0,0 +1,863 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import objects.LicensePlates;
+import objects.Person;
+import objects.PersonRegistry;
+import objects.Vehicle;
+import payment.PaymentHandler;
+import payment.PremiumPaymentFrequency;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/* Skupinový zápis: volajúci sa vráti až po fsync skupiny, ktorá obsahuje jeho záznam. Prvé čakajúce vlákno
+zapíše a fsyncne všetky doteraz pridané záznamy, ostatné medzitým pridávajú záznamy do ďalšej skupiny a čakajú
+na jeho výsledok. Dávka (beginBatch / endBatch) čaká na fsync len raz, na svojom konci */
+public class WriteAheadLog implements AutoCloseable {
+    private static final int MAGIC = 0x4957414C;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+
+    // Hlavička záznamu: dĺžka (typ + dáta) a CRC32C z rovnakého rozsahu
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 24;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private static final byte SET_CURRENT_TIME = 1;
+    private static final byte INSURE_VEHICLE = 2;
+    private static final byte INSURE_PERSONS = 3;
+    private static final byte CREATE_MASTER_VEHICLE_CONTRACT = 4;
+    private static final byte MOVE_TO_MASTER_VEHICLE_CONTRACT = 5;
+    private static final byte PAYMENT = 6;
+    private static final byte CHARGE_PREMIUMS = 7;
+    private static final byte VEHICLE_CLAIM = 8;
+    private static final byte TRAVEL_CLAIM = 9;
+    private static final byte REFERENCED_PAYMENT = 10;
+    private static final byte CHARGE_PREMIUM = 11;
+
+    private static final PremiumPaymentFrequency[] FREQUENCIES = PremiumPaymentFrequency.values();
+
+    private final FileChannel channel;
+    private final int groupCommitSize;
+    private final long maxCommitDelayNanos;
+    private final CRC32C checksum;
+    private final ThreadLocal<Integer> batchDepth;
+    private ByteBuffer buffer;
+    private ByteBuffer spareBuffer;
+    private int recordStart;
+    private int pendingRecords;
+
+    // Poradové číslo posledného pridaného záznamu a posledného záznamu, ktorý prešiel fsync
+    private long appendedSequence;
+    private long durableSequence;
+
+    // Dĺžka súboru po poslednom fsync, končí na hranici záznamu
+    private long committedLength;
+
+    // Či práve niektoré vlákno zapisuje skupinu mimo monitora
+    private boolean committing;
+    private IOException failure;
+    private boolean closed;
+
+    public WriteAheadLog(Path path, int groupCommitSize) throws IOException {
+        this(path, groupCommitSize, Duration.ZERO);
+    }
+
+    // Zapisujúce vlákno čaká najviac maxCommitDelay, kým sa skupina nenaplní groupCommitSize záznamami
+    public WriteAheadLog(Path path, int groupCommitSize, Duration maxCommitDelay) throws IOException {
+        // Či je path null
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+
+        // Či nie je veľkosť skupiny kladná
+        if (groupCommitSize <= 0) {
+            throw new IllegalArgumentException("Group commit size must be greater than 0.");
+        }
+
+        // Či je maxCommitDelay null alebo záporné
+        if (maxCommitDelay == null || maxCommitDelay.isNegative()) {
+            throw new IllegalArgumentException("Max commit delay cannot be null or negative.");
+        }
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.groupCommitSize = groupCommitSize;
+        this.maxCommitDelayNanos = maxCommitDelay.toNanos();
+        this.checksum = new CRC32C();
+        this.batchDepth = ThreadLocal.withInitial(() -> 0);
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+                writeFully(header);
+                channel.force(true);
+            } else {
+                // Neúplný záznam na konci po páde odrežeme, inak by za ním pridané záznamy neboli čitateľné
+                RecordReader reader = new RecordReader(channel);
+                while (reader.next() >= 0) {
+                    reader.skipRecord();
+                }
+                channel.truncate(reader.getValidLength());
+            }
+            channel.position(channel.size());
+            committedLength = channel.size();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Počká na fsync všetkých doteraz pridaných záznamov, aj iných vlákien
+    public void flush() {
+        long sequence;
+        synchronized (this) {
+            ensureOpen();
+            sequence = appendedSequence;
+        }
+        awaitDurable(sequence, false);
+    }
+
+    // Dĺžka logu po fsync všetkých doteraz pridaných záznamov, snapshot od nej pokračuje v prehrávaní
+    public long getCommittedLength() {
+        flush();
+        synchronized (this) {
+            return committedLength;
+        }
+    }
+
+    // Záznamy tohto vlákna až po endBatch nečakajú na fsync, volajúci ich výsledky potvrdí až po endBatch
+    public void beginBatch() {
+        batchDepth.set(batchDepth.get() + 1);
+    }
+
+    public void endBatch() {
+        int depth = batchDepth.get();
+
+        // Či bola dávka začatá
+        if (depth == 0) {
+            throw new IllegalStateException("No write-ahead log batch was started.");
+        }
+
+        if (depth > 1) {
+            batchDepth.set(depth - 1);
+            return;
+        }
+        batchDepth.remove();
+        flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            // Skupinu, ktorú práve zapisuje iné vlákno, necháme dokončiť
+            boolean interrupted = false;
+            while (committing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            closed = true;
+            try {
+                if (failure == null) {
+                    commitInline();
+                }
+            } finally {
+                channel.close();
+                notifyAll();
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    void logCurrentTime(LocalDateTime currentTime) {
+        long sequence;
+        synchronized (this) {
+            beginRecord(SET_CURRENT_TIME, 12);
+            putTime(currentTime);
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    void logInsureVehicle(String contractNumber, Person beneficiary, Person policyHolder,
+                          int premium, PremiumPaymentFrequency frequency, Vehicle vehicle) {
+        byte[] number = encode(contractNumber);
+        byte[] beneficiaryId = encode(beneficiary);
+        byte[] policyHolderId = encode(policyHolder);
+
+        long sequence;
+        synchronized (this) {
+            beginRecord(INSURE_VEHICLE, sizeOf(number) + sizeOf(beneficiaryId) + sizeOf(policyHolderId) + 4 + 1 + 8 + 4);
+            putBytes(number);
+            putBytes(beneficiaryId);
+            putBytes(policyHolderId);
+            buffer.putInt(premium);
+            buffer.put((byte) frequency.ordinal());
+            buffer.putLong(vehicle.getPackedLicensePlate());
+            buffer.putInt(vehicle.getOriginalValue());
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    void logInsurePersons(String contractNumber, Person policyHolder, int premium,
+                          PremiumPaymentFrequency frequency, Set<Person> personsToInsure) {
+        byte[] number = encode(contractNumber);
+        byte[] policyHolderId = encode(policyHolder);
+        byte[][] personIds = encode(personsToInsure);
+
+        long sequence;
+        synchronized (this) {
+            beginRecord(INSURE_PERSONS, sizeOf(number) + sizeOf(policyHolderId) + 4 + 1 + sizeOf(personIds));
+            putBytes(number);
+            putBytes(policyHolderId);
+            buffer.putInt(premium);
+            buffer.put((byte) frequency.ordinal());
+            putBytes(personIds);
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    void logCreateMasterVehicleContract(String contractNumber, Person beneficiary, Person policyHolder) {
+        byte[] number = encode(contractNumber);
+        byte[] beneficiaryId = encode(beneficiary);
+        byte[] policyHolderId = encode(policyHolder);
+
+        long sequence;
+        synchronized (this) {
+            beginRecord(CREATE_MASTER_VEHICLE_CONTRACT, sizeOf(number) + sizeOf(beneficiaryId) + sizeOf(policyHolderId));
+            putBytes(number);
+            putBytes(beneficiaryId);
+            putBytes(policyHolderId);
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    void logMoveToMasterVehicleContract(String masterContractNumber, String singleContractNumber) {
+        byte[] masterNumber = encode(masterContractNumber);
+        byte[] singleNumber = encode(singleContractNumber);
+
+        long sequence;
+        synchronized (this) {
+            beginRecord(MOVE_TO_MASTER_VEHICLE_CONTRACT, sizeOf(masterNumber) + sizeOf(singleNumber));
+            putBytes(masterNumber);
+            putBytes(singleNumber);
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    public void logPayment(String contractNumber, int amount) {
+        byte[] number = encode(contractNumber);
+
+        long sequence;
+        synchronized (this) {
+            beginRecord(PAYMENT, sizeOf(number) + 4);
+            putBytes(number);
+            buffer.putInt(amount);
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    // Referencia sa zapisuje, aby prehratý log obnovil aj okno opakovaných platieb
+    public void logPayment(String contractNumber, int amount, String reference) {
+        if (reference == null) {
+            logPayment(contractNumber, amount);
+            return;
+        }
+
+        byte[] number = encode(contractNumber);
+        byte[] referenceBytes = encode(reference);
+
+        long sequence;
+        synchronized (this) {
+            beginRecord(REFERENCED_PAYMENT, sizeOf(number) + 4 + sizeOf(referenceBytes));
+            putBytes(number);
+            buffer.putInt(amount);
+            putBytes(referenceBytes);
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    void logChargePremiums() {
+        long sequence;
+        synchronized (this) {
+            beginRecord(CHARGE_PREMIUMS, 0);
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    void logChargePremium(String contractNumber) {
+        byte[] number = encode(contractNumber);
+
+        long sequence;
+        synchronized (this) {
+            beginRecord(CHARGE_PREMIUM, sizeOf(number));
+            putBytes(number);
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    void logVehicleClaim(String contractNumber, int expectedDamages) {
+        byte[] number = encode(contractNumber);
+
+        long sequence;
+        synchronized (this) {
+            beginRecord(VEHICLE_CLAIM, sizeOf(number) + 4);
+            putBytes(number);
+            buffer.putInt(expectedDamages);
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    void logTravelClaim(String contractNumber, Set<Person> affectedPersons) {
+        byte[] number = encode(contractNumber);
+        byte[][] personIds = encode(affectedPersons);
+
+        long sequence;
+        synchronized (this) {
+            beginRecord(TRAVEL_CLAIM, sizeOf(number) + sizeOf(personIds));
+            putBytes(number);
+            putBytes(personIds);
+            sequence = endRecord();
+        }
+        commitRecord(sequence);
+    }
+
+    public static long replay(Path path, InsuranceCompany company) throws IOException {
+        // Či je path alebo company null
+        if (path == null || company == null) {
+            throw new IllegalArgumentException("Path and company cannot be null.");
+        }
+
+        /* Záznamy sa prehrávajú do poisťovne, ktorá ich sama znova nezapisuje: do prázdnej od začiatku logu,
+        do načítaného snapshotu alebo už prehranej poisťovne od pozície logu, ktorú obsahuje */
+        long logPosition = company.getLogPosition();
+        if (company.getWriteAheadLog() != null || (logPosition < 0 && !company.getContracts().isEmpty())) {
+            throw new IllegalStateException(
+                    "Write-ahead log can only be replayed into an empty company or a snapshot without a log.");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            RecordReader reader = new RecordReader(channel);
+            if (logPosition >= 0) {
+                reader.seek(logPosition);
+            }
+            Replayer replayer = new Replayer(company);
+            long replayedRecords = 0;
+
+            for (int type = reader.next(); type >= 0; type = reader.next()) {
+                replayer.apply(type, reader);
+                reader.skipRecord();
+                replayedRecords++;
+            }
+            company.setLogPosition(reader.getValidLength());
+            return replayedRecords;
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed.");
+        }
+
+        // Po chybe zápisu nevieme, ktoré záznamy sú na disku, ďalšie zmeny preto odmietame
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed to commit.", failure);
+        }
+    }
+
+    private void beginRecord(byte type, int payloadSize) {
+        ensureOpen();
+        int recordSize = RECORD_HEADER_SIZE + 1 + payloadSize;
+
+        // Plný buffer zapíšeme hneď, ak ho práve nezapisuje iné vlákno, inak ho zväčšíme
+        if (buffer.remaining() < recordSize) {
+            if (!committing && pendingRecords > 0) {
+                try {
+                    commitInline();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (buffer.remaining() < recordSize) {
+                int capacity = Math.max(buffer.capacity() * 2, buffer.position() + recordSize);
+                buffer = ByteBuffer.allocate(capacity).put(buffer.flip());
+            }
+        }
+
+        recordStart = buffer.position();
+        buffer.position(recordStart + RECORD_HEADER_SIZE);
+        buffer.put(type);
+    }
+
+    private long endRecord() {
+        int length = buffer.position() - recordStart - RECORD_HEADER_SIZE;
+
+        checksum.reset();
+        checksum.update(buffer.array(), buffer.arrayOffset() + recordStart + RECORD_HEADER_SIZE, length);
+        buffer.putInt(recordStart, length);
+        buffer.putInt(recordStart + 4, (int) checksum.getValue());
+
+        // Plná skupina zobudí vlákno, ktoré na ňu čaká
+        if (++pendingRecords >= groupCommitSize) {
+            notifyAll();
+        }
+        return ++appendedSequence;
+    }
+
+    private void commitRecord(long sequence) {
+        // Záznam dávky potvrdí až endBatch
+        if (batchDepth.get() == 0) {
+            awaitDurable(sequence, true);
+        }
+    }
+
+    private void awaitDurable(long sequence, boolean waitForGroup) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                ByteBuffer group;
+                long groupSequence;
+
+                synchronized (this) {
+                    // Skupinu zapisuje iné vlákno, náš záznam v nej byť nemusí
+                    while (committing && durableSequence < sequence) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (durableSequence >= sequence) {
+                        return;
+                    }
+                    ensureOpen();
+
+                    // Toto vlákno zapíše skupinu, predtým počká na ďalšie záznamy najviac maxCommitDelay
+                    committing = true;
+                    long deadline = System.nanoTime() + maxCommitDelayNanos;
+                    long remaining = maxCommitDelayNanos;
+                    while (waitForGroup && !interrupted && pendingRecords < groupCommitSize && remaining > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                        remaining = deadline - System.nanoTime();
+                    }
+
+                    group = buffer.flip();
+                    groupSequence = appendedSequence;
+                    buffer = spareBuffer != null ? spareBuffer : ByteBuffer.allocate(BUFFER_SIZE);
+                    spareBuffer = null;
+                    pendingRecords = 0;
+                }
+
+                // Zápis a fsync prebehnú mimo monitora, ostatné vlákna medzitým pridávajú ďalšie záznamy
+                IOException error = null;
+                try {
+                    writeFully(group);
+                    channel.force(false);
+                } catch (IOException e) {
+                    error = e;
+                }
+
+                synchronized (this) {
+                    committing = false;
+                    if (error != null) {
+                        failure = error;
+                    } else {
+                        durableSequence = groupSequence;
+                        committedLength += group.limit();
+                    }
+                    if (group.capacity() == BUFFER_SIZE) {
+                        spareBuffer = group.clear();
+                    }
+                    notifyAll();
+                }
+
+                if (error != null) {
+                    throw new UncheckedIOException(error);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Zapíše všetky pridané záznamy pod monitorom, volá sa len keď skupinu nezapisuje iné vlákno
+    private void commitInline() throws IOException {
+        if (pendingRecords == 0) {
+            return;
+        }
+
+        int length = buffer.position();
+        try {
+            writeFully(buffer.flip());
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (buffer.capacity() > BUFFER_SIZE) {
+                buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            } else {
+                buffer.clear();
+            }
+            pendingRecords = 0;
+            notifyAll();
+        }
+        durableSequence = appendedSequence;
+        committedLength += length;
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private void putTime(LocalDateTime time) {
+        buffer.putLong(time.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(time.getNano());
+    }
+
+    private void putBytes(byte[] bytes) {
+        // Chýbajúca hodnota (null) má dĺžku -1
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void putBytes(byte[][] values) {
+        buffer.putInt(values.length);
+        for (byte[] value : values) {
+            putBytes(value);
+        }
+    }
+
+    private static byte[] encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        // Či sa dĺžka zmestí do dvojbajtovej predpony
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Value is too long for the write-ahead log.");
+        }
+        return bytes;
+    }
+
+    private static byte[] encode(Person person) {
+        return person != null ? encode(person.getId()) : null;
+    }
+
+    private static byte[][] encode(Set<Person> persons) {
+        byte[][] ids = new byte[persons.size()][];
+        int index = 0;
+        for (Person person : persons) {
+            ids[index++] = encode(person);
+        }
+        return ids;
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return 2 + (bytes != null ? bytes.length : 0);
+    }
+
+    private static int sizeOf(byte[][] values) {
+        int size = 4;
+        for (byte[] value : values) {
+            size += sizeOf(value);
+        }
+        return size;
+    }
+
+    private static final class RecordReader {
+        private final FileChannel channel;
+        private final CRC32C checksum;
+        private ByteBuffer buffer;
+        private boolean endOfFile;
+        private int recordEnd;
+        private long validLength;
+
+        RecordReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.checksum = new CRC32C();
+            this.buffer = ByteBuffer.allocate(READ_BUFFER_SIZE).flip();
+
+            channel.position(0);
+            if (!ensureAvailable(FILE_HEADER_SIZE) || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("File is not a write-ahead log.");
+            }
+            this.recordEnd = buffer.position();
+            this.validLength = FILE_HEADER_SIZE;
+        }
+
+        long getValidLength() {
+            return validLength;
+        }
+
+        // Pokračuje od hranice záznamu na danej pozícii, napríklad za stavom uloženým v snapshote
+        void seek(long position) throws IOException {
+            // Či pozícia leží v logu
+            if (position < FILE_HEADER_SIZE || position > channel.size()) {
+                throw new IOException("Write-ahead log does not contain position " + position + ".");
+            }
+
+            channel.position(position);
+            buffer.clear().flip();
+            endOfFile = false;
+            recordEnd = 0;
+            validLength = position;
+        }
+
+        // Typ ďalšieho záznamu, alebo -1 na konci súboru a pri neúplnom či poškodenom zázname
+        int next() throws IOException {
+            if (!ensureAvailable(RECORD_HEADER_SIZE)) {
+                return -1;
+            }
+
+            int length = buffer.getInt(buffer.position());
+            int expectedChecksum = buffer.getInt(buffer.position() + 4);
+            if (length <= 0 || length > MAX_RECORD_SIZE || !ensureAvailable(RECORD_HEADER_SIZE + length)) {
+                return -1;
+            }
+
+            int start = buffer.position() + RECORD_HEADER_SIZE;
+            checksum.reset();
+            checksum.update(buffer.array(), buffer.arrayOffset() + start, length);
+            if ((int) checksum.getValue() != expectedChecksum) {
+                return -1;
+            }
+
+            buffer.position(start);
+            recordEnd = start + length;
+            validLength += RECORD_HEADER_SIZE + length;
+            return buffer.get();
+        }
+
+        void skipRecord() {
+            buffer.position(recordEnd);
+        }
+
+        int getInt() {
+            return buffer.getInt();
+        }
+
+        long getLong() {
+            return buffer.getLong();
+        }
+
+        byte getByte() {
+            return buffer.get();
+        }
+
+        LocalDateTime getTime() {
+            long epochSecond = buffer.getLong();
+            return LocalDateTime.ofEpochSecond(epochSecond, buffer.getInt(), ZoneOffset.UTC);
+        }
+
+        String getString() {
+            int length = buffer.getShort();
+            if (length < 0) {
+                return null;
+            }
+
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        private boolean ensureAvailable(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return true;
+            }
+
+            int offset = buffer.position();
+            if (bytes > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(bytes).put(buffer);
+            } else {
+                buffer.compact();
+            }
+            recordEnd -= offset;
+
+            while (!endOfFile && buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    endOfFile = true;
+                }
+            }
+            buffer.flip();
+            return buffer.remaining() >= bytes;
+        }
+    }
+
+    private static final class Replayer {
+        private final InsuranceCompany company;
+        private final PaymentHandler handler;
+        private final PersonRegistry personRegistry;
+
+        // Vlastný index všetkých zmlúv, dcérske zmluvy z registra poisťovne po presune zmiznú
+        private final Map<String, AbstractContract> contracts;
+        private boolean snapshotIndexed;
+
+        Replayer(InsuranceCompany company) {
+            this.company = company;
+            this.handler = company.getHandler();
+            this.personRegistry = company.getPersonRegistry();
+            this.contracts = new HashMap<>();
+        }
+
+        void apply(int type, RecordReader reader) {
+            switch (type) {
+                case SET_CURRENT_TIME -> company.setCurrentTime(reader.getTime());
+                case INSURE_VEHICLE -> {
+                    String contractNumber = reader.getString();
+                    Person beneficiary = person(reader.getString());
+                    Person policyHolder = person(reader.getString());
+                    int premium = reader.getInt();
+                    PremiumPaymentFrequency frequency = FREQUENCIES[reader.getByte()];
+                    String licensePlate = LicensePlates.decode(reader.getLong());
+                    Vehicle vehicle = new Vehicle(licensePlate, reader.getInt());
+
+                    contracts.put(contractNumber, company.insureVehicle(contractNumber, beneficiary, policyHolder,
+                            premium, frequency, vehicle));
+                }
+                case INSURE_PERSONS -> {
+                    String contractNumber = reader.getString();
+                    Person policyHolder = person(reader.getString());
+                    int premium = reader.getInt();
+                    PremiumPaymentFrequency frequency = FREQUENCIES[reader.getByte()];
+                    Set<Person> personsToInsure = persons(reader);
+
+                    contracts.put(contractNumber, company.insurePersons(contractNumber, policyHolder, premium,
+                            frequency, personsToInsure));
+                }
+                case CREATE_MASTER_VEHICLE_CONTRACT -> {
+                    String contractNumber = reader.getString();
+                    Person beneficiary = person(reader.getString());
+                    Person policyHolder = person(reader.getString());
+
+                    contracts.put(contractNumber, company.createMasterVehicleContract(contractNumber, beneficiary,
+                            policyHolder));
+                }
+                case MOVE_TO_MASTER_VEHICLE_CONTRACT -> {
+                    MasterVehicleContract masterContract = (MasterVehicleContract) contract(reader.getString());
+                    SingleVehicleContract singleContract = (SingleVehicleContract) contract(reader.getString());
+                    company.moveSingleVehicleContractToMasterVehicleContract(masterContract, singleContract);
+                }
+                case PAYMENT -> {
+                    AbstractContract contract = contract(reader.getString());
+                    int amount = reader.getInt();
+
+                    if (contract instanceof MasterVehicleContract masterContract) {
+                        handler.pay(masterContract, amount);
+                    } else {
+                        handler.pay(contract, amount);
+                    }
+                }
+                case REFERENCED_PAYMENT -> {
+                    AbstractContract contract = contract(reader.getString());
+                    int amount = reader.getInt();
+                    String reference = reader.getString();
+
+                    if (contract instanceof MasterVehicleContract masterContract) {
+                        handler.pay(masterContract, amount, reference);
+                    } else {
+                        handler.pay(contract, amount, reference);
+                    }
+                }
+                case CHARGE_PREMIUMS -> company.chargePremiumsOnContracts();
+                case CHARGE_PREMIUM -> company.chargePremiumOnContract(contract(reader.getString()));
+                case VEHICLE_CLAIM -> {
+                    SingleVehicleContract contract = (SingleVehicleContract) contract(reader.getString());
+                    company.processClaim(contract, reader.getInt());
+                }
+                case TRAVEL_CLAIM -> {
+                    TravelContract contract = (TravelContract) contract(reader.getString());
+                    company.processClaim(contract, persons(reader));
+                }
+                default -> throw new IllegalStateException("Unknown write-ahead log record type " + type + ".");
+            }
+        }
+
+        private Person person(String id) {
+            return id != null ? personRegistry.getOrCreate(id) : null;
+        }
+
+        private Set<Person> persons(RecordReader reader) {
+            int count = reader.getInt();
+            Set<Person> persons = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                persons.add(person(reader.getString()));
+            }
+            return persons;
+        }
+
+        private AbstractContract contract(String contractNumber) {
+            AbstractContract contract = contracts.get(contractNumber);
+
+            // Zmluvy zo snapshotu vznikli pred začiatkom prehrávania, dcérske sú len v rámcových zmluvách
+            if (contract == null && !snapshotIndexed) {
+                snapshotIndexed = true;
+                for (AbstractContract registered : company.getContracts()) {
+                    contracts.putIfAbsent(registered.getContractNumber(), registered);
+                    if (registered instanceof MasterVehicleContract masterContract) {
+                        for (SingleVehicleContract childContract : masterContract.getChildContracts()) {
+                            contracts.putIfAbsent(childContract.getContractNumber(), childContract);
+                        }
+                    }
+                }
+                contract = contracts.get(contractNumber);
+            }
+
+            // Či záznam neodkazuje na zmluvu, ktorá v logu nevznikla
+            if (contract == null) {
+                throw new IllegalStateException("Write-ahead log references unknown contract " + contractNumber + ".");
+            }
+            return contract;
+        }
+    }
+}
@@ -4,15 +4,14 @@ import company.InsuranceCompany;
 import objects.Person;
 import payment.ContractPaymentData;
 
-import java.util.Objects;
-
 public abstract class AbstractContract {
     private final String contractNumber;
+    private final int slot;
     protected final InsuranceCompany insurer;
     protected final Person policyHolder;
     protected final ContractPaymentData contractPaymentData;
     protected int coverageAmount;
-    protected boolean isActive;
+    protected volatile boolean isActive;
 
     public AbstractContract(String contractNumber, InsuranceCompany insurer, Person policyHolder,
                             ContractPaymentData contractPaymentData, int coverageAmount) {
@@ -42,12 +41,21 @@ public abstract class AbstractContract {
         this.policyHolder = policyHolder;
         this.contractPaymentData = contractPaymentData;
         this.isActive = true;
+
+        /* Slot sa pridelí až po všetkých kontrolách, podtriedy svoje kontroly robia ešte pred volaním
+        tohto konštruktora. Zmluva, ktorej vytvorenie zlyhalo, si tak slot nevezme */
+        this.slot = insurer.getContractSlot(contractNumber);
     }
 
     public String getContractNumber() {
         return contractNumber;
     }
 
+    // Husté číslo zmluvy v rámci poisťovne, rovnaké zmluvy majú rovnaký slot
+    public int getSlot() {
+        return slot;
+    }
+
     public Person getPolicyHolder() {
         return policyHolder;
     }
@@ -65,7 +73,20 @@ public abstract class AbstractContract {
     }
 
     public void setInactive() {
-        isActive = false;
+        boolean wasActive;
+        synchronized (this) {
+            wasActive = isActive;
+            isActive = false;
+        }
+
+        // Či bola zmluva doteraz aktívna, spätné volania sa vykonajú len pri zmene stavu a mimo zámku
+        if (wasActive) {
+            onDeactivated();
+            insurer.contractDeactivated(this);
+        }
+    }
+
+    protected void onDeactivated() {
     }
 
     public void setCoverageAmount(int coverageAmount) {
@@ -95,12 +116,13 @@ public abstract class AbstractContract {
 
         AbstractContract that = (AbstractContract) o;
 
-        return contractNumber.equals(that.contractNumber) &&
+        // Slot je v rámci poisťovne jednoznačný pre číslo zmluvy
+        return slot == that.slot &&
                 insurer.equals(that.insurer);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(contractNumber, insurer);
+        return slot;
     }
 }
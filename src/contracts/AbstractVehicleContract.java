@@ -8,14 +8,17 @@ public abstract class AbstractVehicleContract extends AbstractContract {
     protected Person beneficiary;
 
     public AbstractVehicleContract(String contractNumber, InsuranceCompany insurer, Person beneficiary, Person policyHolder, ContractPaymentData contractPaymentData, int coverageAmount) {
-        super(contractNumber, insurer, policyHolder, contractPaymentData, coverageAmount);
+        super(contractNumber, insurer, validate(beneficiary, policyHolder), contractPaymentData, coverageAmount);
+        this.beneficiary = beneficiary;
+    }
 
+    // Kontroly prebehnú pred konštruktorom predka, ktorý zmluve pridelí slot
+    private static Person validate(Person beneficiary, Person policyHolder) {
         // Či je beneficiary rovnaká osoba ako policyHolder
         if (beneficiary != null && beneficiary.equals(policyHolder)) {
             throw new IllegalArgumentException("The beneficiary cannot be the same as the policyHolder.");
         }
-
-        this.beneficiary = beneficiary;
+        return policyHolder;
     }
 
     public void setBeneficiary(Person beneficiary) {
@@ -4,23 +4,35 @@ import company.InsuranceCompany;
 import objects.LegalForm;
 import objects.Person;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 public class MasterVehicleContract extends AbstractVehicleContract {
     private final Set<SingleVehicleContract> childContracts;
 
+    /* Počet aktívnych dcérskych zmlúv, znižuje ho spätné volanie deaktivovanej dcérskej zmluvy. Množinu je možné
+    meniť aj priamo cez getChildContracts(), takú zmenu spoznáme podľa veľkosti a prvej dcérskej zmluvy
+    a počet prepočítame prechodom množiny */
+    private int activeChildCount;
+    private int countedChildren;
+    private SingleVehicleContract countedFirstChild;
+
     public MasterVehicleContract(String contractNumber, InsuranceCompany insurer, Person beneficiary,
                                  Person policyHolder) {
-        super(contractNumber, insurer, beneficiary, policyHolder, null, 0);
+        super(contractNumber, insurer, beneficiary, validate(policyHolder), null, 0);
+        this.childContracts = new LinkedHashSet<>();
+    }
 
+    // Kontrola prebehne pred konštruktorom predka, ktorý zmluve pridelí slot, chýbajúceho poistníka odmietne predok
+    private static Person validate(Person policyHolder) {
         // Či je poistík právnická osoba
-        LegalForm formOfPolicyHolder = policyHolder.getLegalForm();
-        if (formOfPolicyHolder != LegalForm.LEGAL) {
+        if (policyHolder != null && policyHolder.getLegalForm() != LegalForm.LEGAL) {
             throw new IllegalArgumentException("The Policy Holder is not Legal.");
         }
-
-        this.childContracts = new LinkedHashSet<>();
+        return policyHolder;
     }
 
     public Set<SingleVehicleContract> getChildContracts() {
@@ -31,24 +43,79 @@ public class MasterVehicleContract extends AbstractVehicleContract {
         insurer.moveSingleVehicleContractToMasterVehicleContract(this, contract);
     }
 
+    public void addChildContract(SingleVehicleContract contract) {
+        // Či je contract null
+        if (contract == null) {
+            throw new IllegalArgumentException("Child contract is null.");
+        }
+
+        synchronized (this) {
+            synchronizeActiveChildCount();
+            if (!childContracts.add(contract)) {
+                return;
+            }
+
+            if (contract.attachToMaster(this)) {
+                activeChildCount++;
+            }
+            countChildren();
+        }
+
+        // Poisťovňa preplánuje rámcovú zmluvu mimo jej zámku, rozvrh zamyká rámcové zmluvy sám
+        insurer.childContractAdded(this, contract);
+    }
+
+    // Volá ju dcérska zmluva, ktorá sa práve stala neaktívnou a bola aktívna pri pripojení
+    synchronized void childDeactivated(SingleVehicleContract contract) {
+        if (childContracts.contains(contract)) {
+            activeChildCount--;
+        }
+    }
+
     @Override
-    public boolean isActive() {
+    public synchronized boolean isActive() {
         if (childContracts.isEmpty()) {
             return super.isActive();
         }
 
+        synchronizeActiveChildCount();
+        return activeChildCount > 0;
+    }
+
+    private void synchronizeActiveChildCount() {
+        if (childContracts.size() == countedChildren && firstChild() == countedFirstChild) {
+            return;
+        }
+
+        // Množina sa zmenila priamo, aktívne dcérske zmluvy spočítame znova a pripojíme sa k nim
+        activeChildCount = 0;
         for (SingleVehicleContract child : childContracts) {
-            if (child.isActive()) {
-                return true;
+            if (child.attachToMaster(this)) {
+                activeChildCount++;
             }
         }
+        countChildren();
+    }
+
+    private void countChildren() {
+        countedChildren = childContracts.size();
+        countedFirstChild = firstChild();
+    }
 
-        return false;
+    private SingleVehicleContract firstChild() {
+        Iterator<SingleVehicleContract> iterator = childContracts.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
     }
 
     @Override
     public void setInactive() {
-        for (SingleVehicleContract child : childContracts) {
+        // Dcérske zmluvy deaktivujeme mimo zámku, ich spätné volania zamykajú rámcové zmluvy
+        List<SingleVehicleContract> children;
+        synchronized (this) {
+            children = new ArrayList<>(childContracts);
+        }
+
+        for (SingleVehicleContract child : children) {
             child.setInactive();
         }
         super.setInactive();
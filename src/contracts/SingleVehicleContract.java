@@ -5,14 +5,25 @@ import objects.Person;
 import objects.Vehicle;
 import payment.ContractPaymentData;
 
+import java.util.concurrent.CopyOnWriteArrayList;
+
 public class SingleVehicleContract extends AbstractVehicleContract {
     private final Vehicle insuredVehicle;
 
+    // Rámcové zmluvy, ktoré túto zmluvu počítajú medzi aktívne dcérske zmluvy
+    private final CopyOnWriteArrayList<MasterVehicleContract> masterContracts;
+
     public SingleVehicleContract(String contractNumber, InsuranceCompany insurer, Person beneficiary,
                                  Person policyHolder, ContractPaymentData contractPaymentData,
                                  int coverageAmount, Vehicle vehicleToInsure) {
-        super(contractNumber, insurer, beneficiary, policyHolder, contractPaymentData, coverageAmount);
+        super(contractNumber, insurer, beneficiary, policyHolder, validate(contractPaymentData, vehicleToInsure),
+                coverageAmount);
+        this.insuredVehicle = vehicleToInsure;
+        this.masterContracts = new CopyOnWriteArrayList<>();
+    }
 
+    // Kontroly prebehnú pred konštruktorom predka, ktorý zmluve pridelí slot
+    private static ContractPaymentData validate(ContractPaymentData contractPaymentData, Vehicle vehicleToInsure) {
         // Či je vozidlo null
         if (vehicleToInsure == null) {
             throw new IllegalArgumentException("Invalid vehicle.");
@@ -22,11 +33,27 @@ public class SingleVehicleContract extends AbstractVehicleContract {
         if (contractPaymentData == null) {
             throw new IllegalArgumentException("Invalid contractPaymentData.");
         }
-
-        this.insuredVehicle = vehicleToInsure;
+        return contractPaymentData;
     }
 
     public Vehicle getInsuredVehicle() {
         return insuredVehicle;
     }
+
+    /* Vráti, či je zmluva aktívna, a ak áno, pripojí rámcovú zmluvu. Pod zámkom deaktivácie teda rámcová
+    zmluva buď zmluvu započíta a dostane spätné volanie, alebo ju nezapočíta vôbec */
+    synchronized boolean attachToMaster(MasterVehicleContract masterContract) {
+        if (!isActive) {
+            return false;
+        }
+        masterContracts.addIfAbsent(masterContract);
+        return true;
+    }
+
+    @Override
+    protected void onDeactivated() {
+        for (MasterVehicleContract masterContract : masterContracts) {
+            masterContract.childDeactivated(this);
+        }
+    }
 }
@@ -14,8 +14,12 @@ public class TravelContract extends AbstractContract {
     public TravelContract(String contractNumber, InsuranceCompany insurer, Person policyHolder,
                           ContractPaymentData contractPaymentData, int coverageAmount,
                           Set<Person> personsToInsure) {
-        super(contractNumber, insurer, policyHolder, contractPaymentData, coverageAmount);
+        super(contractNumber, insurer, policyHolder, validate(contractPaymentData, personsToInsure), coverageAmount);
+        this.insuredPersons = personsToInsure;
+    }
 
+    // Kontroly prebehnú pred konštruktorom predka, ktorý zmluve pridelí slot
+    private static ContractPaymentData validate(ContractPaymentData contractPaymentData, Set<Person> personsToInsure) {
         // Či je personsToInsure null alebo prázdna množina
         if (personsToInsure == null || personsToInsure.isEmpty()) {
             throw new IllegalArgumentException("Persons to insure cannot be null or empty");
@@ -32,8 +36,7 @@ public class TravelContract extends AbstractContract {
                 throw new IllegalArgumentException("Only natural persons can be insured in travel contract");
             }
         }
-
-        this.insuredPersons = personsToInsure;
+        return contractPaymentData;
     }
 
     public Set<Person> getInsuredPersons() {
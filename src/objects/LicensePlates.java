@@ -0,0 +1,70 @@
+package objects;
+
+public final class LicensePlates {
+    public static final int LENGTH = 7;
+
+    private static final int RADIX = 36;
+    private static final long PACKED_LIMIT = 78_364_164_096L; // 36^7
+
+    private LicensePlates() {
+    }
+
+    // Hodnota znaku v sústave so základom 36 (0-9, A-Z), alebo -1 pre nepovolený znak
+    private static int digitValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    public static boolean isValid(CharSequence licensePlate) {
+        // Či má ŠPZ presne 7 znakov
+        if (licensePlate == null || licensePlate.length() != LENGTH) {
+            return false;
+        }
+
+        // Či sú všetky znaky veľké písmená A-Z alebo číslice
+        for (int i = 0; i < LENGTH; i++) {
+            if (digitValue(licensePlate.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static long encode(CharSequence licensePlate) {
+        // Či je ŠPZ null alebo nemá 7 znakov
+        if (licensePlate == null || licensePlate.length() != LENGTH) {
+            throw new IllegalArgumentException("Invalid license plate");
+        }
+
+        // 36^7 hodnôt sa zmestí do kladného long, poradie znakov zostáva zachované
+        long packed = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            int value = digitValue(licensePlate.charAt(i));
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid license plate");
+            }
+            packed = packed * RADIX + value;
+        }
+        return packed;
+    }
+
+    public static String decode(long packedLicensePlate) {
+        // Či hodnota nevznikla zakódovaním 7-znakovej ŠPZ
+        if (packedLicensePlate < 0 || packedLicensePlate >= PACKED_LIMIT) {
+            throw new IllegalArgumentException("Invalid packed license plate");
+        }
+
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            int value = (int) (packedLicensePlate % RADIX);
+            chars[i] = (char) (value < 10 ? '0' + value : 'A' + value - 10);
+            packedLicensePlate /= RADIX;
+        }
+        return new String(chars);
+    }
+}
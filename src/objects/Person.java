@@ -2,12 +2,23 @@ package objects;
 
 import contracts.AbstractContract;
 
-import java.time.DateTimeException;
-import java.time.LocalDate;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class Person {
+    private static final int FIRST_YEAR = 1900;
+    private static final int LAST_YEAR = 2053;
+    private static final byte[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    // Priestupné roky v rozsahu, ktorý môže rodné číslo vyjadriť (1900 - 2053)
+    private static final boolean[] LEAP_YEARS = new boolean[LAST_YEAR - FIRST_YEAR + 1];
+
+    static {
+        for (int year = FIRST_YEAR; year <= LAST_YEAR; year++) {
+            LEAP_YEARS[year - FIRST_YEAR] = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+        }
+    }
+
     private final String id;
     private final LegalForm legalForm;
     private int paidOutAmount;
@@ -18,16 +29,15 @@ public class Person {
             throw new IllegalArgumentException("ID cannot be null or empty.");
         }
 
-        // Či je validné RČ
-        if (isValidBirthNumber(id)) {
-            this.id = id;
-            this.legalForm = LegalForm.NATURAL;
-        // Či je validné IČO
-        } else if (isValidRegistrationNumber(id)) {
-            this.id = id;
-            this.legalForm = LegalForm.LEGAL;
-        } else throw new IllegalArgumentException("ID must be either a valid birth number or registration number.");
+        LegalForm legalForm = resolveLegalForm(id);
+
+        // Či nejde o validné RČ ani IČO
+        if (legalForm == null) {
+            throw new IllegalArgumentException("ID must be either a valid birth number or registration number.");
+        }
 
+        this.id = id;
+        this.legalForm = legalForm;
         this.paidOutAmount = 0;
         this.contracts = new LinkedHashSet<>();
     }
@@ -46,74 +56,113 @@ public class Person {
         }
     }
 
-    private static boolean isValidChecksum(String birthNumber) {
-        int sum = 0;
-        for (int i = 0; i < 10; i++) {
-            int digit = Character.getNumericValue(birthNumber.charAt(i));
-            if (i % 2 == 0) {
-                sum += digit;
-            } else {
-                sum -= digit;
+    // Hodnota číslice na pozícii index, alebo -1 ak znak nie je číslica 0-9
+    private static int digitAt(CharSequence value, int index) {
+        int digit = value.charAt(index) - '0';
+        return (digit >= 0 && digit <= 9) ? digit : -1;
+    }
+
+    private static boolean isDigits(CharSequence value, int length) {
+        for (int i = 0; i < length; i++) {
+            if (digitAt(value, i) < 0) {
+                return false;
             }
         }
-        return sum % 11 == 0;
+        return true;
     }
 
-    public static boolean isValidBirthNumber(String birthNumber) {
-        // Či je rodné číslo "null", a či nie sú všetky znaky číslice
-        if (birthNumber == null || !birthNumber.matches("[0-9]+")) {
-            return false;
+    private static int getDaysInMonth(int fullYear, int month) {
+        if (month == 2 && LEAP_YEARS[fullYear - FIRST_YEAR]) {
+            return 29;
         }
+        return DAYS_IN_MONTH[month - 1];
+    }
 
+    private static boolean isValidBirthNumber(CharSequence birthNumber) {
         // Či nemá dĺžku 10 alebo 9 znakov
         int length = birthNumber.length();
         if (length != 10 && length != 9) {
             return false;
         }
 
-        int month = Integer.parseInt(birthNumber.substring(2, 4));
+        // Či nie sú všetky znaky číslice, zároveň počítame kontrolnú sumu
+        int checksum = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = digitAt(birthNumber, i);
+            if (digit < 0) {
+                return false;
+            }
+            checksum += (i % 2 == 0) ? digit : -digit;
+        }
+
+        int year = digitAt(birthNumber, 0) * 10 + digitAt(birthNumber, 1);
+        int month = digitAt(birthNumber, 2) * 10 + digitAt(birthNumber, 3);
+        int day = digitAt(birthNumber, 4) * 10 + digitAt(birthNumber, 5);
 
         // Či je mesiac v rozsahu 1-12 alebo 51-62
         if (!((month >= 1 && month <= 12) || (month >= 51 && month <= 62))) {
             return false;
         }
 
-        int actualMonth = (month > 50) ? month - 50 : month;
-        int year = Integer.parseInt(birthNumber.substring(0, 2));
-        int day = Integer.parseInt(birthNumber.substring(4, 6));
-
         // Ak má RČ 9 znakov, tak rok (RR) musí byť menší alebo rovný 53
         if (length == 9 && year > 53) {
             return false;
         }
 
         // Kontrolná suma
-        if (length == 10 && !isValidChecksum(birthNumber)) {
+        if (length == 10 && checksum % 11 != 0) {
             return false;
         }
 
-        // Určenie úplného roku
+        // Či dátum existuje
+        int actualMonth = (month > 50) ? month - 50 : month;
         int fullYear = getFullYear(year, length);
+        return day >= 1 && day <= getDaysInMonth(fullYear, actualMonth);
+    }
 
-        // Či dátum existuje
-        try {
-            LocalDate date = LocalDate.of(fullYear, actualMonth, day);
-            return true;
-        } catch (DateTimeException e) {
-            return false;
+    private static boolean isValidRegistrationNumber(CharSequence registrationNumber) {
+        // Či sa IČO skladá zo 6 alebo 8 znakov, ktoré sú číslice
+        int length = registrationNumber.length();
+        return (length == 6 || length == 8) && isDigits(registrationNumber, length);
+    }
+
+    // Právna forma podľa identifikátora, alebo null ak nejde o platné RČ ani IČO
+    private static LegalForm resolveLegalForm(CharSequence id) {
+        if (isValidBirthNumber(id)) {
+            return LegalForm.NATURAL;
         }
+        if (isValidRegistrationNumber(id)) {
+            return LegalForm.LEGAL;
+        }
+        return null;
+    }
+
+    public static boolean isValidBirthNumber(String birthNumber) {
+        return birthNumber != null && isValidBirthNumber((CharSequence) birthNumber);
     }
 
     public static boolean isValidRegistrationNumber(String registrationNumber) {
-        // Či IČO nie je null, a či skladá sa zo 6 alebo 8 znakov, ktoré sú číslice
-        return registrationNumber != null && registrationNumber.matches("[0-9]+") && (registrationNumber.length() == 6 || registrationNumber.length() == 8);
+        return registrationNumber != null && isValidRegistrationNumber((CharSequence) registrationNumber);
+    }
+
+    public static LegalForm[] validateIds(CharSequence[] ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("IDs cannot be null.");
+        }
+
+        // Neplatný alebo chýbajúci identifikátor má vo výsledku hodnotu null
+        LegalForm[] legalForms = new LegalForm[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            legalForms[i] = ids[i] != null ? resolveLegalForm(ids[i]) : null;
+        }
+        return legalForms;
     }
 
     public String getId() {
         return id;
     }
 
-    public int getPaidOutAmount() {
+    public synchronized int getPaidOutAmount() {
         return paidOutAmount;
     }
 
@@ -125,14 +174,14 @@ public class Person {
         return contracts;
     }
 
-    public void addContract(AbstractContract contract) {
+    public synchronized void addContract(AbstractContract contract) {
         if (contract == null) {
             throw new IllegalArgumentException("Contracts cannot be null.");
         }
         contracts.add(contract);
     }
 
-    public void payout(int paidOutAmount) {
+    public synchronized void payout(int paidOutAmount) {
         if (paidOutAmount <= 0) {
             throw new IllegalArgumentException("Paid out amount cannot be negative.");
         }
@@ -0,0 +1,52 @@
+package objects;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class PersonRegistry {
+    private final Map<String, Person> persons;
+    private final Function<String, Person> personFactory;
+
+    public PersonRegistry() {
+        this(Person::new);
+    }
+
+    public PersonRegistry(Function<String, Person> personFactory) {
+        // Či je personFactory null
+        if (personFactory == null) {
+            throw new IllegalArgumentException("Person factory cannot be null.");
+        }
+
+        this.persons = new ConcurrentHashMap<>();
+        this.personFactory = personFactory;
+    }
+
+    public Person getOrCreate(String id) {
+        // Či je id null
+        if (id == null) {
+            throw new IllegalArgumentException("ID cannot be null.");
+        }
+
+        // Známa osoba sa nájde jedným prístupom do mapy bez opätovnej validácie ID
+        Person person = persons.get(id);
+        if (person != null) {
+            return person;
+        }
+
+        // Neplatné ID vyhodí výnimku z konštruktora a do registra sa nič nezapíše
+        return persons.computeIfAbsent(id, personFactory);
+    }
+
+    public Person find(String id) {
+        // Či je id null
+        if (id == null) {
+            throw new IllegalArgumentException("ID cannot be null.");
+        }
+        return persons.get(id);
+    }
+
+    public int size() {
+        return persons.size();
+    }
+}
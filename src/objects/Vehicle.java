@@ -5,12 +5,8 @@ public class Vehicle {
     private final int originalValue;
 
     public Vehicle(String licensePlate, int originalValue) {
-        if (licensePlate == null || licensePlate.length() != 7) {
-            throw new IllegalArgumentException("Invalid license plate");
-        }
-
-        // Či všetky jeho znaky nie sú veľké písmená A-Z alebo číslice
-        if (!licensePlate.matches("[A-Z0-9]+")) {
+        // Či má ŠPZ 7 znakov a všetky jej znaky sú veľké písmená A-Z alebo číslice
+        if (!LicensePlates.isValid(licensePlate)) {
             throw new IllegalArgumentException("Invalid license plate");
         }
 
@@ -30,4 +26,8 @@ public class Vehicle {
     public int getOriginalValue() {
         return originalValue;
     }
+
+    public long getPackedLicensePlate() {
+        return LicensePlates.encode(licensePlate);
+    }
 }
@@ -0,0 +1,111 @@
+package payment;
+
+import java.time.LocalDateTime;
+
+final class ColumnarContractPaymentData extends ContractPaymentData {
+    private final PaymentDataStore store;
+    private final int slot;
+
+    ColumnarContractPaymentData(PaymentDataStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+    }
+
+    @Override
+    public int getPremium() {
+        return store.getPremium(slot);
+    }
+
+    @Override
+    public void setPremium(int premium) {
+        if (premium <= 0) {
+            throw new IllegalArgumentException("Premium amount cannot be negative.");
+        }
+        store.setPremium(slot, premium);
+    }
+
+    @Override
+    public void setOutstandingBalance(int outstandingBalance) {
+        store.setOutstandingBalance(slot, outstandingBalance);
+    }
+
+    @Override
+    public int getOutstandingBalance() {
+        return store.getOutstandingBalance(slot);
+    }
+
+    @Override
+    public void decreaseOutstandingBalance(int amount) {
+        store.setOutstandingBalance(slot, store.getOutstandingBalance(slot) - amount);
+    }
+
+    // Úložisko nepodporuje súbežný prístup, stačí obyčajný zápis
+    @Override
+    public int payOutstandingBalance(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount cannot be negative.");
+        }
+
+        int outstandingBalance = store.getOutstandingBalance(slot);
+        int paidAmount = outstandingBalance <= 0 ? 0 : Math.min(outstandingBalance, amount);
+        store.setOutstandingBalance(slot, outstandingBalance - paidAmount);
+        return paidAmount;
+    }
+
+    @Override
+    public long chargeDuePremiums(LocalDateTime time) {
+        long duePaymentCount = getDuePaymentCount(time);
+        if (duePaymentCount > 0) {
+            store.setOutstandingBalance(slot, store.getOutstandingBalance(slot)
+                    + (int) (store.getPremium(slot) * duePaymentCount));
+            updateNextPaymentTime(duePaymentCount);
+        }
+        return duePaymentCount;
+    }
+
+    @Override
+    public void setPremiumPaymentFrequency(PremiumPaymentFrequency premiumPaymentFrequency) {
+        if (premiumPaymentFrequency == null) {
+            throw new IllegalArgumentException("Premium payment frequency cannot be null.");
+        }
+        store.setPremiumPaymentFrequency(slot, premiumPaymentFrequency);
+    }
+
+    @Override
+    public PremiumPaymentFrequency getPremiumPaymentFrequency() {
+        return store.getPremiumPaymentFrequency(slot);
+    }
+
+    @Override
+    public LocalDateTime getNextPaymentTime() {
+        return store.getNextPaymentTime(slot);
+    }
+
+    @Override
+    public void updateNextPaymentTime() {
+        updateNextPaymentTime(1);
+    }
+
+    @Override
+    public void updateNextPaymentTime(long periodCount) {
+        if (periodCount < 0) {
+            throw new IllegalArgumentException("Period count cannot be negative.");
+        }
+
+        int months = store.getPremiumPaymentFrequency(slot).getValueInMonths();
+        store.setNextPaymentTime(slot, plusPeriods(store.getNextPaymentTime(slot), months, periodCount));
+    }
+
+    @Override
+    public long getDuePaymentCount(LocalDateTime time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Time cannot be null.");
+        }
+
+        // Nesplatnú zmluvu rozpoznáme priamo z poľa bez vytvárania LocalDateTime
+        if (store.isNextPaymentAfter(slot, time)) {
+            return 0;
+        }
+        return super.getDuePaymentCount(time);
+    }
+}
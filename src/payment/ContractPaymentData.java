@@ -1,15 +1,51 @@
 package payment;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
 
+/* Zostatok sa mení atomicky cez VarHandle, platby preto nepotrebujú zámok. Predpis poistného mení
+zostatok a termín splatnosti spolu, počas zmeny je verzia nepárna a čitateľ oboch hodnôt sa zopakuje */
 public class ContractPaymentData {
+    private static final VarHandle OUTSTANDING_BALANCE;
+    private static final VarHandle NEXT_PAYMENT_TIME;
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            OUTSTANDING_BALANCE = lookup.findVarHandle(ContractPaymentData.class, "outstandingBalance", int.class);
+            NEXT_PAYMENT_TIME = lookup.findVarHandle(ContractPaymentData.class, "nextPaymentTime",
+                    LocalDateTime.class);
+            VERSION = lookup.findVarHandle(ContractPaymentData.class, "version", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private int premium;
     private PremiumPaymentFrequency premiumPaymentFrequency;
     private LocalDateTime nextPaymentTime;
     private int outstandingBalance;
+    private int version;
 
     public ContractPaymentData(int premium, PremiumPaymentFrequency premiumPaymentFrequency,
                                LocalDateTime nextPaymentTime, int outstandingBalance) {
+        validate(premium, premiumPaymentFrequency, nextPaymentTime);
+
+        this.premium = premium;
+        this.premiumPaymentFrequency = premiumPaymentFrequency;
+        this.nextPaymentTime = nextPaymentTime;
+        this.outstandingBalance = outstandingBalance;
+    }
+
+    // Pre pohľady nad PaymentDataStore, ktoré vlastné atribúty nepoužívajú
+    ContractPaymentData() {
+    }
+
+    static void validate(int premium, PremiumPaymentFrequency premiumPaymentFrequency, LocalDateTime nextPaymentTime) {
         // Či nie je premium kladný
         if (premium <= 0) {
             throw new IllegalArgumentException("Premium amount cannot be negative.");
@@ -24,11 +60,6 @@ public class ContractPaymentData {
         if (nextPaymentTime == null) {
             throw new IllegalArgumentException("Next payment time cannot be null.");
         }
-
-        this.premium = premium;
-        this.premiumPaymentFrequency = premiumPaymentFrequency;
-        this.nextPaymentTime = nextPaymentTime;
-        this.outstandingBalance = outstandingBalance;
     }
 
     public int getPremium() {
@@ -43,15 +74,84 @@ public class ContractPaymentData {
     }
 
     public void setOutstandingBalance(int outstandingBalance) {
-        this.outstandingBalance = outstandingBalance;
+        OUTSTANDING_BALANCE.setVolatile(this, outstandingBalance);
     }
 
     public int getOutstandingBalance() {
-        return outstandingBalance;
+        return (int) OUTSTANDING_BALANCE.getVolatile(this);
     }
 
     public void decreaseOutstandingBalance(int amount) {
-        this.outstandingBalance -= amount;
+        OUTSTANDING_BALANCE.getAndAdd(this, -amount);
+    }
+
+    // Uhradí najviac amount z kladného nedoplatku a vráti uhradenú sumu
+    public int payOutstandingBalance(int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount cannot be negative.");
+        }
+
+        while (true) {
+            int outstandingBalance = (int) OUTSTANDING_BALANCE.getVolatile(this);
+            if (outstandingBalance <= 0 || amount == 0) {
+                return 0;
+            }
+
+            int paidAmount = Math.min(outstandingBalance, amount);
+            if (OUTSTANDING_BALANCE.compareAndSet(this, outstandingBalance, outstandingBalance - paidAmount)) {
+                return paidAmount;
+            }
+        }
+    }
+
+    /* Pripíše poistné za všetky termíny splatnosti pred časom time alebo zhodné s ním a posunie termín
+    splatnosti, vráti počet zaúčtovaných období. Súbežné predpisy tej istej zmluvy sa vystriedajú */
+    public long chargeDuePremiums(LocalDateTime time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Time cannot be null.");
+        }
+
+        int writeVersion = beginWrite();
+        try {
+            long duePaymentCount = countDuePayments(nextPaymentTime, premiumPaymentFrequency.getValueInMonths(), time);
+            if (duePaymentCount > 0) {
+                OUTSTANDING_BALANCE.getAndAdd(this, (int) (premium * duePaymentCount));
+                NEXT_PAYMENT_TIME.setRelease(this, plusPeriods(nextPaymentTime,
+                        premiumPaymentFrequency.getValueInMonths(), duePaymentCount));
+            }
+            return duePaymentCount;
+        } finally {
+            VERSION.setRelease(this, writeVersion + 2);
+        }
+    }
+
+    /* Verzia pre čítanie zostatku spolu s termínom splatnosti, počas predpisu poistného sa čaká na jeho koniec.
+    Ak validateReadVersion po prečítaní vráti false, hodnoty sa treba prečítať znova */
+    public int beginRead() {
+        int readVersion;
+        while (((readVersion = (int) VERSION.getAcquire(this)) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return readVersion;
+    }
+
+    public boolean validateRead(int readVersion) {
+        // Čítania pred kontrolou sa nesmú presunúť za ňu
+        VarHandle.acquireFence();
+        return (int) VERSION.getVolatile(this) == readVersion;
+    }
+
+    // Nepárna verzia vylúči ďalšie predpisy aj posuny termínu, platby zostatok menia atomicky aj počas nej
+    private int beginWrite() {
+        while (true) {
+            int currentVersion = (int) VERSION.getVolatile(this);
+            if ((currentVersion & 1) == 0 && VERSION.compareAndSet(this, currentVersion, currentVersion + 1)) {
+                // Nepárna verzia musí byť viditeľná skôr ako zmenené hodnoty
+                VarHandle.storeStoreFence();
+                return currentVersion;
+            }
+            Thread.onSpinWait();
+        }
     }
 
     public void setPremiumPaymentFrequency(PremiumPaymentFrequency premiumPaymentFrequency) {
@@ -66,11 +166,81 @@ public class ContractPaymentData {
     }
 
     public LocalDateTime getNextPaymentTime() {
-        return nextPaymentTime;
+        return (LocalDateTime) NEXT_PAYMENT_TIME.getAcquire(this);
     }
 
     public void updateNextPaymentTime() {
-        int monthsToAdd = premiumPaymentFrequency.getValueInMonths();
-        nextPaymentTime = nextPaymentTime.plusMonths(monthsToAdd);
+        int writeVersion = beginWrite();
+        try {
+            int monthsToAdd = premiumPaymentFrequency.getValueInMonths();
+            NEXT_PAYMENT_TIME.setRelease(this, nextPaymentTime.plusMonths(monthsToAdd));
+        } finally {
+            VERSION.setRelease(this, writeVersion + 2);
+        }
+    }
+
+    public void updateNextPaymentTime(long periodCount) {
+        if (periodCount < 0) {
+            throw new IllegalArgumentException("Period count cannot be negative.");
+        }
+
+        int writeVersion = beginWrite();
+        try {
+            NEXT_PAYMENT_TIME.setRelease(this, plusPeriods(nextPaymentTime, premiumPaymentFrequency.getValueInMonths(),
+                    periodCount));
+        } finally {
+            VERSION.setRelease(this, writeVersion + 2);
+        }
+    }
+
+    public long getDuePaymentCount(LocalDateTime time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Time cannot be null.");
+        }
+        return countDuePayments(getNextPaymentTime(), getPremiumPaymentFrequency().getValueInMonths(), time);
+    }
+
+    static long countDuePayments(LocalDateTime nextPaymentTime, int months, LocalDateTime time) {
+        long monthsBetween = getMonthIndex(time.getYear(), time.getMonthValue())
+                - getMonthIndex(nextPaymentTime.getYear(), nextPaymentTime.getMonthValue());
+
+        // Či je najbližší termín splatnosti až v neskoršom mesiaci
+        if (monthsBetween < 0) {
+            return 0;
+        }
+
+        /* Posledný možný splatný termín je v mesiaci času time alebo skôr,
+        o jeho splatnosti rozhoduje už len deň a čas */
+        long lastPeriod = monthsBetween / months;
+        LocalDateTime lastPaymentTime = plusPeriods(nextPaymentTime, months, lastPeriod);
+        return lastPaymentTime.isAfter(time) ? lastPeriod : lastPeriod + 1;
+    }
+
+    static LocalDateTime plusPeriods(LocalDateTime start, int months, long periodCount) {
+        LocalDateTime result = start.plusMonths(months * periodCount);
+        int day = start.getDayOfMonth();
+
+        // Deň z prvých 28 sa opakovaným pripočítavaním mesiacov nikdy neskráti
+        if (day <= 28) {
+            return result;
+        }
+
+        /* Opakované plusMonths skracuje deň na dĺžku každého navštíveného mesiaca.
+        Mesiace sa opakujú s periódou jedného roka, a medzi dvoma februármi
+        po sebe je aspoň jeden neprestupný, preto stačia prvé dva roky */
+        long startMonthIndex = getMonthIndex(start.getYear(), start.getMonthValue());
+        long visitedPeriods = Math.min(periodCount, 24 / months);
+        for (long period = 1; period <= visitedPeriods && day > 28; period++) {
+            long monthIndex = startMonthIndex + period * months;
+            int year = (int) Math.floorDiv(monthIndex, 12);
+            Month month = Month.of(Math.floorMod(monthIndex, 12) + 1);
+            day = Math.min(day, month.length(Year.isLeap(year)));
+        }
+
+        return day < result.getDayOfMonth() ? result.withDayOfMonth(day) : result;
+    }
+
+    private static long getMonthIndex(int year, int month) {
+        return (long) year * 12 + month - 1;
     }
 }
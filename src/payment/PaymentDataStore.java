@@ -0,0 +1,108 @@
+package payment;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+public class PaymentDataStore {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final PremiumPaymentFrequency[] FREQUENCIES = PremiumPaymentFrequency.values();
+
+    private int[] premiums;
+    private byte[] frequencyOrdinals;
+    private long[] nextPaymentEpochSeconds;
+    private int[] nextPaymentNanos;
+    private int[] outstandingBalances;
+    private int size;
+
+    public PaymentDataStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PaymentDataStore(int initialCapacity) {
+        // Či nie je počiatočná kapacita kladná
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be greater than 0.");
+        }
+
+        this.premiums = new int[initialCapacity];
+        this.frequencyOrdinals = new byte[initialCapacity];
+        this.nextPaymentEpochSeconds = new long[initialCapacity];
+        this.nextPaymentNanos = new int[initialCapacity];
+        this.outstandingBalances = new int[initialCapacity];
+        this.size = 0;
+    }
+
+    public ContractPaymentData create(int premium, PremiumPaymentFrequency premiumPaymentFrequency,
+                                      LocalDateTime nextPaymentTime, int outstandingBalance) {
+        ContractPaymentData.validate(premium, premiumPaymentFrequency, nextPaymentTime);
+
+        if (size == premiums.length) {
+            grow();
+        }
+
+        int slot = size++;
+        premiums[slot] = premium;
+        frequencyOrdinals[slot] = (byte) premiumPaymentFrequency.ordinal();
+        setNextPaymentTime(slot, nextPaymentTime);
+        outstandingBalances[slot] = outstandingBalance;
+
+        return new ColumnarContractPaymentData(this, slot);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = premiums.length + Math.max(1, premiums.length >> 1);
+        premiums = Arrays.copyOf(premiums, capacity);
+        frequencyOrdinals = Arrays.copyOf(frequencyOrdinals, capacity);
+        nextPaymentEpochSeconds = Arrays.copyOf(nextPaymentEpochSeconds, capacity);
+        nextPaymentNanos = Arrays.copyOf(nextPaymentNanos, capacity);
+        outstandingBalances = Arrays.copyOf(outstandingBalances, capacity);
+    }
+
+    int getPremium(int slot) {
+        return premiums[slot];
+    }
+
+    void setPremium(int slot, int premium) {
+        premiums[slot] = premium;
+    }
+
+    PremiumPaymentFrequency getPremiumPaymentFrequency(int slot) {
+        return FREQUENCIES[frequencyOrdinals[slot]];
+    }
+
+    void setPremiumPaymentFrequency(int slot, PremiumPaymentFrequency premiumPaymentFrequency) {
+        frequencyOrdinals[slot] = (byte) premiumPaymentFrequency.ordinal();
+    }
+
+    LocalDateTime getNextPaymentTime(int slot) {
+        return LocalDateTime.ofEpochSecond(nextPaymentEpochSeconds[slot], nextPaymentNanos[slot], ZoneOffset.UTC);
+    }
+
+    void setNextPaymentTime(int slot, LocalDateTime nextPaymentTime) {
+        nextPaymentEpochSeconds[slot] = nextPaymentTime.toEpochSecond(ZoneOffset.UTC);
+        nextPaymentNanos[slot] = nextPaymentTime.getNano();
+    }
+
+    boolean isNextPaymentAfter(int slot, LocalDateTime time) {
+        long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+        long nextPaymentEpochSecond = nextPaymentEpochSeconds[slot];
+
+        if (nextPaymentEpochSecond != epochSecond) {
+            return nextPaymentEpochSecond > epochSecond;
+        }
+        return nextPaymentNanos[slot] > time.getNano();
+    }
+
+    int getOutstandingBalance(int slot) {
+        return outstandingBalances[slot];
+    }
+
+    void setOutstandingBalance(int slot, int outstandingBalance) {
+        outstandingBalances[slot] = outstandingBalance;
+    }
+}
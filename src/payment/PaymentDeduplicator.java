@@ -0,0 +1,147 @@
+package payment;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/* Pamätá si aspoň posledných windowSize referencií platieb, najviac dvojnásobok. Každá generácia má
+Bloomov filter, ktorý novú referenciu zvyčajne vylúči bez prístupu k presnej množine */
+public class PaymentDeduplicator {
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 20;
+
+    private static final int GENERATIONS = 2;
+
+    // Filter je blokový, všetky bity jednej referencie ležia v jednom 64-bitovom slove
+    private static final int BITS_PER_REFERENCE = 16;
+    private static final int BITS_PER_PROBE = 6;
+    private static final int PROBES = 4;
+
+    private final int windowSize;
+    private final Generation[] generations;
+    private int currentGeneration;
+
+    public PaymentDeduplicator(int windowSize) {
+        // Či nie je windowSize kladné
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be greater than 0.");
+        }
+
+        this.windowSize = windowSize;
+        this.generations = new Generation[GENERATIONS];
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public synchronized boolean contains(String reference) {
+        // Či je reference null
+        if (reference == null) {
+            throw new IllegalArgumentException("Reference cannot be null.");
+        }
+        return contains(reference, hash(reference));
+    }
+
+    // Vráti false, ak referencia v okne už je, inak si ju zapamätá
+    public synchronized boolean register(String reference) {
+        // Či je reference null
+        if (reference == null) {
+            throw new IllegalArgumentException("Reference cannot be null.");
+        }
+
+        long hash = hash(reference);
+        if (contains(reference, hash)) {
+            return false;
+        }
+
+        Generation generation = generations[currentGeneration];
+        if (generation == null || generation.references.size() == windowSize) {
+            // Najstaršia generácia sa vyprázdni a stane sa aktuálnou
+            currentGeneration = (currentGeneration + 1) % GENERATIONS;
+            generation = generations[currentGeneration];
+            if (generation == null) {
+                generation = new Generation(windowSize);
+                generations[currentGeneration] = generation;
+            } else {
+                generation.clear();
+            }
+        }
+        generation.add(reference, hash);
+        return true;
+    }
+
+    // Zabudne referenciu platby, ktorá sa nakoniec nepripísala, bity filtra ostávajú nastavené
+    public synchronized void forget(String reference) {
+        // Či je reference null
+        if (reference == null) {
+            throw new IllegalArgumentException("Reference cannot be null.");
+        }
+
+        for (Generation generation : generations) {
+            if (generation != null) {
+                generation.references.remove(reference);
+            }
+        }
+    }
+
+    private boolean contains(String reference, long hash) {
+        for (Generation generation : generations) {
+            if (generation != null && generation.mightContain(hash) && generation.references.contains(reference)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // FNV-1a nad znakmi a dorovnanie bitov, String.hashCode má len 32 bitov
+    private static long hash(String reference) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < reference.length(); i++) {
+            hash = (hash ^ reference.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+
+    private static final class Generation {
+        private final long[] bits;
+        private final int wordMask;
+        private Set<String> references;
+
+        Generation(int capacity) {
+            // Počet slov zaokrúhlime nahor na mocninu dvoch, slovo sa potom vyberá maskou
+            int minimumWords = (int) Math.min(1 << 30, Math.max(2L, (long) capacity * BITS_PER_REFERENCE / 64));
+            int words = Integer.highestOneBit(minimumWords - 1) << 1;
+            this.bits = new long[words];
+            this.wordMask = words - 1;
+            this.references = new HashSet<>();
+        }
+
+        void add(String reference, long hash) {
+            bits[(int) hash & wordMask] |= mask(hash);
+            references.add(reference);
+        }
+
+        boolean mightContain(long hash) {
+            long mask = mask(hash);
+            return (bits[(int) hash & wordMask] & mask) == mask;
+        }
+
+        void clear() {
+            Arrays.fill(bits, 0);
+            references = new HashSet<>();
+        }
+
+        // Bity v slove berieme z horných 32 bitov hashu, spodné bity vyberajú slovo
+        private static long mask(long hash) {
+            long mask = 0;
+            for (int i = 0; i < PROBES; i++) {
+                mask |= 1L << (hash >>> 32 + i * BITS_PER_PROBE);
+            }
+            return mask;
+        }
+    }
+}
@@ -1,20 +1,33 @@
 package payment;
 
+import company.ContractSlotMap;
 import company.InsuranceCompany;
+import company.WriteAheadLog;
 import contracts.AbstractContract;
 import contracts.InvalidContractException;
 import contracts.MasterVehicleContract;
 import contracts.SingleVehicleContract;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class PaymentHandler {
     private final Map<AbstractContract, Set<PaymentInstance>> paymentHistory;
     private final InsuranceCompany insurer;
+    private final PaymentDeduplicator deduplicator;
+
+    // Fronty platieb rámcových zmlúv v režime spájania, null ak je režim vypnutý
+    private volatile Map<MasterVehicleContract, PaymentCombiner> paymentCombiners;
 
     public PaymentHandler(InsuranceCompany insurer) {
         // Či je insurer null
@@ -23,31 +36,42 @@ public class PaymentHandler {
         }
 
         this.insurer = insurer;
-        this.paymentHistory = new HashMap<>();
+        this.paymentHistory = new ContractSlotMap<>(insurer);
+        this.deduplicator = new PaymentDeduplicator(PaymentDeduplicator.DEFAULT_WINDOW_SIZE);
     }
 
     public Map<AbstractContract, Set<PaymentInstance>> getPaymentHistory() {
         return paymentHistory;
     }
 
+    public PaymentDeduplicator getDeduplicator() {
+        return deduplicator;
+    }
+
+    /* Súbežné platby tej istej rámcovej zmluvy sa zaradia do fronty a jedno z čakajúcich vlákien ich
+    rozdelí medzi dcérske zmluvy naraz, ostatné vlákna len čakajú na svoj výsledok */
+    public synchronized void enablePaymentCombining() {
+        if (paymentCombiners == null) {
+            paymentCombiners = new ConcurrentHashMap<>();
+        }
+    }
+
+    // Platby, ktoré už čakajú vo fronte, sa dokončia
+    public synchronized void disablePaymentCombining() {
+        paymentCombiners = null;
+    }
+
+    public boolean isPaymentCombiningEnabled() {
+        return paymentCombiners != null;
+    }
+
     private int payOutstandingBalances(Set<SingleVehicleContract> childContracts, int amount) {
         for (SingleVehicleContract childContract : childContracts) {
             if (childContract.isActive()) {
-                ContractPaymentData paymentData = childContract.getContractPaymentData();
-                int outstandingBalance = paymentData.getOutstandingBalance();
-
-                // Či má zmluva nedoplatok
-                if (outstandingBalance > 0) {
-                    // Či je dostatok financii
-                    if (amount >= outstandingBalance) {
-                        amount -= outstandingBalance;
-                        paymentData.setOutstandingBalance(0);
-                    } else {
-                        // Znížime nedoplatok o zostávajúcu sumu
-                        paymentData.decreaseOutstandingBalance(amount);
-                        amount = 0;
-                        break;
-                    }
+                // Nedoplatok uhradíme atomicky, súbežný predpis poistného sa nestratí
+                amount -= childContract.getContractPaymentData().payOutstandingBalance(amount);
+                if (amount == 0) {
+                    break;
                 }
             }
         }
@@ -56,51 +80,226 @@ public class PaymentHandler {
 
     private void createPrepayments(Set<SingleVehicleContract> childContracts, int amount) {
         // Či sú financie na úhradu
-        while (amount > 0) {
-            boolean anyPaymentMade = false;
-
-            for (SingleVehicleContract childContract : childContracts) {
-                if (childContract.isActive()) {
-                    ContractPaymentData paymentData = childContract.getContractPaymentData();
-                    int premium = paymentData.getPremium();
-
-                    // Či je dostatok financii
-                    if (amount >= premium) {
-                        paymentData.decreaseOutstandingBalance(premium);
-                        amount -= premium;
-                        anyPaymentMade = true;
-                    } else if (amount > 0) {
-                        // Znížime nedoplatok o zostávajúcu sumu
-                        paymentData.decreaseOutstandingBalance(amount);
-                        amount = 0;
-                        anyPaymentMade = true;
-                        break;
-                    }
-                }
+        if (amount <= 0) {
+            return;
+        }
+
+        /* Súčet poistného aktívnych zmlúv, ktorý pokryje jedno úplné kolo. Aktívne zmluvy si
+        zapamätáme, aby súbežná deaktivácia nezmenila rozdelenie už vypočítaných kôl */
+        List<SingleVehicleContract> activeContracts = new ArrayList<>(childContracts.size());
+        long premiumsPerRound = 0;
+        for (SingleVehicleContract childContract : childContracts) {
+            if (childContract.isActive()) {
+                activeContracts.add(childContract);
+                premiumsPerRound += childContract.getContractPaymentData().getPremium();
             }
+        }
+
+        // Či neexistuje aktívna zmluva, na ktorú by sa dalo zaplatiť
+        if (premiumsPerRound == 0) {
+            return;
+        }
+
+        // Všetky úplné kolá pripíšeme naraz, zostávajúca suma je menšia ako jedno kolo
+        int fullRounds = (int) (amount / premiumsPerRound);
+        amount -= (int) (fullRounds * premiumsPerRound);
+
+        for (SingleVehicleContract childContract : activeContracts) {
+            ContractPaymentData paymentData = childContract.getContractPaymentData();
+            int premium = paymentData.getPremium();
 
-            if (!anyPaymentMade) {
+            // Či je dostatok financii
+            if (amount >= premium) {
+                paymentData.decreaseOutstandingBalance(fullRounds * premium + premium);
+                amount -= premium;
+            } else if (amount > 0) {
+                // Znížime nedoplatok o úplné kolá a zostávajúcu sumu
+                paymentData.decreaseOutstandingBalance(fullRounds * premium + amount);
+                amount = 0;
+            } else if (fullRounds > 0) {
+                paymentData.decreaseOutstandingBalance(fullRounds * premium);
+            }
+        }
+    }
+
+    /* Platby rámcovej zmluvy v danom poradí, výsledok je rovnaký ako pri postupnom volaní
+    payOutstandingBalances a createPrepayments. Po prvej platbe, ktorej po úhrade nedoplatkov niečo
+    zostane, už žiadna aktívna zmluva nedoplatok nemá, ďalšie platby sú teda celé preplatkami */
+    private void allocateMasterPayments(Set<SingleVehicleContract> childContracts, int[] amounts, int from, int to) {
+        int index = from;
+        while (index < to) {
+            int amount = payOutstandingBalances(childContracts, amounts[index++]);
+            if (amount > 0) {
+                createPrepayments(childContracts, amount);
                 break;
             }
         }
+
+        while (index < to) {
+            // Súčet dávky musí zostať v rozsahu int, zníženie zostatku jednej zmluvy ho nepresiahne
+            int end = index;
+            long totalAmount = 0;
+            while (end < to && totalAmount + amounts[end] <= Integer.MAX_VALUE) {
+                totalAmount += amounts[end++];
+            }
+            createPrepayments(childContracts, amounts, index, end);
+            index = end;
+        }
+    }
+
+    /* Preplatky viacerých platieb jedným prechodom cez dcérske zmluvy. Zvyšok platby po úplných kolách
+    pokryje celé poistné zmlúv z prefixu, ktorého súčet poistného nepresiahne zvyšok, a nasledujúca
+    zmluva dostane zvyšok z rozdielu. Dĺžku prefixu nájdeme binárnym vyhľadávaním */
+    private void createPrepayments(Set<SingleVehicleContract> childContracts, int[] amounts, int from, int to) {
+        List<ContractPaymentData> activePaymentData = new ArrayList<>(childContracts.size());
+        for (SingleVehicleContract childContract : childContracts) {
+            if (childContract.isActive()) {
+                activePaymentData.add(childContract.getContractPaymentData());
+            }
+        }
+
+        // premiumPrefixSums[i] je súčet poistného prvých i aktívnych zmlúv
+        int childCount = activePaymentData.size();
+        int[] premiums = new int[childCount];
+        long[] premiumPrefixSums = new long[childCount + 1];
+        for (int i = 0; i < childCount; i++) {
+            premiums[i] = activePaymentData.get(i).getPremium();
+            premiumPrefixSums[i + 1] = premiumPrefixSums[i] + premiums[i];
+        }
+
+        // Či neexistuje aktívna zmluva, na ktorú by sa dalo zaplatiť
+        long premiumsPerRound = premiumPrefixSums[childCount];
+        if (premiumsPerRound == 0) {
+            return;
+        }
+
+        long fullRounds = 0;
+        int[] coveredStarts = new int[childCount + 1];
+        long[] remainders = new long[childCount];
+        for (int i = from; i < to; i++) {
+            fullRounds += amounts[i] / premiumsPerRound;
+            long remainder = amounts[i] % premiumsPerRound;
+
+            // Počet zmlúv, ktorých celé poistné sa zo zvyšku pokryje
+            int coveredCount = Arrays.binarySearch(premiumPrefixSums, remainder);
+            coveredCount = coveredCount >= 0 ? coveredCount : -coveredCount - 2;
+
+            // Rozdielové pole: zmluvy 0 až coveredCount - 1 dostanú celé poistné
+            coveredStarts[0]++;
+            coveredStarts[coveredCount]--;
+            if (coveredCount < childCount) {
+                remainders[coveredCount] += remainder - premiumPrefixSums[coveredCount];
+            }
+        }
+
+        int coveredPayments = 0;
+        for (int i = 0; i < childCount; i++) {
+            coveredPayments += coveredStarts[i];
+            long decrease = (fullRounds + coveredPayments) * premiums[i] + remainders[i];
+            if (decrease > 0) {
+                activePaymentData.get(i).decreaseOutstandingBalance((int) decrease);
+            }
+        }
+    }
+
+    private Set<PaymentInstance> getPayments(AbstractContract contract) {
+        // Ak zmluva ešte nemá záznamy v histórii platieb, vytvorí sa nová kniha platieb usporiadaná podľa času
+        return paymentHistory.computeIfAbsent(contract, c -> new PaymentLedger());
+    }
+
+    private static void appendPayment(Set<PaymentInstance> payments, LocalDateTime paymentTime, int amount) {
+        if (payments instanceof PaymentLedger ledger) {
+            ledger.append(paymentTime, amount);
+        } else {
+            payments.add(new PaymentInstance(paymentTime, amount));
+        }
     }
 
     private void recordPayment(AbstractContract contract, int amount) {
         LocalDateTime paymentTime = this.insurer.getCurrentTime();
-        PaymentInstance paymentInstance = new PaymentInstance(paymentTime, amount);
-
-        // Či zmluva ešte nemá žiadne záznamy v histórii platieb
-        if (!paymentHistory.containsKey(contract)) {
-            // Vytvoríme novú množinu usporiadanú podľa času
-            Set<PaymentInstance> payments = new TreeSet<>();
-            payments.add(paymentInstance);
-            paymentHistory.put(contract, payments);
-        } else {
-            // Ak už zmluva má históriu platieb, pridáme novú platbu do existujúcej množiny
-            paymentHistory.get(contract).add(paymentInstance);
+        Set<PaymentInstance> payments = getPayments(contract);
+
+        synchronized (payments) {
+            appendPayment(payments, paymentTime, amount);
         }
     }
 
+    private void recordPayments(AbstractContract contract, LocalDateTime paymentTime, int[] amounts, int from,
+                                int to) {
+        Set<PaymentInstance> payments = getPayments(contract);
+
+        synchronized (payments) {
+            for (int i = from; i < to; i++) {
+                appendPayment(payments, paymentTime, amounts[i]);
+            }
+        }
+    }
+
+    // Platba sa zapíše do logu skôr, než sa pripíše, pri chybe logu sa jej referencia zabudne
+    private void logPayment(AbstractContract contract, int amount, String reference) {
+        WriteAheadLog writeAheadLog = insurer.getWriteAheadLog();
+        if (writeAheadLog == null) {
+            return;
+        }
+
+        try {
+            writeAheadLog.logPayment(contract.getContractNumber(), amount, reference);
+        } catch (RuntimeException e) {
+            if (reference != null) {
+                deduplicator.forget(reference);
+            }
+            throw e;
+        }
+    }
+
+    // Platby skupiny čakajú na fsync spolu
+    private void logPayments(AbstractContract[] contracts, int[] amounts, String[] references, int from, int to) {
+        WriteAheadLog writeAheadLog = insurer.getWriteAheadLog();
+        if (writeAheadLog == null) {
+            return;
+        }
+
+        try {
+            writeAheadLog.beginBatch();
+            try {
+                for (int i = from; i < to; i++) {
+                    writeAheadLog.logPayment(contracts[i].getContractNumber(), amounts[i], references[i]);
+                }
+            } finally {
+                writeAheadLog.endBatch();
+            }
+        } catch (RuntimeException e) {
+            for (int i = from; i < to; i++) {
+                if (references[i] != null) {
+                    deduplicator.forget(references[i]);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /* Platby rámcových zmlúv sa zapíšu do logu a pripíšu pod zámkom poradia voči predpisu poistného, záznam sa
+    pridá pod monitorom rámcovej zmluvy a na fsync sa čaká až v endLoggedMasterPayments po uvoľnení oboch */
+    private Lock beginLoggedMasterPayments(WriteAheadLog writeAheadLog) {
+        if (writeAheadLog == null) {
+            return null;
+        }
+
+        writeAheadLog.beginBatch();
+        Lock masterPaymentLock = insurer.getMasterPaymentLock();
+        masterPaymentLock.lock();
+        return masterPaymentLock;
+    }
+
+    private void endLoggedMasterPayments(WriteAheadLog writeAheadLog, Lock masterPaymentLock) {
+        if (writeAheadLog == null) {
+            return;
+        }
+
+        masterPaymentLock.unlock();
+        writeAheadLog.endBatch();
+    }
+
     private void validatePaymentRequest(AbstractContract contract, int amount) {
         // Či je contract null
         if (contract == null) {
@@ -123,7 +322,24 @@ public class PaymentHandler {
         }
     }
 
+    private static void validateReference(String reference) {
+        // Či je reference null
+        if (reference == null) {
+            throw new IllegalArgumentException("Reference cannot be null.");
+        }
+    }
+
     public void pay(MasterVehicleContract contract, int amount) {
+        payMaster(contract, amount, null);
+    }
+
+    // Vráti false, ak platba s rovnakou referenciou už bola pripísaná
+    public boolean pay(MasterVehicleContract contract, int amount, String reference) {
+        validateReference(reference);
+        return payMaster(contract, amount, reference);
+    }
+
+    private boolean payMaster(MasterVehicleContract contract, int amount, String reference) {
         validatePaymentRequest(contract, amount);
 
         // Či neobsahuje žiadne dcérske zmluvy
@@ -131,24 +347,280 @@ public class PaymentHandler {
             throw new InvalidContractException("Master contract has no child contracts");
         }
 
+        // Opakovane doručená platba sa nepripíše
+        if (reference != null && !deduplicator.register(reference)) {
+            return false;
+        }
+
+        Map<MasterVehicleContract, PaymentCombiner> combiners = paymentCombiners;
+        if (combiners != null) {
+            combiners.computeIfAbsent(contract, PaymentCombiner::new).pay(amount, reference);
+            return true;
+        }
+
         Set<SingleVehicleContract> childContracts = contract.getChildContracts();
         int originalAmount = amount;
 
-        // Zostávajúcu suma po úhrade všetkých nedoplatkov
-        amount = payOutstandingBalances(childContracts, amount);
+        // Množinu dcérskych zmlúv chráni monitor rámcovej zmluvy, pod ním sa zapisuje aj log v poradí rozdelenia
+        WriteAheadLog writeAheadLog = insurer.getWriteAheadLog();
+        Lock masterPaymentLock = beginLoggedMasterPayments(writeAheadLog);
+        try {
+            synchronized (contract) {
+                logPayment(contract, amount, reference);
+
+                // Zostávajúcu suma po úhrade všetkých nedoplatkov
+                amount = payOutstandingBalances(childContracts, amount);
 
-        // Spotrebujeme celú zostávajúcu sumu
-        createPrepayments(childContracts, amount);
+                // Spotrebujeme celú zostávajúcu sumu
+                createPrepayments(childContracts, amount);
+            }
+        } finally {
+            endLoggedMasterPayments(writeAheadLog, masterPaymentLock);
+        }
 
         recordPayment(contract, originalAmount);
+        return true;
     }
 
     public void pay(AbstractContract contract, int amount) {
+        payContract(contract, amount, null);
+    }
+
+    // Vráti false, ak platba s rovnakou referenciou už bola pripísaná
+    public boolean pay(AbstractContract contract, int amount, String reference) {
+        validateReference(reference);
+        return payContract(contract, amount, reference);
+    }
+
+    private boolean payContract(AbstractContract contract, int amount, String reference) {
         validatePaymentRequest(contract, amount);
 
-        ContractPaymentData paymentData = contract.getContractPaymentData();
-        paymentData.decreaseOutstandingBalance(amount);
+        // Opakovane doručená platba sa nepripíše
+        if (reference != null && !deduplicator.register(reference)) {
+            return false;
+        }
+
+        logPayment(contract, amount, reference);
+        contract.getContractPaymentData().decreaseOutstandingBalance(amount);
 
         recordPayment(contract, amount);
+        return true;
+    }
+
+    private PaymentStatus validatePaymentRequest(PaymentRequest request) {
+        // Rovnaké kontroly ako pri jednotlivej platbe, chybný riadok však dávku nepreruší
+        if (request == null) {
+            return PaymentStatus.MISSING_REQUEST;
+        }
+
+        // Či je contract null
+        AbstractContract contract = request.getContract();
+        if (contract == null) {
+            return PaymentStatus.MISSING_CONTRACT;
+        }
+
+        // Či je amount nekladný
+        if (request.getAmount() <= 0) {
+            return PaymentStatus.INVALID_AMOUNT;
+        }
+
+        // Či je contract neaktívny
+        if (!contract.isActive()) {
+            return PaymentStatus.INACTIVE_CONTRACT;
+        }
+
+        // Či nejde o zmluvu poisťovateľa, ktorý prevádzkuje tento PaymentHandler
+        if (this.insurer != contract.getInsurer()) {
+            return PaymentStatus.FOREIGN_CONTRACT;
+        }
+
+        // Či rámcová zmluva neobsahuje žiadne dcérske zmluvy
+        if (contract instanceof MasterVehicleContract masterContract && masterContract.getChildContracts().isEmpty()) {
+            return PaymentStatus.NO_CHILD_CONTRACTS;
+        }
+
+        // Či platba s rovnakou referenciou už bola pripísaná, aj skôr v tej istej dávke
+        if (request.getReference() != null && !deduplicator.register(request.getReference())) {
+            return PaymentStatus.DUPLICATE_REFERENCE;
+        }
+        return PaymentStatus.ACCEPTED;
+    }
+
+    public PaymentStatus[] payAll(Collection<PaymentRequest> requests) {
+        // Či je requests null
+        if (requests == null) {
+            throw new IllegalArgumentException("Payment requests cannot be null.");
+        }
+
+        PaymentRequest[] rows = requests.toArray(new PaymentRequest[0]);
+        PaymentStatus[] statuses = new PaymentStatus[rows.length];
+
+        // Prijaté riadky zoradíme podľa slotu zmluvy a v rámci zmluvy podľa poradia v dávke
+        long[] acceptedRows = new long[rows.length];
+        int acceptedCount = 0;
+        for (int row = 0; row < rows.length; row++) {
+            statuses[row] = validatePaymentRequest(rows[row]);
+            if (statuses[row] == PaymentStatus.ACCEPTED) {
+                acceptedRows[acceptedCount++] = (long) rows[row].getContract().getSlot() << 32 | row;
+            }
+        }
+        Arrays.sort(acceptedRows, 0, acceptedCount);
+
+        AbstractContract[] contracts = new AbstractContract[acceptedCount];
+        int[] amounts = new int[acceptedCount];
+        String[] references = new String[acceptedCount];
+        for (int i = 0; i < acceptedCount; i++) {
+            contracts[i] = rows[(int) acceptedRows[i]].getContract();
+            amounts[i] = rows[(int) acceptedRows[i]].getAmount();
+            references[i] = rows[(int) acceptedRows[i]].getReference();
+        }
+
+        // Celá dávka sa zapíše do logu skôr, než sa pripíše prvá platba, na jeden fsync sa čaká po jej pripísaní
+        WriteAheadLog writeAheadLog = insurer.getWriteAheadLog();
+        Lock masterPaymentLock = beginLoggedMasterPayments(writeAheadLog);
+        try {
+            logPayments(contracts, amounts, references, 0, acceptedCount);
+
+            LocalDateTime paymentTime = insurer.getCurrentTime();
+            int groupStart = 0;
+            while (groupStart < acceptedCount) {
+                AbstractContract contract = contracts[groupStart];
+                int groupEnd = groupStart + 1;
+                while (groupEnd < acceptedCount && contracts[groupEnd] == contract) {
+                    groupEnd++;
+                }
+
+                applyPayments(contract, amounts, groupStart, groupEnd);
+                recordPayments(contract, paymentTime, amounts, groupStart, groupEnd);
+                groupStart = groupEnd;
+            }
+        } finally {
+            endLoggedMasterPayments(writeAheadLog, masterPaymentLock);
+        }
+
+        return statuses;
+    }
+
+    private void applyPayments(AbstractContract contract, int[] amounts, int from, int to) {
+        if (contract instanceof MasterVehicleContract masterContract) {
+            // Preplatky sa rozdeľujú vždy od prvej dcérskej zmluvy, platby rámcovej zmluvy preto nemožno sčítať
+            Set<SingleVehicleContract> childContracts = masterContract.getChildContracts();
+            synchronized (masterContract) {
+                allocateMasterPayments(childContracts, amounts, from, to);
+            }
+            return;
+        }
+
+        int totalAmount = 0;
+        for (int i = from; i < to; i++) {
+            totalAmount += amounts[i];
+        }
+
+        contract.getContractPaymentData().decreaseOutstandingBalance(totalAmount);
+    }
+
+    /* Spájanie platieb jednej rámcovej zmluvy. Kto získa rolu spájajúceho vlákna, prevezme všetky
+    čakajúce platby a spracuje ich jedným prechodom, ostatné vlákna nesúperia o monitor rámcovej zmluvy */
+    private final class PaymentCombiner {
+        private static final int MAX_COMBINED_PAYMENTS = 4096;
+        private static final long WAIT_NANOS = 20_000;
+
+        private final MasterVehicleContract contract;
+        private final ConcurrentLinkedQueue<CombinedPayment> pendingPayments;
+        private final ReentrantLock combinerLock;
+
+        // Prevzaté platby, používa ich len vlákno s rolou spájajúceho vlákna
+        private final List<CombinedPayment> payments;
+
+        PaymentCombiner(MasterVehicleContract contract) {
+            this.contract = contract;
+            this.pendingPayments = new ConcurrentLinkedQueue<>();
+            this.combinerLock = new ReentrantLock();
+            this.payments = new ArrayList<>();
+        }
+
+        void pay(int amount, String reference) {
+            CombinedPayment payment = new CombinedPayment(amount, reference, Thread.currentThread());
+            pendingPayments.add(payment);
+
+            while (!payment.done) {
+                if (combinerLock.tryLock()) {
+                    try {
+                        combine();
+                    } finally {
+                        combinerLock.unlock();
+                    }
+                } else {
+                    // Spájajúce vlákno nás zobudí, platbu zaradenú po jeho prevzatí fronty spracuje ďalšie
+                    LockSupport.parkNanos(this, WAIT_NANOS);
+                }
+            }
+
+            if (payment.error instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (payment.error instanceof Error error) {
+                throw error;
+            }
+        }
+
+        private void combine() {
+            CombinedPayment payment;
+            while (payments.size() < MAX_COMBINED_PAYMENTS && (payment = pendingPayments.poll()) != null) {
+                payments.add(payment);
+            }
+            if (payments.isEmpty()) {
+                return;
+            }
+
+            int count = payments.size();
+            AbstractContract[] contracts = new AbstractContract[count];
+            int[] amounts = new int[count];
+            String[] references = new String[count];
+            for (int i = 0; i < count; i++) {
+                contracts[i] = contract;
+                amounts[i] = payments.get(i).amount;
+                references[i] = payments.get(i).reference;
+            }
+
+            Throwable error = null;
+            try {
+                // Množinu dcérskych zmlúv chráni monitor rámcovej zmluvy
+                WriteAheadLog writeAheadLog = insurer.getWriteAheadLog();
+                Lock masterPaymentLock = beginLoggedMasterPayments(writeAheadLog);
+                try {
+                    synchronized (contract) {
+                        logPayments(contracts, amounts, references, 0, count);
+                        allocateMasterPayments(contract.getChildContracts(), amounts, 0, count);
+                    }
+                } finally {
+                    endLoggedMasterPayments(writeAheadLog, masterPaymentLock);
+                }
+                recordPayments(contract, insurer.getCurrentTime(), amounts, 0, count);
+            } catch (Throwable e) {
+                error = e;
+            }
+
+            for (CombinedPayment combinedPayment : payments) {
+                combinedPayment.error = error;
+                combinedPayment.done = true;
+                LockSupport.unpark(combinedPayment.thread);
+            }
+            payments.clear();
+        }
+    }
+
+    private static final class CombinedPayment {
+        private final int amount;
+        private final String reference;
+        private final Thread thread;
+        private Throwable error;
+        private volatile boolean done;
+
+        CombinedPayment(int amount, String reference, Thread thread) {
+            this.amount = amount;
+            this.reference = reference;
+            this.thread = thread;
+        }
     }
 }
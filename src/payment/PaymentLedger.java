@@ -0,0 +1,183 @@
+package payment;
+
+import java.time.LocalDateTime;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class PaymentLedger extends AbstractSet<PaymentInstance> {
+    private static final int DEFAULT_CAPACITY = 4;
+
+    // Časy sa neskopírujú, záznamy zdieľajú inštanciu currentTime poisťovne
+    private LocalDateTime[] paymentTimes;
+    private int[] amounts;
+    private int size;
+    private int modCount;
+
+    public PaymentLedger() {
+        this.paymentTimes = new LocalDateTime[DEFAULT_CAPACITY];
+        this.amounts = new int[DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+    public void append(LocalDateTime paymentTime, int paymentAmount) {
+        // Či je paymentTime null
+        if (paymentTime == null) {
+            throw new IllegalArgumentException("Payment time is null");
+        }
+
+        // Či nie je paymentAmount kladný
+        if (paymentAmount <= 0) {
+            throw new IllegalArgumentException("Payment amount must be greater than zero");
+        }
+
+        if (size == amounts.length) {
+            grow();
+        }
+
+        // Čas sa zvyčajne len posúva dopredu, vtedy stačí pripojiť záznam na koniec
+        int index = size;
+        if (size > 0 && paymentTimes[size - 1].isAfter(paymentTime)) {
+            index = findInsertionIndex(paymentTime);
+            System.arraycopy(paymentTimes, index, paymentTimes, index + 1, size - index);
+            System.arraycopy(amounts, index, amounts, index + 1, size - index);
+        }
+
+        paymentTimes[index] = paymentTime;
+        amounts[index] = paymentAmount;
+        size++;
+        modCount++;
+    }
+
+    public LocalDateTime getPaymentTime(int index) {
+        checkIndex(index);
+        return paymentTimes[index];
+    }
+
+    public int getPaymentAmount(int index) {
+        checkIndex(index);
+        return amounts[index];
+    }
+
+    public long getTotalAmount() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += amounts[i];
+        }
+        return total;
+    }
+
+    @Override
+    public boolean add(PaymentInstance paymentInstance) {
+        append(paymentInstance.getPaymentTime(), paymentInstance.getPaymentAmount());
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof PaymentInstance paymentInstance)) {
+            return false;
+        }
+
+        LocalDateTime paymentTime = paymentInstance.getPaymentTime();
+
+        // Záznamy s rovnakým časom ležia za sebou pred bodom vloženia
+        for (int i = findInsertionIndex(paymentTime) - 1; i >= 0 && paymentTimes[i].isEqual(paymentTime); i--) {
+            if (amounts[i] == paymentInstance.getPaymentAmount()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(paymentTimes, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<PaymentInstance> iterator() {
+        return new Iterator<>() {
+            private int cursor = 0;
+            private int lastReturned = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public PaymentInstance next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (cursor >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                lastReturned = cursor++;
+                return new PaymentInstance(paymentTimes[lastReturned], amounts[lastReturned]);
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+
+                removeAt(lastReturned);
+                cursor = lastReturned;
+                lastReturned = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    private void removeAt(int index) {
+        int moved = size - index - 1;
+        System.arraycopy(paymentTimes, index + 1, paymentTimes, index, moved);
+        System.arraycopy(amounts, index + 1, amounts, index, moved);
+        paymentTimes[--size] = null;
+        modCount++;
+    }
+
+    // Index prvého záznamu s neskorším časom, takže platby s rovnakým časom zostanú v poradí pridania
+    private int findInsertionIndex(LocalDateTime paymentTime) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (!paymentTimes[middle].isAfter(paymentTime)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    private void grow() {
+        int capacity = amounts.length * 2;
+        paymentTimes = Arrays.copyOf(paymentTimes, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+    }
+}
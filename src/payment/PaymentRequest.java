@@ -0,0 +1,34 @@
+package payment;
+
+import contracts.AbstractContract;
+
+// Jeden riadok dávky platieb, jeho platnosť overuje až PaymentHandler.payAll
+public class PaymentRequest {
+    private final AbstractContract contract;
+    private final int amount;
+
+    // Referencia platby z banky, riadok s už známou referenciou sa nepripíše, pri null sa duplicita nekontroluje
+    private final String reference;
+
+    public PaymentRequest(AbstractContract contract, int amount) {
+        this(contract, amount, null);
+    }
+
+    public PaymentRequest(AbstractContract contract, int amount, String reference) {
+        this.contract = contract;
+        this.amount = amount;
+        this.reference = reference;
+    }
+
+    public AbstractContract getContract() {
+        return contract;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+}
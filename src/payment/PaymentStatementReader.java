@@ -0,0 +1,423 @@
+package payment;
+
+import company.InsuranceCompany;
+import contracts.AbstractContract;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class PaymentStatementReader {
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    public static final int DEFAULT_MAX_PENDING_BATCHES = 4;
+
+    private static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+    private static final int MAX_FIELD_LENGTH = 256;
+    private static final int NO_FIELD = -1;
+
+    // Prázdna dávka označuje koniec súboru, nová inštancia, aby sa nezamenila so skutočnou dávkou
+    private static final List<PaymentRequest> END_OF_STATEMENT = new ArrayList<>(0);
+
+    private final boolean fixedWidth;
+    private final byte delimiter;
+    private final int contractNumberField;
+    private final int amountField;
+    private final int contractNumberLength;
+    private final int amountLength;
+    private final int referenceField;
+    private final int referenceLength;
+    private final int headerLines;
+    private final int windowSize;
+
+    private PaymentStatementReader(boolean fixedWidth, byte delimiter, int contractNumberField, int amountField,
+                                   int contractNumberLength, int amountLength, int referenceField,
+                                   int referenceLength, int headerLines, int windowSize) {
+        this.fixedWidth = fixedWidth;
+        this.delimiter = delimiter;
+        this.contractNumberField = contractNumberField;
+        this.amountField = amountField;
+        this.contractNumberLength = contractNumberLength;
+        this.amountLength = amountLength;
+        this.referenceField = referenceField;
+        this.referenceLength = referenceLength;
+        this.headerLines = headerLines;
+        this.windowSize = windowSize;
+    }
+
+    public static PaymentStatementReader csv(char delimiter, int contractNumberColumn, int amountColumn,
+                                             boolean hasHeader) {
+        return csv(delimiter, contractNumberColumn, amountColumn, NO_FIELD, hasHeader);
+    }
+
+    /* Stĺpce sa číslujú od 0, hlavičku výpisu preskočíme. Stĺpec referencie je voliteľný (-1), opakovane
+    doručený riadok s rovnakou referenciou PaymentHandler nepripíše */
+    public static PaymentStatementReader csv(char delimiter, int contractNumberColumn, int amountColumn,
+                                             int referenceColumn, boolean hasHeader) {
+        // Či oddeľovač nie je jednobajtový znak
+        if (delimiter == '"' || delimiter == '\r' || delimiter == '\n' || delimiter > 0x7F) {
+            throw new IllegalArgumentException("Delimiter must be a single-byte character.");
+        }
+
+        // Či sú stĺpce záporné alebo rovnaké
+        if (contractNumberColumn < 0 || amountColumn < 0 || referenceColumn < NO_FIELD
+                || contractNumberColumn == amountColumn || referenceColumn == contractNumberColumn
+                || referenceColumn == amountColumn) {
+            throw new IllegalArgumentException("Columns must be distinct and non-negative.");
+        }
+
+        return new PaymentStatementReader(false, (byte) delimiter, contractNumberColumn, amountColumn, 0, 0,
+                referenceColumn, 0, hasHeader ? 1 : 0, DEFAULT_WINDOW_SIZE);
+    }
+
+    public static PaymentStatementReader fixedWidth(int contractNumberOffset, int contractNumberLength,
+                                                    int amountOffset, int amountLength) {
+        return fixedWidth(contractNumberOffset, contractNumberLength, amountOffset, amountLength, NO_FIELD, 0);
+    }
+
+    // Polia sú určené posunom a dĺžkou v bajtoch, výplň medzerami sa odstráni, referencia je voliteľná (-1)
+    public static PaymentStatementReader fixedWidth(int contractNumberOffset, int contractNumberLength,
+                                                    int amountOffset, int amountLength,
+                                                    int referenceOffset, int referenceLength) {
+        boolean hasReference = referenceOffset != NO_FIELD;
+
+        // Či sú posuny záporné alebo dĺžky nekladné
+        if (contractNumberOffset < 0 || amountOffset < 0 || contractNumberLength <= 0 || amountLength <= 0
+                || hasReference && (referenceOffset < 0 || referenceLength <= 0)) {
+            throw new IllegalArgumentException("Field offsets must be non-negative and lengths positive.");
+        }
+
+        // Či sa polia prekrývajú
+        if (overlap(contractNumberOffset, contractNumberLength, amountOffset, amountLength) || hasReference
+                && (overlap(referenceOffset, referenceLength, contractNumberOffset, contractNumberLength)
+                || overlap(referenceOffset, referenceLength, amountOffset, amountLength))) {
+            throw new IllegalArgumentException("Fields cannot overlap.");
+        }
+
+        return new PaymentStatementReader(true, (byte) 0, contractNumberOffset, amountOffset, contractNumberLength,
+                amountLength, referenceOffset, referenceLength, 0, DEFAULT_WINDOW_SIZE);
+    }
+
+    private static boolean overlap(int firstOffset, int firstLength, int secondOffset, int secondLength) {
+        return firstOffset < secondOffset + secondLength && secondOffset < firstOffset + firstLength;
+    }
+
+    // Menšie okno mapovania, aby testy pokryli riadky na hranici okien
+    PaymentStatementReader withWindowSize(int windowSize) {
+        return new PaymentStatementReader(fixedWidth, delimiter, contractNumberField, amountField,
+                contractNumberLength, amountLength, referenceField, referenceLength, headerLines, windowSize);
+    }
+
+    public PaymentStatementSummary ingest(Path path, InsuranceCompany insurer) throws IOException {
+        return ingest(path, insurer, DEFAULT_BATCH_SIZE, DEFAULT_MAX_PENDING_BATCHES);
+    }
+
+    /* Súbor číta samostatné vlákno a dávky odovzdáva cez ohraničený front, platby pripisuje volajúce vlákno.
+    Keď PaymentHandler nestíha, čítanie na plnom fronte čaká, v pamäti je teda najviac maxPendingBatches + 2 dávok */
+    public PaymentStatementSummary ingest(Path path, InsuranceCompany insurer, int batchSize, int maxPendingBatches)
+            throws IOException {
+        // Či je path null
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null.");
+        }
+
+        // Či je insurer null
+        if (insurer == null) {
+            throw new IllegalArgumentException("Insurer cannot be null.");
+        }
+
+        // Či nie sú veľkosti kladné
+        if (batchSize <= 0 || maxPendingBatches <= 0) {
+            throw new IllegalArgumentException("Batch size and pending batches must be greater than 0.");
+        }
+
+        BlockingQueue<List<PaymentRequest>> batches = new ArrayBlockingQueue<>(maxPendingBatches);
+        StatementParser parser = new StatementParser(path, insurer, batchSize, batches);
+        Thread parserThread = new Thread(parser, "payment-statement-reader");
+        parserThread.setDaemon(true);
+        parserThread.start();
+
+        PaymentHandler handler = insurer.getHandler();
+        PaymentStatementSummary summary = new PaymentStatementSummary();
+        try {
+            List<PaymentRequest> batch;
+            while ((batch = batches.take()) != END_OF_STATEMENT) {
+                PaymentStatus[] statuses = handler.payAll(batch);
+                for (int i = 0; i < statuses.length; i++) {
+                    summary.count(statuses[i], batch.get(i).getAmount());
+                }
+            }
+            parserThread.join();
+        } catch (InterruptedException e) {
+            parserThread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Payment statement ingestion was interrupted.");
+        } catch (RuntimeException e) {
+            // Čítanie zastavíme, inak by navždy čakalo na plnom fronte
+            parserThread.interrupt();
+            throw e;
+        }
+
+        if (parser.failure instanceof IOException e) {
+            throw e;
+        }
+        if (parser.failure instanceof RuntimeException e) {
+            throw e;
+        }
+        summary.add(parser.rejectedRows);
+        return summary;
+    }
+
+    private final class StatementParser implements Runnable {
+        private final Path path;
+        private final InsuranceCompany insurer;
+        private final int batchSize;
+        private final BlockingQueue<List<PaymentRequest>> batches;
+        private final PaymentStatementSummary rejectedRows;
+        private final byte[] fieldBytes;
+        private List<PaymentRequest> batch;
+        private long skippedHeaderLines;
+        private Exception failure;
+
+        // Hranice polí aktuálneho riadku v okne, polia sa nekopírujú
+        private int contractNumberStart;
+        private int contractNumberEnd;
+        private int amountStart;
+        private int amountEnd;
+        private int referenceStart;
+        private int referenceEnd;
+
+        StatementParser(Path path, InsuranceCompany insurer, int batchSize,
+                        BlockingQueue<List<PaymentRequest>> batches) {
+            this.path = path;
+            this.insurer = insurer;
+            this.batchSize = batchSize;
+            this.batches = batches;
+            this.rejectedRows = new PaymentStatementSummary();
+            this.fieldBytes = new byte[MAX_FIELD_LENGTH];
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void run() {
+            try {
+                parse();
+                if (!batch.isEmpty()) {
+                    batches.put(batch);
+                }
+            } catch (InterruptedException e) {
+                // Spracovanie skončilo chybou na strane volajúceho, koniec už nikto nečaká
+                return;
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            }
+
+            try {
+                batches.put(END_OF_STATEMENT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Súbor mapujeme po oknách, riadok na konci okna sa načíta znova v nasledujúcom okne
+        private void parse() throws IOException, InterruptedException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                long position = 0;
+
+                while (position < size) {
+                    int length = (int) Math.min(windowSize, size - position);
+                    boolean lastWindow = position + length == size;
+                    MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                    int lineStart = 0;
+                    for (int i = 0; i < length; i++) {
+                        if (window.get(i) == '\n') {
+                            parseLine(window, lineStart, i);
+                            lineStart = i + 1;
+                        }
+                    }
+
+                    if (lastWindow) {
+                        if (lineStart < length) {
+                            parseLine(window, lineStart, length);
+                        }
+                        break;
+                    }
+
+                    // Či sa do okna nezmestí ani jeden celý riadok
+                    if (lineStart == 0) {
+                        throw new IOException("Statement line at byte " + position + " exceeds the mapping window.");
+                    }
+                    position += lineStart;
+                }
+            }
+        }
+
+        private void parseLine(MappedByteBuffer window, int start, int end) throws InterruptedException {
+            if (end > start && window.get(end - 1) == '\r') {
+                end--;
+            }
+
+            // Prázdne riadky sa nepočítajú
+            if (end == start) {
+                return;
+            }
+
+            if (skippedHeaderLines < headerLines) {
+                skippedHeaderLines++;
+                return;
+            }
+
+            boolean tokenized = fixedWidth ? sliceFixedWidth(start, end) : tokenizeCsv(window, start, end);
+
+            // Riadok bez stĺpca čísla zmluvy alebo sumy nemá platné hranice polí
+            if (!tokenized) {
+                rejectedRows.count(PaymentStatus.MALFORMED_ROW, 0);
+                return;
+            }
+
+            long amount = parseAmount(window);
+            contractNumberStart = trimStart(window, contractNumberStart, contractNumberEnd);
+            contractNumberEnd = trimEnd(window, contractNumberStart, contractNumberEnd);
+            referenceStart = trimStart(window, referenceStart, referenceEnd);
+            referenceEnd = trimEnd(window, referenceStart, referenceEnd);
+            int numberLength = contractNumberEnd - contractNumberStart;
+
+            // Či riadok nemá číslo zmluvy alebo celočíselnú sumu, prípadne má príliš dlhé pole
+            if (amount == Long.MIN_VALUE || numberLength == 0 || numberLength > MAX_FIELD_LENGTH
+                    || referenceEnd - referenceStart > MAX_FIELD_LENGTH) {
+                rejectedRows.count(PaymentStatus.MALFORMED_ROW, 0);
+                return;
+            }
+
+            AbstractContract contract = insurer.findContract(decode(window, contractNumberStart, contractNumberEnd));
+
+            // Či poisťovňa zmluvu s týmto číslom neeviduje
+            if (contract == null) {
+                rejectedRows.count(PaymentStatus.UNKNOWN_CONTRACT, 0);
+                return;
+            }
+
+            // Prázdna referencia znamená platbu bez kontroly opakovania
+            String reference = referenceEnd > referenceStart ? decode(window, referenceStart, referenceEnd) : null;
+            batch.add(new PaymentRequest(contract, (int) amount, reference));
+            if (batch.size() == batchSize) {
+                batches.put(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        private String decode(MappedByteBuffer window, int start, int end) {
+            window.get(start, fieldBytes, 0, end - start);
+            return new String(fieldBytes, 0, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        private boolean sliceFixedWidth(int start, int end) {
+            contractNumberStart = Math.min(start + contractNumberField, end);
+            contractNumberEnd = Math.min(contractNumberStart + contractNumberLength, end);
+            amountStart = Math.min(start + amountField, end);
+            amountEnd = Math.min(amountStart + amountLength, end);
+            referenceStart = referenceField != NO_FIELD ? Math.min(start + referenceField, end) : end;
+            referenceEnd = referenceField != NO_FIELD ? Math.min(referenceStart + referenceLength, end) : end;
+            return true;
+        }
+
+        // Oddeľovač v úvodzovkách nie je hranicou poľa
+        private boolean tokenizeCsv(MappedByteBuffer window, int start, int end) {
+            boolean contractNumberFound = false;
+            boolean amountFound = false;
+            boolean quoted = false;
+            int column = 0;
+            int fieldStart = start;
+
+            // Hranice z predchádzajúceho riadku môžu ležať za koncom tohto riadku
+            contractNumberStart = end;
+            contractNumberEnd = end;
+            amountStart = end;
+            amountEnd = end;
+            referenceStart = end;
+            referenceEnd = end;
+
+            for (int i = start; i <= end; i++) {
+                byte b = i < end ? window.get(i) : delimiter;
+                if (i < end && b == '"') {
+                    quoted = !quoted;
+                    continue;
+                }
+                if (b != delimiter || quoted && i < end) {
+                    continue;
+                }
+
+                if (column == contractNumberField) {
+                    contractNumberStart = fieldStart;
+                    contractNumberEnd = i;
+                    contractNumberFound = true;
+                } else if (column == amountField) {
+                    amountStart = fieldStart;
+                    amountEnd = i;
+                    amountFound = true;
+                } else if (column == referenceField) {
+                    referenceStart = fieldStart;
+                    referenceEnd = i;
+                }
+                column++;
+                fieldStart = i + 1;
+            }
+
+            return contractNumberFound && amountFound;
+        }
+
+        // Vráti Long.MIN_VALUE, ak pole neobsahuje celé číslo v rozsahu int
+        private long parseAmount(MappedByteBuffer window) {
+            int start = trimStart(window, amountStart, amountEnd);
+            int end = trimEnd(window, start, amountEnd);
+
+            boolean negative = start < end && window.get(start) == '-';
+            if (start < end && (negative || window.get(start) == '+')) {
+                start++;
+            }
+            if (start == end) {
+                return Long.MIN_VALUE;
+            }
+
+            long amount = 0;
+            for (int i = start; i < end; i++) {
+                int digit = window.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return Long.MIN_VALUE;
+                }
+                amount = amount * 10 + digit;
+                if (amount > Integer.MAX_VALUE) {
+                    return Long.MIN_VALUE;
+                }
+            }
+            return negative ? -amount : amount;
+        }
+    }
+
+    private static int trimStart(MappedByteBuffer window, int start, int end) {
+        while (start < end && isPadding(window.get(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(MappedByteBuffer window, int start, int end) {
+        while (end > start && isPadding(window.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isPadding(byte b) {
+        return b == ' ' || b == '\t' || b == '"';
+    }
+}
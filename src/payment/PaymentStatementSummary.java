@@ -0,0 +1,44 @@
+package payment;
+
+// Súhrn spracovania výpisu, jednotlivé riadky sa neuchovávajú, aby pamäť nerástla s veľkosťou súboru
+public class PaymentStatementSummary {
+    private final long[] statusCounts;
+    private long rowCount;
+    private long acceptedAmount;
+
+    PaymentStatementSummary() {
+        this.statusCounts = new long[PaymentStatus.values().length];
+    }
+
+    void count(PaymentStatus status, int amount) {
+        statusCounts[status.ordinal()]++;
+        rowCount++;
+        if (status == PaymentStatus.ACCEPTED) {
+            acceptedAmount += amount;
+        }
+    }
+
+    void add(PaymentStatementSummary other) {
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] += other.statusCounts[i];
+        }
+        rowCount += other.rowCount;
+        acceptedAmount += other.acceptedAmount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getCount(PaymentStatus status) {
+        // Či je status null
+        if (status == null) {
+            throw new IllegalArgumentException("Status cannot be null.");
+        }
+        return statusCounts[status.ordinal()];
+    }
+
+    public long getAcceptedAmount() {
+        return acceptedAmount;
+    }
+}
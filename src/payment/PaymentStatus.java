@@ -0,0 +1,14 @@
+package payment;
+
+public enum PaymentStatus {
+    ACCEPTED,            // Platba bola pripísaná a zapísaná do histórie
+    MISSING_REQUEST,     // Riadok dávky je null
+    MISSING_CONTRACT,    // Zmluva je null
+    INVALID_AMOUNT,      // Suma nie je kladná
+    INACTIVE_CONTRACT,   // Zmluva nie je aktívna
+    FOREIGN_CONTRACT,    // Zmluva patrí inej poisťovni
+    NO_CHILD_CONTRACTS,  // Rámcová zmluva nemá dcérske zmluvy
+    DUPLICATE_REFERENCE, // Platba s rovnakou referenciou už bola pripísaná
+    UNKNOWN_CONTRACT,    // Číslo zmluvy z výpisu poisťovňa neeviduje
+    MALFORMED_ROW        // Riadok výpisu nemá číslo zmluvy alebo celočíselnú sumu
+}
@@ -0,0 +1,113 @@
+package company;
+
+import contracts.InvalidContractException;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import objects.Person;
+import objects.Vehicle;
+import org.junit.jupiter.api.Test;
+import payment.PremiumPaymentFrequency;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncInsuranceCompanyTest {
+
+    LocalDateTime testTime = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Test
+    void testConcurrentPaymentsOnOneContract() {
+        InsuranceCompany company = new InsuranceCompany(testTime, 64);
+        SingleVehicleContract contract = company.insureVehicle("C1", null, new Person("12345678"), 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+        int balance = contract.getContractPaymentData().getOutstandingBalance();
+
+        try (AsyncInsuranceCompany async = new AsyncInsuranceCompany(company)) {
+            List<CompletableFuture<Void>> payments = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                payments.add(async.pay(contract, 1));
+            }
+            CompletableFuture.allOf(payments.toArray(new CompletableFuture<?>[0])).join();
+        }
+
+        assertEquals(balance - 1000, contract.getContractPaymentData().getOutstandingBalance());
+        assertEquals(1000, company.getHandler().getPaymentHistory().get(contract).size());
+    }
+
+    @Test
+    void testOperationsOnSameContractRunInSubmissionOrder() {
+        InsuranceCompany company = new InsuranceCompany(testTime, 64);
+        Person holder = new Person("12345678");
+        List<MasterVehicleContract> masters = new ArrayList<>();
+        List<CompletableFuture<Void>> payments = new ArrayList<>();
+
+        try (AsyncInsuranceCompany async = new AsyncInsuranceCompany(company)) {
+            for (int i = 0; i < 200; i++) {
+                MasterVehicleContract master = company.createMasterVehicleContract("M" + i, null, holder);
+                SingleVehicleContract single = company.insureVehicle("C" + i, null, holder, 100,
+                        PremiumPaymentFrequency.MONTHLY, new Vehicle(String.format("AB%05d", i), 10000));
+                masters.add(master);
+
+                // The payment would fail on a master contract without children if it overtook the move
+                async.moveSingleVehicleContractToMasterVehicleContract(master, single);
+                payments.add(async.pay(master, 30));
+            }
+            CompletableFuture.allOf(payments.toArray(new CompletableFuture<?>[0])).join();
+        }
+
+        for (MasterVehicleContract master : masters) {
+            assertEquals(1, master.getChildContracts().size());
+            assertEquals(70, master.getChildContracts().iterator().next().getContractPaymentData()
+                    .getOutstandingBalance());
+        }
+    }
+
+    @Test
+    void testFailedOperationDoesNotBlockTheContract() throws Exception {
+        InsuranceCompany company = new InsuranceCompany(testTime, 4);
+        Person holder = new Person("12345678");
+
+        try (AsyncInsuranceCompany async = new AsyncInsuranceCompany(company)) {
+            CompletableFuture<SingleVehicleContract> first = async.insureVehicle("C1", null, holder, 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+            CompletableFuture<SingleVehicleContract> duplicate = async.insureVehicle("C1", null, holder, 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("XYZ9876", 10000));
+            CompletableFuture<Void> claim = first.thenCompose(contract -> async.processClaim(contract, 9000));
+            CompletableFuture<Void> payment = claim.thenCompose(ignored -> async.pay(first.join(), 10));
+
+            ExecutionException duplicateError = assertThrows(ExecutionException.class, duplicate::get);
+            assertInstanceOf(IllegalArgumentException.class, duplicateError.getCause());
+            claim.get();
+
+            // The claim deactivated the contract, so the payment after it is rejected
+            ExecutionException paymentError = assertThrows(ExecutionException.class, payment::get);
+            assertInstanceOf(InvalidContractException.class, paymentError.getCause());
+            assertFalse(first.get().isActive());
+
+            ExecutionException nullError = assertThrows(ExecutionException.class,
+                    () -> async.pay(null, 10).get());
+            assertInstanceOf(IllegalArgumentException.class, nullError.getCause());
+        }
+    }
+
+    @Test
+    void testInvalidUsage() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncInsuranceCompany(null));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncInsuranceCompany(new InsuranceCompany(testTime)));
+
+        InsuranceCompany company = new InsuranceCompany(testTime, 4);
+        AsyncInsuranceCompany async = new AsyncInsuranceCompany(company);
+        async.close();
+
+        assertSame(company, async.getCompany());
+        assertEquals(0, async.getPendingContractCount());
+        ExecutionException closedError = assertThrows(ExecutionException.class,
+                () -> async.createMasterVehicleContract("M1", null, new Person("12345678")).get());
+        assertInstanceOf(IllegalStateException.class, closedError.getCause());
+    }
+}
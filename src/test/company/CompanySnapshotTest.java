@@ -0,0 +1,344 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import objects.LicensePlates;
+import objects.Person;
+import objects.Vehicle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import payment.ContractPaymentData;
+import payment.PaymentInstance;
+import payment.PremiumPaymentFrequency;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompanySnapshotTest {
+
+    LocalDateTime testTime = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    InsuranceCompany company;
+    Path snapshot;
+
+    @BeforeEach
+    void setUp() {
+        company = new InsuranceCompany(testTime);
+        snapshot = directory.resolve("company.snapshot");
+
+        Person legalPerson = new Person("12345678");
+        Person traveller = new Person("8004172022");
+        Person otherTraveller = new Person("8054176449");
+
+        MasterVehicleContract master = company.createMasterVehicleContract("M1", null, legalPerson);
+        SingleVehicleContract first = company.insureVehicle("C1", traveller, legalPerson, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+        SingleVehicleContract second = company.insureVehicle("C2", null, legalPerson, 250,
+                PremiumPaymentFrequency.QUARTERLY, new Vehicle("XYZ9876", 20000));
+        SingleVehicleContract third = company.insureVehicle("C3", null, legalPerson, 90,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("BA00001", 5000));
+        TravelContract travel = company.insurePersons("T1", legalPerson, 40, PremiumPaymentFrequency.ANNUAL,
+                Set.of(traveller, otherTraveller));
+
+        company.moveSingleVehicleContractToMasterVehicleContract(master, first);
+        company.moveSingleVehicleContractToMasterVehicleContract(master, second);
+
+        company.setCurrentTime(testTime.plusMonths(4));
+        company.chargePremiumsOnContracts();
+        company.getHandler().pay(master, 777);
+        company.getHandler().pay(third, 55);
+        company.getHandler().pay(travel, 10);
+        company.processClaim(third, 4000);
+        company.processClaim(travel, Set.of(otherTraveller));
+    }
+
+    private static List<String> numbers(Iterable<? extends AbstractContract> contracts) {
+        List<String> numbers = new ArrayList<>();
+        for (AbstractContract contract : contracts) {
+            numbers.add(contract.getContractNumber());
+        }
+        return numbers;
+    }
+
+    private static void assertSameContract(AbstractContract expected, AbstractContract actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getContractNumber(), actual.getContractNumber());
+        assertEquals(expected.getPolicyHolder().getId(), actual.getPolicyHolder().getId());
+        assertEquals(expected.getCoverageAmount(), actual.getCoverageAmount());
+        assertEquals(expected.isActive(), actual.isActive());
+
+        ContractPaymentData expectedData = expected.getContractPaymentData();
+        ContractPaymentData actualData = actual.getContractPaymentData();
+        if (expectedData == null) {
+            assertNull(actualData);
+        } else {
+            assertEquals(expectedData.getPremium(), actualData.getPremium());
+            assertEquals(expectedData.getPremiumPaymentFrequency(), actualData.getPremiumPaymentFrequency());
+            assertEquals(expectedData.getNextPaymentTime(), actualData.getNextPaymentTime());
+            assertEquals(expectedData.getOutstandingBalance(), actualData.getOutstandingBalance());
+        }
+    }
+
+    private static void assertSamePayments(Set<PaymentInstance> expected, Set<PaymentInstance> actual) {
+        assertEquals(expected.size(), actual.size());
+
+        var actualPayments = actual.iterator();
+        for (PaymentInstance payment : expected) {
+            PaymentInstance actualPayment = actualPayments.next();
+            assertEquals(payment.getPaymentTime(), actualPayment.getPaymentTime());
+            assertEquals(payment.getPaymentAmount(), actualPayment.getPaymentAmount());
+        }
+    }
+
+    @Test
+    void testLoadedCompanyMatchesOriginal() throws IOException {
+        CompanySnapshot.write(company, snapshot);
+        InsuranceCompany loaded = CompanySnapshot.load(snapshot);
+
+        assertEquals(company.getCurrentTime(), loaded.getCurrentTime());
+        assertEquals(numbers(company.getContracts()), numbers(loaded.getContracts()));
+
+        for (String number : new String[]{"M1", "C3", "T1"}) {
+            AbstractContract expected = company.findContract(number);
+            AbstractContract actual = loaded.findContract(number);
+            assertSameContract(expected, actual);
+            assertSame(loaded, actual.getInsurer());
+            assertSamePayments(company.getHandler().getPaymentHistory().get(expected),
+                    loaded.getHandler().getPaymentHistory().get(actual));
+        }
+
+        MasterVehicleContract expectedMaster = (MasterVehicleContract) company.findContract("M1");
+        MasterVehicleContract actualMaster = (MasterVehicleContract) loaded.findContract("M1");
+        assertEquals(numbers(expectedMaster.getChildContracts()), numbers(actualMaster.getChildContracts()));
+
+        var actualChildren = actualMaster.getChildContracts().iterator();
+        for (SingleVehicleContract expectedChild : expectedMaster.getChildContracts()) {
+            SingleVehicleContract actualChild = actualChildren.next();
+            assertSameContract(expectedChild, actualChild);
+            assertEquals(expectedChild.getInsuredVehicle().getLicensePlate(),
+                    actualChild.getInsuredVehicle().getLicensePlate());
+        }
+
+        // The single contract is held by its policy holder, moved child contracts are not
+        Person policyHolder = loaded.findContract("C3").getPolicyHolder();
+        assertEquals(numbers(company.findContract("C3").getPolicyHolder().getContracts()),
+                numbers(policyHolder.getContracts()));
+        assertSame(policyHolder, loaded.getPersonRegistry().find("12345678"));
+        assertEquals(company.findContract("C3").getPolicyHolder().getPaidOutAmount(),
+                policyHolder.getPaidOutAmount());
+        for (Person person : ((TravelContract) company.findContract("T1")).getInsuredPersons()) {
+            assertEquals(person.getPaidOutAmount(),
+                    loaded.getPersonRegistry().getOrCreate(person.getId()).getPaidOutAmount());
+        }
+    }
+
+    @Test
+    void testContractsAreMaterializedOnFirstAccess() throws IOException {
+        CompanySnapshot.write(company, snapshot);
+        InsuranceCompany loaded = CompanySnapshot.load(snapshot);
+
+        // Counting contracts does not create them
+        assertEquals(3, loaded.getContracts().size());
+        assertEquals(0, loaded.getPersonRegistry().size());
+
+        AbstractContract single = loaded.findContract("C3");
+        assertSame(single, loaded.findContract("C3"));
+        assertEquals(3, loaded.getContracts().size());
+        assertTrue(loaded.getContracts().contains(single));
+        assertEquals(1, loaded.getPersonRegistry().size());
+
+        // Child contracts are not registered in the company, as before the snapshot
+        assertNull(loaded.findContract("C1"));
+        assertNull(loaded.findContract("X1"));
+    }
+
+    @Test
+    void testLicensePlateLookupMaterializesMasterContract() throws IOException {
+        CompanySnapshot.write(company, snapshot);
+        InsuranceCompany loaded = CompanySnapshot.load(snapshot);
+
+        SingleVehicleContract child = loaded.findContractByLicensePlate("ABC1234");
+        assertEquals("C1", child.getContractNumber());
+
+        MasterVehicleContract master = (MasterVehicleContract) loaded.findContract("M1");
+        assertTrue(master.getChildContracts().contains(child));
+        assertSame(child, loaded.findContractByLicensePlate(LicensePlates.encode("ABC1234")));
+
+        assertFalse(loaded.isLicensePlateInsured(LicensePlates.encode("BA00001")));
+        assertTrue(loaded.isLicensePlateInsured(LicensePlates.encode("XYZ9876")));
+        assertNull(loaded.findContractByLicensePlate("ZZZ0000"));
+    }
+
+    @Test
+    void testLoadedCompanyKeepsWorking() throws IOException {
+        CompanySnapshot.write(company, snapshot);
+        InsuranceCompany loaded = CompanySnapshot.load(snapshot);
+
+        // Contract numbers from the snapshot stay taken before their contracts are created
+        Person legalPerson = loaded.getPersonRegistry().getOrCreate("12345678");
+        assertThrows(IllegalArgumentException.class, () -> loaded.insureVehicle("T1", null, legalPerson, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("NEW0001", 1000)));
+        loaded.insureVehicle("C4", null, legalPerson, 100, PremiumPaymentFrequency.MONTHLY,
+                new Vehicle("NEW0001", 1000));
+
+        LocalDateTime billingTime = testTime.plusMonths(9);
+        company.setCurrentTime(billingTime);
+        company.chargePremiumsOnContracts();
+        loaded.setCurrentTime(billingTime);
+        loaded.chargePremiumsOnContracts();
+
+        // New contracts follow the snapshot ones, which keep their original order
+        assertEquals(List.of("M1", "C3", "T1", "C4"), numbers(loaded.getContracts()));
+        for (String number : new String[]{"M1", "C3", "T1"}) {
+            assertSameContract(company.findContract(number), loaded.findContract(number));
+        }
+
+        MasterVehicleContract master = (MasterVehicleContract) loaded.findContract("M1");
+        for (SingleVehicleContract child : master.getChildContracts()) {
+            assertSameContract(((MasterVehicleContract) company.findContract("M1")).getChildContracts().stream()
+                    .filter(c -> c.getContractNumber().equals(child.getContractNumber())).findFirst().orElseThrow(),
+                    child);
+        }
+    }
+
+    @Test
+    void testSecondaryIndexesOfLoadedCompany() throws IOException {
+        CompanySnapshot.write(company, snapshot);
+        InsuranceCompany loaded = CompanySnapshot.load(snapshot);
+
+        assertEquals(numbers(company.findContractsByPolicyHolder("12345678")),
+                numbers(loaded.findContractsByPolicyHolder("12345678")));
+
+        // The only travel contract was deactivated by a claim before the snapshot
+        assertTrue(loaded.findTravelContractsByInsuredPerson("8004172022").isEmpty());
+        TravelContract travel = loaded.insurePersons("T2", loaded.getPersonRegistry().getOrCreate("12345678"), 40,
+                PremiumPaymentFrequency.ANNUAL, Set.of(loaded.getPersonRegistry().getOrCreate("8004172022")));
+        assertEquals(List.of(travel), loaded.findTravelContractsByInsuredPerson("8004172022"));
+    }
+
+    @Test
+    void testOlderActiveContractOfLicensePlateSurvivesSnapshot() throws IOException {
+        Person legalPerson = new Person("12345678");
+        SingleVehicleContract older = company.insureVehicle("C4", null, legalPerson, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("DUP0001", 10000));
+        SingleVehicleContract newer = company.insureVehicle("C5", null, legalPerson, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("DUP0001", 10000));
+        company.processClaim(newer, 10000);
+        long plate = LicensePlates.encode("DUP0001");
+        assertTrue(company.isLicensePlateInsured(plate));
+
+        CompanySnapshot.write(company, snapshot);
+        InsuranceCompany loaded = CompanySnapshot.load(snapshot);
+
+        assertSame(loaded.findContract("C5"), loaded.findContractByLicensePlate(plate));
+        assertTrue(loaded.isLicensePlateInsured(plate));
+        loaded.processClaim((SingleVehicleContract) loaded.findContract("C4"), 10000);
+        assertFalse(loaded.isLicensePlateInsured(plate));
+        assertTrue(older.isActive());
+    }
+
+    @Test
+    void testSnapshotOfLoadedCompany() throws IOException {
+        CompanySnapshot.write(company, snapshot);
+        InsuranceCompany loaded = CompanySnapshot.load(snapshot);
+        loaded.findContract("T1");
+
+        Path copy = directory.resolve("copy.snapshot");
+        CompanySnapshot.write(loaded, copy);
+        InsuranceCompany reloaded = CompanySnapshot.load(copy);
+
+        assertEquals(numbers(company.getContracts()), numbers(reloaded.getContracts()));
+        assertSameContract(company.findContract("M1"), reloaded.findContract("M1"));
+        assertEquals(company.findContract("C3").getPolicyHolder().getPaidOutAmount(),
+                reloaded.getPersonRegistry().getOrCreate("12345678").getPaidOutAmount());
+    }
+
+    @Test
+    void testEmptyCompany() throws IOException {
+        CompanySnapshot.write(new InsuranceCompany(testTime), snapshot);
+        InsuranceCompany loaded = CompanySnapshot.load(snapshot);
+
+        assertTrue(loaded.getContracts().isEmpty());
+        assertEquals(testTime, loaded.getCurrentTime());
+    }
+
+    @Test
+    void testReplaysLogTailIntoLoadedSnapshot() throws IOException {
+        Path log = directory.resolve("company.wal");
+        InsuranceCompany logged = new InsuranceCompany(testTime);
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 4)) {
+            logged.attachWriteAheadLog(writeAheadLog);
+
+            Person legalPerson = new Person("12345678");
+            MasterVehicleContract master = logged.createMasterVehicleContract("M1", null, legalPerson);
+            SingleVehicleContract first = logged.insureVehicle("C1", null, legalPerson, 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+            logged.moveSingleVehicleContractToMasterVehicleContract(master, first);
+            logged.setCurrentTime(testTime.plusMonths(2));
+            logged.chargePremiumsOnContracts();
+            CompanySnapshot.write(logged, snapshot);
+
+            // Records after the snapshot reference contracts that only the snapshot holds, one of them a child
+            SingleVehicleContract second = logged.insureVehicle("C2", null, legalPerson, 250,
+                    PremiumPaymentFrequency.QUARTERLY, new Vehicle("XYZ9876", 20000));
+            logged.getHandler().pay(master, 150);
+            logged.processClaim(first, 2000);
+            logged.setCurrentTime(testTime.plusMonths(5));
+            logged.chargePremiumsOnContracts();
+            logged.getHandler().pay(second, 30);
+        }
+
+        InsuranceCompany recovered = CompanySnapshot.load(snapshot);
+        assertEquals(6, WriteAheadLog.replay(log, recovered));
+
+        assertEquals(logged.getCurrentTime(), recovered.getCurrentTime());
+        assertEquals(numbers(logged.getContracts()), numbers(recovered.getContracts()));
+        assertSameContract(logged.findContract("C2"), recovered.findContract("C2"));
+        MasterVehicleContract loggedMaster = (MasterVehicleContract) logged.findContract("M1");
+        MasterVehicleContract recoveredMaster = (MasterVehicleContract) recovered.findContract("M1");
+        assertSameContract(loggedMaster.getChildContracts().iterator().next(),
+                recoveredMaster.getChildContracts().iterator().next());
+        assertSamePayments(logged.getHandler().getPaymentHistory().get(loggedMaster),
+                recovered.getHandler().getPaymentHistory().get(recoveredMaster));
+        assertEquals(logged.findContract("C2").getPolicyHolder().getPaidOutAmount(),
+                recovered.getPersonRegistry().getOrCreate("12345678").getPaidOutAmount());
+
+        // The replayed company remembers where the log ended, a second replay has nothing to apply
+        assertEquals(0, WriteAheadLog.replay(log, recovered));
+    }
+
+    @Test
+    void testSnapshotWithoutLogCannotBeReplayedInto() throws IOException {
+        Path log = directory.resolve("company.wal");
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 1)) {
+            new InsuranceCompany(testTime).attachWriteAheadLog(writeAheadLog);
+        }
+
+        CompanySnapshot.write(company, snapshot);
+        InsuranceCompany loaded = CompanySnapshot.load(snapshot);
+        assertThrows(IllegalStateException.class, () -> WriteAheadLog.replay(log, loaded));
+    }
+
+    @Test
+    void testInvalidUsage() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> CompanySnapshot.write(null, snapshot));
+        assertThrows(IllegalArgumentException.class, () -> CompanySnapshot.write(company, null));
+        assertThrows(IllegalArgumentException.class, () -> CompanySnapshot.load(null));
+
+        Files.write(snapshot, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> CompanySnapshot.load(snapshot));
+    }
+}
@@ -0,0 +1,133 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.SingleVehicleContract;
+import objects.Person;
+import objects.Vehicle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import payment.ContractPaymentData;
+import payment.PremiumPaymentFrequency;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContractSlotMapTest {
+
+    LocalDateTime testTime = LocalDateTime.of(2023, 1, 1, 0, 0);
+    InsuranceCompany company;
+    Person policyHolder;
+
+    @BeforeEach
+    void setUp() {
+        company = new InsuranceCompany(testTime);
+        policyHolder = new Person("8351068242");
+    }
+
+    private SingleVehicleContract contract(InsuranceCompany insurer, String contractNumber) {
+        return new SingleVehicleContract(contractNumber, insurer, null, policyHolder,
+                new ContractPaymentData(100, PremiumPaymentFrequency.MONTHLY, testTime, 0), 0,
+                new Vehicle("ABC1234", 1000));
+    }
+
+    private static List<String> keys(Map<AbstractContract, ?> map) {
+        List<String> keys = new ArrayList<>();
+        for (AbstractContract contract : map.keySet()) {
+            keys.add(contract.getContractNumber());
+        }
+        return keys;
+    }
+
+    @Test
+    void testEqualContractsShareEntry() {
+        ContractSlotMap<String> map = new ContractSlotMap<>(company);
+        SingleVehicleContract contract = contract(company, "C1");
+        SingleVehicleContract equalContract = contract(company, "C1");
+
+        assertNull(map.put(contract, "first"));
+        assertEquals("first", map.put(equalContract, "second"));
+        assertEquals(1, map.size());
+        assertEquals("second", map.get(contract));
+        assertSame(contract, map.keySet().iterator().next());
+
+        assertEquals("second", map.remove(equalContract));
+        assertTrue(map.isEmpty());
+        assertNull(map.get(contract));
+    }
+
+    @Test
+    void testForeignContractsAreKeptApart() {
+        ContractSlotMap<String> map = new ContractSlotMap<>(company);
+        SingleVehicleContract contract = contract(company, "C1");
+        SingleVehicleContract foreignContract = contract(new InsuranceCompany(testTime), "C1");
+        assertEquals(contract.getSlot(), foreignContract.getSlot());
+
+        map.put(contract, "own");
+        map.put(foreignContract, "foreign");
+
+        assertEquals(2, map.size());
+        assertEquals("own", map.get(contract));
+        assertEquals("foreign", map.get(foreignContract));
+        assertFalse(map.containsKey("C1"));
+        assertNull(map.get(null));
+    }
+
+    @Test
+    void testIterationFollowsSlotOrder() {
+        ContractSlotMap<Integer> map = new ContractSlotMap<>(company);
+        List<SingleVehicleContract> contracts = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            contracts.add(contract(company, "C" + i));
+        }
+
+        // Inserted in reverse, iterated in the order the contracts were created
+        for (int i = contracts.size() - 1; i >= 0; i--) {
+            map.put(contracts.get(i), i);
+        }
+        List<String> keys = keys(map);
+        assertEquals(10_000, keys.size());
+        assertEquals("C0", keys.get(0));
+        assertEquals("C9999", keys.get(9_999));
+
+        Iterator<Map.Entry<AbstractContract, Integer>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(5_000, map.size());
+        assertFalse(map.containsKey(contracts.get(0)));
+        assertTrue(map.containsKey(contracts.get(1)));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    void testComputeIfAbsent() {
+        ContractSlotMap<List<Integer>> map = new ContractSlotMap<>(company);
+        SingleVehicleContract contract = contract(company, "C1");
+
+        List<Integer> values = map.computeIfAbsent(contract, c -> new ArrayList<>());
+        assertSame(values, map.computeIfAbsent(contract, c -> new ArrayList<>()));
+        assertNull(map.computeIfAbsent(contract(company, "C2"), c -> null));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testEqualsLikeHashMap() {
+        ContractSlotMap<String> map = new ContractSlotMap<>(company);
+        SingleVehicleContract contract = contract(company, "C1");
+        map.put(contract, "value");
+
+        assertEquals(Map.of(contract, "value"), map);
+        assertEquals(Map.of(contract, "value").hashCode(), map.hashCode());
+        assertThrows(IllegalArgumentException.class, () -> new ContractSlotMap<>(null));
+    }
+}
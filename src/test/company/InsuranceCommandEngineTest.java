@@ -0,0 +1,201 @@
+package company;
+
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import objects.Person;
+import objects.Vehicle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import payment.PaymentStatus;
+import payment.PremiumPaymentFrequency;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InsuranceCommandEngineTest {
+
+    LocalDateTime testTime = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPaymentsFromManyThreads() throws InterruptedException {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        SingleVehicleContract contract = company.insureVehicle("C1", null, new Person("12345678"), 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+        int balance = contract.getContractPaymentData().getOutstandingBalance();
+
+        try (InsuranceCommandEngine engine = InsuranceCommandEngine.start(company, 64)) {
+            // Existing contracts are visible before the first command
+            assertEquals(balance, engine.getView(contract).getOutstandingBalance());
+
+            // A small ring forces producers to wait for the writer
+            List<List<CompletableFuture<PaymentStatus>>> payments = new ArrayList<>();
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                List<CompletableFuture<PaymentStatus>> ownPayments = new ArrayList<>();
+                payments.add(ownPayments);
+                producers.add(new Thread(() -> {
+                    for (int i = 0; i < 2500; i++) {
+                        ownPayments.add(engine.pay(contract, 1));
+                    }
+                }));
+            }
+            for (Thread producer : producers) {
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            for (List<CompletableFuture<PaymentStatus>> ownPayments : payments) {
+                for (CompletableFuture<PaymentStatus> payment : ownPayments) {
+                    assertEquals(PaymentStatus.ACCEPTED, payment.join());
+                }
+            }
+
+            ContractView view = engine.getView(contract);
+            assertEquals(balance - 10000, view.getOutstandingBalance());
+            assertTrue(view.isActive());
+            assertTrue(view.getSequence() > 0);
+            assertTrue(engine.getPublishedSequence() >= view.getSequence());
+        }
+
+        assertEquals(balance - 10000, contract.getContractPaymentData().getOutstandingBalance());
+        assertEquals(10000, company.getHandler().getPaymentHistory().get(contract).size());
+    }
+
+    @Test
+    void testCommandsRunInSubmissionOrder() throws Exception {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person holder = new Person("12345678");
+
+        try (InsuranceCommandEngine engine = InsuranceCommandEngine.start(company)) {
+            CompletableFuture<MasterVehicleContract> master = engine.createMasterVehicleContract("M1", null, holder);
+            CompletableFuture<SingleVehicleContract> first = engine.insureVehicle("C1", null, holder, 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+            CompletableFuture<SingleVehicleContract> second = engine.insureVehicle("C2", null, holder, 50,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("XYZ9876", 10000));
+            CompletableFuture<SingleVehicleContract> duplicate = engine.insureVehicle("C1", null, holder, 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("BA00001", 10000));
+
+            // Contracts returned by completed commands can be used in the following ones
+            engine.moveSingleVehicleContractToMasterVehicleContract(master.get(), first.get()).get();
+            engine.moveSingleVehicleContractToMasterVehicleContract(master.get(), second.get());
+            CompletableFuture<PaymentStatus> payment = engine.pay(master.get(), 170);
+            CompletableFuture<Void> claim = engine.processClaim(second.get(), 9000);
+            CompletableFuture<PaymentStatus> lostPayment = engine.pay(second.get(), 10);
+
+            ExecutionException duplicateError = assertThrows(ExecutionException.class, duplicate::get);
+            assertInstanceOf(IllegalArgumentException.class, duplicateError.getCause());
+            assertEquals(PaymentStatus.ACCEPTED, payment.get());
+            claim.get();
+            assertEquals(PaymentStatus.INACTIVE_CONTRACT, lostPayment.get());
+
+            // The master view sums the balances of its children
+            ContractView masterView = engine.getView(master.get());
+            ContractView firstView = engine.getView(first.get());
+            ContractView secondView = engine.getView(second.get());
+            assertEquals(-20, firstView.getOutstandingBalance());
+            assertEquals(0, secondView.getOutstandingBalance());
+            assertEquals(-20, masterView.getOutstandingBalance());
+            assertFalse(secondView.isActive());
+            assertTrue(masterView.isActive());
+
+            engine.setCurrentTime(testTime.plusMonths(1));
+            engine.chargePremiumsOnContracts().get();
+            assertEquals(80, engine.getView(first.get()).getOutstandingBalance());
+            assertEquals(engine.getView(first.get()).getOutstandingBalance()
+                    + engine.getView(second.get()).getOutstandingBalance(),
+                    engine.getView(master.get()).getOutstandingBalance());
+        }
+    }
+
+    @Test
+    void testLogReceivesTheEngineOrder() throws IOException {
+        Path log = directory.resolve("engine.wal");
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person holder = new Person("12345678");
+
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 1000)) {
+            company.attachWriteAheadLog(writeAheadLog);
+
+            try (InsuranceCommandEngine engine = InsuranceCommandEngine.start(company)) {
+                SingleVehicleContract contract = engine.insureVehicle("C1", null, holder, 100,
+                        PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000)).join();
+                for (int i = 0; i < 100; i++) {
+                    engine.pay(contract, 3, "REF-" + i);
+                }
+                engine.pay(contract, 3, "REF-0");
+                engine.setCurrentTime(testTime.plusMonths(2));
+                engine.chargePremiumsOnContracts().join();
+            }
+        }
+
+        // Completed commands are already logged, the group commit size does not matter
+        InsuranceCompany restored = new InsuranceCompany(testTime);
+        WriteAheadLog.replay(log, restored);
+        assertEquals(company.findContract("C1").getContractPaymentData().getOutstandingBalance(),
+                restored.findContract("C1").getContractPaymentData().getOutstandingBalance());
+        assertEquals(100, restored.getHandler().getPaymentHistory().get(restored.findContract("C1")).size());
+    }
+
+    @Test
+    void testLogFailureStopsTheEngine() throws Exception {
+        Path log = directory.resolve("engine.wal");
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        WriteAheadLog writeAheadLog = new WriteAheadLog(log, 1);
+        company.attachWriteAheadLog(writeAheadLog);
+
+        try (InsuranceCommandEngine engine = InsuranceCommandEngine.start(company)) {
+            SingleVehicleContract contract = engine.insureVehicle("C1", null, new Person("12345678"), 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000)).join();
+            long sequence = engine.getPublishedSequence();
+            ContractView view = engine.getView(contract);
+            writeAheadLog.close();
+
+            // The batch the log did not commit fails and is not published
+            assertThrows(ExecutionException.class, () -> engine.pay(contract, 40).get());
+            assertEquals(sequence, engine.getPublishedSequence());
+            assertSame(view, engine.getView(contract));
+
+            // Later commands are rejected instead of building on state the log does not hold
+            ExecutionException rejected = assertThrows(ExecutionException.class,
+                    () -> engine.setCurrentTime(testTime.plusDays(1)).get());
+            assertInstanceOf(IllegalStateException.class, rejected.getCause());
+            assertEquals(testTime, company.getCurrentTime());
+        }
+    }
+
+    @Test
+    void testInvalidUsage() {
+        assertThrows(IllegalArgumentException.class, () -> InsuranceCommandEngine.start(null));
+        assertThrows(IllegalArgumentException.class, () -> InsuranceCommandEngine.start(new InsuranceCompany(testTime), 0));
+
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        InsuranceCompany otherCompany = new InsuranceCompany(testTime);
+        SingleVehicleContract foreign = otherCompany.insureVehicle("C1", null, new Person("12345678"), 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+
+        InsuranceCommandEngine engine = InsuranceCommandEngine.start(company);
+        assertEquals(PaymentStatus.MISSING_CONTRACT, engine.pay(null, 10).join());
+        assertEquals(PaymentStatus.FOREIGN_CONTRACT, engine.pay(foreign, 10).join());
+        assertNull(engine.getView(foreign));
+        assertThrows(IllegalArgumentException.class, () -> engine.getView(null));
+        engine.close();
+        engine.close();
+
+        assertSame(company, engine.getCompany());
+        ExecutionException closedError = assertThrows(ExecutionException.class,
+                () -> engine.createMasterVehicleContract("M1", null, new Person("12345678")).get());
+        assertInstanceOf(IllegalStateException.class, closedError.getCause());
+    }
+}
@@ -5,14 +5,23 @@ import contracts.InvalidContractException;
 import contracts.MasterVehicleContract;
 import contracts.SingleVehicleContract;
 import contracts.TravelContract;
+import objects.LicensePlates;
 import objects.Person;
 import objects.Vehicle;
 import org.junit.jupiter.api.Test;
+import payment.ContractPaymentData;
 import payment.PaymentHandler;
 import payment.PremiumPaymentFrequency;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.ArrayList;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -631,4 +640,546 @@ public class InsuranceCompanyTest {
         assertThrows(InvalidContractException.class, () ->
                 company.processClaim(contract, affectedPersons));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindContractByNumber() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person policyholder = new Person("8004172022");
+        Vehicle vehicle = new Vehicle("ABC123D", 10000);
+
+        SingleVehicleContract contract = company.insureVehicle(
+                "C001", null, policyholder, 200,
+                PremiumPaymentFrequency.MONTHLY, vehicle
+        );
+
+        assertSame(contract, company.findContract("C001"));
+        assertNull(company.findContract("C002"));
+        assertThrows(IllegalArgumentException.class, () -> company.findContract(null));
+    }
+
+    @Test
+    void testFindContractAfterMoveToMasterContract() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person legalPerson = new Person("12345678");
+        Vehicle vehicle = new Vehicle("ABC123D", 10000);
+
+        SingleVehicleContract single = company.insureVehicle(
+                "C001", null, legalPerson, 200,
+                PremiumPaymentFrequency.MONTHLY, vehicle
+        );
+        MasterVehicleContract master = company.createMasterVehicleContract("M001", null, legalPerson);
+        company.moveSingleVehicleContractToMasterVehicleContract(master, single);
+
+        // Moved contract is no longer registered directly with the company
+        assertSame(master, company.findContract("M001"));
+        assertNull(company.findContract("C001"));
+    }
+
+    @Test
+    void testFindContractTracksContractsSetChanges() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person legalPerson = new Person("12345678");
+        MasterVehicleContract master = new MasterVehicleContract("M001", company, null, legalPerson);
+
+        company.getContracts().add(master);
+        assertSame(master, company.findContract("M001"));
+        assertThrows(IllegalArgumentException.class, () ->
+                company.createMasterVehicleContract("M001", null, legalPerson));
+
+        company.getContracts().removeIf(contract -> contract.getContractNumber().equals("M001"));
+        assertNull(company.findContract("M001"));
+        assertNotNull(company.createMasterVehicleContract("M001", null, legalPerson));
+    }
+
+    @Test
+    void testChargePremiumsOnContractsChargesOnlyDueContracts() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person policyholder = new Person("8004172022");
+
+        SingleVehicleContract monthly = company.insureVehicle(
+                "C001", null, policyholder, 200,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC123D", 10000)
+        );
+        SingleVehicleContract annual = company.insureVehicle(
+                "C002", null, policyholder, 2400,
+                PremiumPaymentFrequency.ANNUAL, new Vehicle("ABC123E", 10000)
+        );
+
+        company.setCurrentTime(testTime.plusMonths(2));
+        company.chargePremiumsOnContracts();
+
+        assertEquals(600, monthly.getContractPaymentData().getOutstandingBalance());
+        assertEquals(testTime.plusMonths(3), monthly.getContractPaymentData().getNextPaymentTime());
+        assertEquals(2400, annual.getContractPaymentData().getOutstandingBalance());
+        assertEquals(testTime.plusMonths(12), annual.getContractPaymentData().getNextPaymentTime());
+
+        company.setCurrentTime(testTime.plusMonths(12));
+        company.chargePremiumsOnContracts();
+
+        assertEquals(2600, monthly.getContractPaymentData().getOutstandingBalance());
+        assertEquals(4800, annual.getContractPaymentData().getOutstandingBalance());
+    }
+
+    @Test
+    void testChargePremiumsOnContractsAfterDirectBalanceUpdate() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person policyholder = new Person("8004172022");
+
+        SingleVehicleContract contract = company.insureVehicle(
+                "C001", null, policyholder, 200,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC123D", 10000)
+        );
+
+        // Contract is charged outside of the billing run first
+        company.setCurrentTime(testTime.plusMonths(1));
+        contract.updateBalance();
+        company.chargePremiumsOnContracts();
+        assertEquals(400, contract.getContractPaymentData().getOutstandingBalance());
+
+        company.setCurrentTime(testTime.plusMonths(2));
+        company.chargePremiumsOnContracts();
+        assertEquals(600, contract.getContractPaymentData().getOutstandingBalance());
+    }
+
+    @Test
+    void testChargePremiumsOnContractsSkipsInactiveAndChargesMasterChildren() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person legalPerson = new Person("12345678");
+
+        SingleVehicleContract child = company.insureVehicle(
+                "C001", null, legalPerson, 200,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC123D", 10000)
+        );
+        SingleVehicleContract inactive = company.insureVehicle(
+                "C002", null, legalPerson, 200,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC123E", 10000)
+        );
+        MasterVehicleContract master = company.createMasterVehicleContract("M001", null, legalPerson);
+        company.moveSingleVehicleContractToMasterVehicleContract(master, child);
+        inactive.setInactive();
+
+        company.setCurrentTime(testTime.plusMonths(1));
+        company.chargePremiumsOnContracts();
+
+        assertEquals(400, child.getContractPaymentData().getOutstandingBalance());
+        assertEquals(200, inactive.getContractPaymentData().getOutstandingBalance());
+    }
+
+    @Test
+    void testChargePremiumsOnContractsSeesChildrenAddedToMaster() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person legalPerson = new Person("12345678");
+
+        SingleVehicleContract annual = company.insureVehicle(
+                "C001", null, legalPerson, 2400,
+                PremiumPaymentFrequency.ANNUAL, new Vehicle("ABC123D", 10000)
+        );
+        MasterVehicleContract master = company.createMasterVehicleContract("M001", null, legalPerson);
+        company.moveSingleVehicleContractToMasterVehicleContract(master, annual);
+
+        // The monthly child bypasses the company and is due before the annual one, the master is due earlier
+        SingleVehicleContract monthly = new SingleVehicleContract("C002", company, null, legalPerson,
+                new ContractPaymentData(100, PremiumPaymentFrequency.MONTHLY, testTime, 0), 5000,
+                new Vehicle("ABC123E", 10000));
+        master.addChildContract(monthly);
+
+        for (int month = 0; month <= 3; month++) {
+            company.setCurrentTime(testTime.plusMonths(month));
+            company.chargePremiumsOnContracts();
+        }
+
+        assertEquals(400, monthly.getContractPaymentData().getOutstandingBalance());
+        assertEquals(2400, annual.getContractPaymentData().getOutstandingBalance());
+
+        // A removed child is no longer billed through the master
+        master.getChildContracts().remove(monthly);
+        company.setCurrentTime(testTime.plusMonths(4));
+        company.chargePremiumsOnContracts();
+        assertEquals(400, monthly.getContractPaymentData().getOutstandingBalance());
+    }
+
+    @Test
+    void testChargePremiumsOnContractsReschedulesRevivedMaster() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person legalPerson = new Person("12345678");
+        MasterVehicleContract master = company.createMasterVehicleContract("M001", null, legalPerson);
+        SingleVehicleContract first = company.insureVehicle("C001", null, legalPerson, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC123D", 10000));
+        company.moveSingleVehicleContractToMasterVehicleContract(master, first);
+
+        // The master without an active child leaves the schedule on its next billing
+        company.processClaim(first, 10000);
+        company.setCurrentTime(testTime.plusMonths(1));
+        company.chargePremiumsOnContracts();
+        assertFalse(master.isActive());
+        assertEquals(100, first.getContractPaymentData().getOutstandingBalance());
+
+        // A new child added to the master itself brings it back at the child's due time
+        company.setCurrentTime(testTime.plusMonths(2));
+        SingleVehicleContract second = new SingleVehicleContract("C002", company, null, legalPerson,
+                new ContractPaymentData(100, PremiumPaymentFrequency.MONTHLY, testTime.plusMonths(3), 0), 5000,
+                new Vehicle("ABC123E", 10000));
+        master.addChildContract(second);
+        assertTrue(master.isActive());
+        company.chargePremiumsOnContracts();
+        assertEquals(0, second.getContractPaymentData().getOutstandingBalance());
+        company.setCurrentTime(testTime.plusMonths(4));
+        company.chargePremiumsOnContracts();
+        assertEquals(200, second.getContractPaymentData().getOutstandingBalance());
+    }
+
+    private static List<SingleVehicleContract> insureFleet(InsuranceCompany company, int size) {
+        Person legalPerson = new Person("12345678");
+        MasterVehicleContract master = company.createMasterVehicleContract("M001", null, legalPerson);
+        PremiumPaymentFrequency[] frequencies = PremiumPaymentFrequency.values();
+        List<SingleVehicleContract> contracts = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            SingleVehicleContract contract = company.insureVehicle(
+                    "C" + i, null, legalPerson, 1000 + i,
+                    frequencies[i % frequencies.length], new Vehicle(String.format("AB%05d", i), 10000)
+            );
+            contracts.add(contract);
+
+            // Every third contract belongs to the master contract
+            if (i % 3 == 0) {
+                company.moveSingleVehicleContractToMasterVehicleContract(master, contract);
+            }
+        }
+
+        return contracts;
+    }
+
+    @Test
+    void testParallelBillingMatchesSequentialBilling() {
+        InsuranceCompany sequential = new InsuranceCompany(testTime);
+        InsuranceCompany parallel = new InsuranceCompany(testTime);
+        parallel.enableParallelBilling(4, 8);
+
+        List<SingleVehicleContract> sequentialContracts = insureFleet(sequential, 300);
+        List<SingleVehicleContract> parallelContracts = insureFleet(parallel, 300);
+
+        for (int month = 1; month <= 25; month++) {
+            sequential.setCurrentTime(testTime.plusMonths(month).plusDays(month % 3));
+            parallel.setCurrentTime(testTime.plusMonths(month).plusDays(month % 3));
+            sequential.chargePremiumsOnContracts();
+            parallel.chargePremiumsOnContracts();
+        }
+
+        for (int i = 0; i < sequentialContracts.size(); i++) {
+            assertEquals(sequentialContracts.get(i).getContractPaymentData().getOutstandingBalance(),
+                    parallelContracts.get(i).getContractPaymentData().getOutstandingBalance());
+            assertEquals(sequentialContracts.get(i).getContractPaymentData().getNextPaymentTime(),
+                    parallelContracts.get(i).getContractPaymentData().getNextPaymentTime());
+        }
+
+        parallel.disableParallelBilling();
+        assertFalse(parallel.isParallelBillingEnabled());
+    }
+
+    @Test
+    void testEnableParallelBillingWithInvalidParameters() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+
+        assertThrows(IllegalArgumentException.class, () -> company.enableParallelBilling(0, 100));
+        assertThrows(IllegalArgumentException.class, () -> company.enableParallelBilling(4, 0));
+        assertFalse(company.isParallelBillingEnabled());
+    }
+
+    @Test
+    void testColumnarPaymentDataMatchesObjectPaymentData() {
+        InsuranceCompany objects = new InsuranceCompany(testTime);
+        InsuranceCompany columnar = new InsuranceCompany(testTime);
+        columnar.enableColumnarPaymentData(16);
+        assertTrue(columnar.isColumnarPaymentDataEnabled());
+
+        List<SingleVehicleContract> objectContracts = insureFleet(objects, 100);
+        List<SingleVehicleContract> columnarContracts = insureFleet(columnar, 100);
+
+        for (int month = 1; month <= 13; month++) {
+            objects.setCurrentTime(testTime.plusMonths(month));
+            columnar.setCurrentTime(testTime.plusMonths(month));
+            objects.chargePremiumsOnContracts();
+            columnar.chargePremiumsOnContracts();
+        }
+
+        for (int i = 0; i < objectContracts.size(); i++) {
+            assertEquals(objectContracts.get(i).getContractPaymentData().getOutstandingBalance(),
+                    columnarContracts.get(i).getContractPaymentData().getOutstandingBalance());
+            assertEquals(objectContracts.get(i).getContractPaymentData().getNextPaymentTime(),
+                    columnarContracts.get(i).getContractPaymentData().getNextPaymentTime());
+        }
+    }
+
+    @Test
+    void testEnableColumnarPaymentDataAfterContractsExist() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        company.createMasterVehicleContract("M001", null, new Person("12345678"));
+
+        assertThrows(IllegalStateException.class, () -> company.enableColumnarPaymentData(16));
+        assertFalse(company.isColumnarPaymentDataEnabled());
+    }
+
+    @Test
+    void testConcurrentOnboardingKeepsContractNumbersUnique() throws Exception {
+        InsuranceCompany company = new InsuranceCompany(testTime, 16);
+        assertTrue(company.isConcurrentAccessEnabled());
+        Person policyHolder = new Person("12345678");
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Every contract number is requested by four threads, only one of them may win
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    try {
+                        company.insureVehicle("C" + (i % 100), null, policyHolder, 1000,
+                                PremiumPaymentFrequency.MONTHLY, new Vehicle(String.format("AB%05d", i), 10000));
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, company.getContracts().size());
+        assertEquals(100, policyHolder.getContracts().size());
+        assertEquals(8 * 200 - 100, rejected.get());
+        for (int i = 0; i < 100; i++) {
+            assertNotNull(company.findContract("C" + i));
+        }
+    }
+
+    @Test
+    void testConcurrentPaymentsOnSameContractAreNotLost() throws Exception {
+        InsuranceCompany company = new InsuranceCompany(testTime, 4);
+        List<SingleVehicleContract> contracts = insureFleet(company, 30);
+        MasterVehicleContract master = (MasterVehicleContract) company.findContract("M001");
+        SingleVehicleContract single = contracts.get(1);
+        int masterBalance = 0;
+        for (SingleVehicleContract child : master.getChildContracts()) {
+            masterBalance += child.getContractPaymentData().getOutstandingBalance();
+        }
+        int singleBalance = single.getContractPaymentData().getOutstandingBalance();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    company.getHandler().pay(single, 3);
+                    company.getHandler().pay(master, 7);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // The money paid on the master contract is spread over its children without losing any of it
+        int masterBalanceAfter = 0;
+        for (SingleVehicleContract child : master.getChildContracts()) {
+            masterBalanceAfter += child.getContractPaymentData().getOutstandingBalance();
+        }
+        assertEquals(singleBalance - 8 * 500 * 3, single.getContractPaymentData().getOutstandingBalance());
+        assertEquals(masterBalance - 8 * 500 * 7, masterBalanceAfter);
+        assertEquals(8 * 500, company.getHandler().getPaymentHistory().get(single).size());
+        assertEquals(8 * 500, company.getHandler().getPaymentHistory().get(master).size());
+    }
+
+    @Test
+    void testConcurrentClaimsOnSameContractPayOnce() throws Exception {
+        InsuranceCompany company = new InsuranceCompany(testTime, 4);
+        Person holder = new Person("12345678");
+        Person traveller = new Person("8004172022");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int round = 0; round < 50; round++) {
+            TravelContract travel = company.insurePersons("T" + round, holder, 100, PremiumPaymentFrequency.ANNUAL,
+                    Set.of(traveller));
+            AtomicInteger accepted = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        company.processClaim(travel, Set.of(traveller));
+                        accepted.incrementAndGet();
+                    } catch (InvalidContractException e) {
+                        // Another claim deactivated the contract first
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(1, accepted.get());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Each contract pays its coverage exactly once
+        assertEquals(50 * 10, traveller.getPaidOutAmount());
+    }
+
+    @Test
+    void testConcurrentAccessWithInvalidLockStripes() {
+        assertThrows(IllegalArgumentException.class, () -> new InsuranceCompany(testTime, 0));
+        assertThrows(IllegalArgumentException.class, () -> new InsuranceCompany(null, 4));
+        assertFalse(new InsuranceCompany(testTime).isConcurrentAccessEnabled());
+    }
+
+    @Test
+    void testColumnarPaymentDataWithConcurrentAccess() {
+        InsuranceCompany company = new InsuranceCompany(testTime, 4);
+
+        assertThrows(IllegalStateException.class, () -> company.enableColumnarPaymentData(16));
+        assertFalse(company.isColumnarPaymentDataEnabled());
+    }
+
+    @Test
+    void testFindContractByLicensePlate() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        List<SingleVehicleContract> contracts = insureFleet(company, 200);
+
+        for (int i = 0; i < contracts.size(); i++) {
+            String plate = String.format("AB%05d", i);
+            assertSame(contracts.get(i), company.findContractByLicensePlate(plate));
+            assertSame(contracts.get(i), company.findContractByLicensePlate(LicensePlates.encode(plate)));
+        }
+        assertNull(company.findContractByLicensePlate("ZZ99999"));
+        assertThrows(IllegalArgumentException.class, () -> company.findContractByLicensePlate("ab"));
+    }
+
+    @Test
+    void testIsLicensePlateInsured() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person policyHolder = new Person("12345678");
+        long plate = LicensePlates.encode("ABC1234");
+        assertFalse(company.isLicensePlateInsured(plate));
+
+        SingleVehicleContract first = company.insureVehicle("C1", null, policyHolder, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+        assertTrue(company.isLicensePlateInsured(plate));
+
+        // A total loss deactivates the contract, insuring the vehicle again replaces the index entry
+        company.processClaim(first, 10000);
+        assertFalse(company.isLicensePlateInsured(plate));
+
+        SingleVehicleContract second = company.insureVehicle("C2", null, policyHolder, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+        assertTrue(company.isLicensePlateInsured(plate));
+        assertSame(second, company.findContractByLicensePlate(plate));
+    }
+
+    @Test
+    void testIsLicensePlateInsuredByOlderContract() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person policyHolder = new Person("12345678");
+        long plate = LicensePlates.encode("ABC1234");
+
+        SingleVehicleContract first = company.insureVehicle("C1", null, policyHolder, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+        SingleVehicleContract second = company.insureVehicle("C2", null, policyHolder, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+
+        // The newest contract is lost, the older one still covers the vehicle
+        company.processClaim(second, 10000);
+        assertSame(second, company.findContractByLicensePlate(plate));
+        assertTrue(company.isLicensePlateInsured(plate));
+
+        // Deactivating the older contract as a child of a master removes it from the index as well
+        MasterVehicleContract master = company.createMasterVehicleContract("M1", null, policyHolder);
+        company.moveSingleVehicleContractToMasterVehicleContract(master, first);
+        master.setInactive();
+        assertFalse(company.isLicensePlateInsured(plate));
+    }
+
+    @Test
+    void testFindContractsByPolicyHolder() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person holder = new Person("12345678");
+        Person otherHolder = new Person("87654321");
+
+        SingleVehicleContract single = company.insureVehicle("C1", null, holder, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+        TravelContract travel = company.insurePersons("T1", holder, 40, PremiumPaymentFrequency.ANNUAL,
+                Set.of(new Person("8004172022")));
+        MasterVehicleContract master = company.createMasterVehicleContract("M1", null, holder);
+        SingleVehicleContract other = company.insureVehicle("C2", null, otherHolder, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("XYZ9876", 10000));
+
+        // Results are in the order the contracts were created, the index is keyed by ID, not by instance
+        assertEquals(List.of(single, travel, master), company.findContractsByPolicyHolder("12345678"));
+        assertEquals(List.of(other), company.findContractsByPolicyHolder(new Person("87654321").getId()));
+        assertTrue(company.findContractsByPolicyHolder("8004172022").isEmpty());
+
+        // A contract moved to a master contract is reached through the master contract
+        company.moveSingleVehicleContractToMasterVehicleContract(master, single);
+        assertEquals(List.of(travel, master), company.findContractsByPolicyHolder("12345678"));
+
+        // Inactive contracts still belong to their policy holder
+        travel.setInactive();
+        assertEquals(List.of(travel, master), company.findContractsByPolicyHolder("12345678"));
+        assertThrows(IllegalArgumentException.class, () -> company.findContractsByPolicyHolder(null));
+    }
+
+    @Test
+    void testFindTravelContractsByInsuredPerson() {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person holder = new Person("12345678");
+        Person traveller = new Person("8004172022");
+        Person otherTraveller = new Person("8054176449");
+
+        TravelContract first = company.insurePersons("T1", holder, 40, PremiumPaymentFrequency.ANNUAL,
+                Set.of(traveller, otherTraveller));
+        TravelContract second = company.insurePersons("T2", holder, 40, PremiumPaymentFrequency.ANNUAL,
+                Set.of(traveller));
+
+        assertEquals(List.of(first, second), company.findTravelContractsByInsuredPerson("8004172022"));
+        assertEquals(List.of(first), company.findTravelContractsByInsuredPerson("8054176449"));
+
+        // A claim deactivates the contract, it no longer covers its persons
+        company.processClaim(first, Set.of(otherTraveller));
+        assertEquals(List.of(second), company.findTravelContractsByInsuredPerson("8004172022"));
+        assertTrue(company.findTravelContractsByInsuredPerson("8054176449").isEmpty());
+
+        second.setInactive();
+        assertTrue(company.findTravelContractsByInsuredPerson("8004172022").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> company.findTravelContractsByInsuredPerson(null));
+        assertThrows(IllegalArgumentException.class, () -> company.contractDeactivated(null));
+        assertThrows(IllegalArgumentException.class, () -> company.contractDeactivated(
+                company.insurePersons("T3", holder, 40, PremiumPaymentFrequency.ANNUAL, Set.of(traveller))));
+    }
+
+    @Test
+    void testPolicyHolderIndexWithManyContracts() {
+        // Removing from a large set shifts entries back, all remaining contracts must stay reachable
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person holder = new Person("12345678");
+        MasterVehicleContract master = company.createMasterVehicleContract("M", null, holder);
+        List<SingleVehicleContract> singles = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            singles.add(company.insureVehicle("C" + i, null, holder, 100, PremiumPaymentFrequency.MONTHLY,
+                    new Vehicle(String.format("AB%05d", i), 10000)));
+        }
+
+        List<Object> expected = new ArrayList<>();
+        expected.add(master);
+        for (int i = 0; i < singles.size(); i++) {
+            if (i % 3 == 0) {
+                company.moveSingleVehicleContractToMasterVehicleContract(master, singles.get(i));
+            } else {
+                expected.add(singles.get(i));
+            }
+        }
+        assertEquals(expected, company.findContractsByPolicyHolder("12345678"));
+    }
+}
@@ -0,0 +1,159 @@
+package company;
+
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import objects.Person;
+import objects.Vehicle;
+import org.junit.jupiter.api.Test;
+import payment.PaymentStatus;
+import payment.PremiumPaymentFrequency;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedInsuranceCompanyTest {
+
+    LocalDateTime testTime = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    private static String birthNumber(int index) {
+        // Legal person IDs are eight digits
+        return String.format("%08d", 10_000_000 + index);
+    }
+
+    @Test
+    void testPartitionsMatchSingleCompany() {
+        InsuranceCompany expected = new InsuranceCompany(testTime);
+        List<SingleVehicleContract> expectedContracts = new ArrayList<>();
+        List<SingleVehicleContract> contracts = new ArrayList<>();
+        List<MasterVehicleContract> masters = new ArrayList<>();
+
+        try (PartitionedInsuranceCompany company = new PartitionedInsuranceCompany(testTime, 4)) {
+            for (int holder = 0; holder < 20; holder++) {
+                Person expectedHolder = new Person(birthNumber(holder));
+                Person policyHolder = new Person(birthNumber(holder));
+                MasterVehicleContract expectedMaster = expected.createMasterVehicleContract("M" + holder, null,
+                        expectedHolder);
+                MasterVehicleContract master = company.createMasterVehicleContract("M" + holder, null,
+                        policyHolder).join();
+                masters.add(master);
+
+                for (int i = 0; i < 3; i++) {
+                    String number = "C" + holder + "-" + i;
+                    Vehicle vehicle = new Vehicle(String.format("AB%03d%02d", holder, i), 10000);
+                    SingleVehicleContract expectedContract = expected.insureVehicle(number, null, expectedHolder,
+                            100 + i, PremiumPaymentFrequency.MONTHLY, vehicle);
+                    SingleVehicleContract contract = company.insureVehicle(number, null, policyHolder, 100 + i,
+                            PremiumPaymentFrequency.MONTHLY, vehicle).join();
+
+                    // A fleet stays in the partition of its policy holder
+                    assertSame(master.getInsurer(), contract.getInsurer());
+                    assertEquals(company.getPartitionIndex(policyHolder), company.getPartitionIndex(number));
+
+                    if (i == 0) {
+                        expected.moveSingleVehicleContractToMasterVehicleContract(expectedMaster, expectedContract);
+                        company.moveSingleVehicleContractToMasterVehicleContract(master, contract).join();
+                    }
+                    expectedContracts.add(expectedContract);
+                    contracts.add(contract);
+                }
+            }
+
+            for (int round = 0; round < 3; round++) {
+                List<CompletableFuture<PaymentStatus>> payments = new ArrayList<>();
+                for (int i = 0; i < contracts.size(); i++) {
+                    expected.getHandler().pay(expectedContracts.get(i), 30 + i);
+                    payments.add(company.pay(contracts.get(i), 30 + i));
+                }
+                for (CompletableFuture<PaymentStatus> payment : payments) {
+                    assertEquals(PaymentStatus.ACCEPTED, payment.join());
+                }
+
+                expected.setCurrentTime(testTime.plusMonths(round + 1));
+                expected.chargePremiumsOnContracts();
+                company.setCurrentTime(testTime.plusMonths(round + 1));
+                company.chargePremiumsOnContracts().join();
+            }
+
+            for (int i = 0; i < contracts.size(); i++) {
+                assertEquals(expectedContracts.get(i).getContractPaymentData().getOutstandingBalance(),
+                        company.getView(contracts.get(i)).getOutstandingBalance());
+            }
+            for (MasterVehicleContract master : masters) {
+                assertEquals(master.getChildContracts().iterator().next().getContractPaymentData()
+                        .getOutstandingBalance(), company.getView(master).getOutstandingBalance());
+            }
+        }
+
+        // The holders are spread over more than one partition
+        long usedPartitions = contracts.stream().map(contract -> contract.getInsurer()).distinct().count();
+        assertTrue(usedPartitions > 1);
+    }
+
+    @Test
+    void testContractNumbersAreUniqueAcrossPartitions() throws Exception {
+        try (PartitionedInsuranceCompany company = new PartitionedInsuranceCompany(testTime, 8)) {
+            Person first = new Person(birthNumber(1));
+            Person second = new Person(birthNumber(2));
+            int index = 3;
+            while (company.getPartitionIndex(second) == company.getPartitionIndex(first)) {
+                second = new Person(birthNumber(index++));
+            }
+
+            company.createMasterVehicleContract("M1", null, first).join();
+            ExecutionException duplicate = assertThrows(ExecutionException.class,
+                    () -> company.createMasterVehicleContract("M1", null, new Person(birthNumber(2))).get());
+            assertInstanceOf(IllegalArgumentException.class, duplicate.getCause());
+
+            // A failed creation releases the contract number
+            ExecutionException invalid = assertThrows(ExecutionException.class, () -> company.insureVehicle("C1",
+                    null, first, 0, PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000)).get());
+            assertInstanceOf(IllegalArgumentException.class, invalid.getCause());
+            assertEquals(-1, company.getPartitionIndex("C1"));
+            SingleVehicleContract contract = company.insureVehicle("C1", null, second, 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000)).get();
+            assertEquals(company.getPartitionIndex(second), company.getPartitionIndex("C1"));
+
+            // Contracts of different holders never share a partition, so a move between them is rejected
+            MasterVehicleContract master = (MasterVehicleContract) company.getPartition(
+                    company.getPartitionIndex(first)).getCompany().findContract("M1");
+            assertThrows(ExecutionException.class,
+                    () -> company.moveSingleVehicleContractToMasterVehicleContract(master, contract).get());
+        }
+    }
+
+    @Test
+    void testInvalidUsage() {
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedInsuranceCompany(null, 2));
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedInsuranceCompany(testTime, 0));
+
+        PartitionedInsuranceCompany company = new PartitionedInsuranceCompany(testTime, 2);
+        assertEquals(2, company.getPartitionCount());
+        assertThrows(IllegalArgumentException.class, () -> company.getPartition(2));
+        assertThrows(IllegalArgumentException.class, () -> company.getPartitionIndex((Person) null));
+        assertThrows(IllegalArgumentException.class, () -> company.getPartitionIndex((String) null));
+        assertThrows(IllegalArgumentException.class, () -> company.getView(null));
+        assertEquals(PaymentStatus.MISSING_CONTRACT, company.pay(null, 10).join());
+
+        // A contract of an unrelated company is routed to a partition that rejects it
+        InsuranceCompany foreignCompany = new InsuranceCompany(testTime);
+        SingleVehicleContract foreign = foreignCompany.insureVehicle("F1", null, new Person(birthNumber(1)), 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+        assertEquals(PaymentStatus.FOREIGN_CONTRACT, company.pay(foreign, 10).join());
+        assertNull(company.getView(foreign));
+
+        ExecutionException missingHolder = assertThrows(ExecutionException.class,
+                () -> company.createMasterVehicleContract("M1", null, null).get());
+        assertInstanceOf(IllegalArgumentException.class, missingHolder.getCause());
+
+        company.close();
+        ExecutionException closedError = assertThrows(ExecutionException.class,
+                () -> company.createMasterVehicleContract("M1", null, new Person(birthNumber(1))).get());
+        assertInstanceOf(IllegalStateException.class, closedError.getCause());
+        assertEquals(-1, company.getPartitionIndex("M1"));
+    }
+}
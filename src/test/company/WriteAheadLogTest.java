@@ -0,0 +1,381 @@
+package company;
+
+import contracts.AbstractContract;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import contracts.TravelContract;
+import objects.Person;
+import objects.Vehicle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import payment.ContractPaymentData;
+import payment.PremiumPaymentFrequency;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogTest {
+
+    LocalDateTime testTime = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    private InsuranceCompany runScenario(Path log) throws IOException {
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 4)) {
+            company.attachWriteAheadLog(writeAheadLog);
+
+            Person legalPerson = new Person("12345678");
+            Person traveller = new Person("8004172022");
+            Person otherTraveller = new Person("8054176449");
+
+            MasterVehicleContract master = company.createMasterVehicleContract("M1", null, legalPerson);
+            SingleVehicleContract first = company.insureVehicle("C1", traveller, legalPerson, 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+            SingleVehicleContract second = company.insureVehicle("C2", null, legalPerson, 250,
+                    PremiumPaymentFrequency.QUARTERLY, new Vehicle("XYZ9876", 20000));
+            SingleVehicleContract third = company.insureVehicle("C3", null, legalPerson, 90,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("BA00001", 5000));
+            TravelContract travel = company.insurePersons("T1", legalPerson, 40, PremiumPaymentFrequency.ANNUAL,
+                    Set.of(traveller, otherTraveller));
+
+            company.moveSingleVehicleContractToMasterVehicleContract(master, first);
+            company.moveSingleVehicleContractToMasterVehicleContract(master, second);
+
+            company.setCurrentTime(testTime.plusMonths(4));
+            company.chargePremiumsOnContracts();
+            company.getHandler().pay(master, 777);
+            company.getHandler().pay(third, 55);
+            company.processClaim(third, 4000);
+            company.processClaim(travel, Set.of(otherTraveller));
+
+            company.setCurrentTime(testTime.plusMonths(7).plusDays(3));
+            company.chargePremiumsOnContracts();
+            company.getHandler().pay(master, 120);
+        }
+        return company;
+    }
+
+    private static void assertSamePaymentData(AbstractContract expected, AbstractContract actual) {
+        ContractPaymentData expectedData = expected.getContractPaymentData();
+        ContractPaymentData actualData = actual.getContractPaymentData();
+
+        assertEquals(expectedData.getOutstandingBalance(), actualData.getOutstandingBalance());
+        assertEquals(expectedData.getNextPaymentTime(), actualData.getNextPaymentTime());
+        assertEquals(expected.isActive(), actual.isActive());
+    }
+
+    private static void assertSameState(InsuranceCompany expected, InsuranceCompany actual) {
+        assertEquals(expected.getCurrentTime(), actual.getCurrentTime());
+        assertEquals(expected.getContracts().size(), actual.getContracts().size());
+
+        MasterVehicleContract expectedMaster = (MasterVehicleContract) expected.findContract("M1");
+        MasterVehicleContract actualMaster = (MasterVehicleContract) actual.findContract("M1");
+        assertEquals(expectedMaster.getChildContracts().size(), actualMaster.getChildContracts().size());
+
+        var expectedChildren = expectedMaster.getChildContracts().iterator();
+        var actualChildren = actualMaster.getChildContracts().iterator();
+        while (expectedChildren.hasNext()) {
+            SingleVehicleContract expectedChild = expectedChildren.next();
+            SingleVehicleContract actualChild = actualChildren.next();
+            assertEquals(expectedChild.getContractNumber(), actualChild.getContractNumber());
+            assertSamePaymentData(expectedChild, actualChild);
+        }
+        for (String number : new String[]{"C3", "T1"}) {
+            assertSamePaymentData(expected.findContract(number), actual.findContract(number));
+        }
+
+        assertEquals(expected.getHandler().getPaymentHistory().get(expectedMaster),
+                actual.getHandler().getPaymentHistory().get(actualMaster));
+        assertEquals(expected.getHandler().getPaymentHistory().get(expected.findContract("C3")),
+                actual.getHandler().getPaymentHistory().get(actual.findContract("C3")));
+
+        // Payouts land on the shared persons of the replayed company
+        TravelContract expectedTravel = (TravelContract) expected.findContract("T1");
+        for (Person person : expectedTravel.getInsuredPersons()) {
+            assertEquals(person.getPaidOutAmount(),
+                    actual.getPersonRegistry().find(person.getId()).getPaidOutAmount());
+        }
+        Person expectedHolder = expected.findContract("C3").getPolicyHolder();
+        assertTrue(expectedHolder.getPaidOutAmount() > 0);
+        assertEquals(expectedHolder.getPaidOutAmount(),
+                actual.getPersonRegistry().find(expectedHolder.getId()).getPaidOutAmount());
+    }
+
+    @Test
+    void testReplayRebuildsCompanyState() throws IOException {
+        Path log = directory.resolve("company.wal");
+        InsuranceCompany original = runScenario(log);
+
+        InsuranceCompany replayed = new InsuranceCompany(LocalDateTime.of(2000, 1, 1, 0, 0));
+        long records = WriteAheadLog.replay(log, replayed);
+
+        // Initial time, 5 contracts, 2 moves, 2 time changes, 2 billing runs, 3 payments and 2 claims
+        assertEquals(17, records);
+        assertSameState(original, replayed);
+        assertFalse(replayed.findContract("C3").isActive());
+        assertFalse(replayed.findContract("T1").isActive());
+    }
+
+    @Test
+    void testReplayIgnoresTornTail() throws IOException {
+        Path log = directory.resolve("company.wal");
+        InsuranceCompany original = runScenario(log);
+
+        // A crash in the middle of a write leaves an incomplete record at the end
+        Files.write(log, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        InsuranceCompany replayed = new InsuranceCompany(testTime);
+        assertEquals(17, WriteAheadLog.replay(log, replayed));
+        assertSameState(original, replayed);
+    }
+
+    @Test
+    void testReopenedLogAppendsAfterValidRecords() throws IOException {
+        Path log = directory.resolve("company.wal");
+        runScenario(log);
+        Files.write(log, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // Recovery: replay, then keep logging into the same file
+        InsuranceCompany recovered = new InsuranceCompany(testTime);
+        WriteAheadLog.replay(log, recovered);
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 100)) {
+            recovered.attachWriteAheadLog(writeAheadLog);
+            recovered.getHandler().pay((MasterVehicleContract) recovered.findContract("M1"), 50);
+        }
+
+        InsuranceCompany replayed = new InsuranceCompany(testTime);
+        assertEquals(19, WriteAheadLog.replay(log, replayed));
+        assertEquals(3, replayed.getHandler().getPaymentHistory().get(replayed.findContract("M1")).size());
+    }
+
+    @Test
+    void testReplayRestoresPaymentReferences() throws IOException {
+        Path log = directory.resolve("company.wal");
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 4)) {
+            company.attachWriteAheadLog(writeAheadLog);
+            SingleVehicleContract contract = company.insureVehicle("C1", null, new Person("12345678"), 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+            company.getHandler().pay(contract, 40, "BANK-1");
+            company.getHandler().pay(contract, 60);
+        }
+
+        InsuranceCompany replayed = new InsuranceCompany(testTime);
+        assertEquals(4, WriteAheadLog.replay(log, replayed));
+        assertSamePaymentData(company.findContract("C1"), replayed.findContract("C1"));
+
+        // A retried delivery after recovery is still recognized
+        assertFalse(replayed.getHandler().pay(replayed.findContract("C1"), 40, "BANK-1"));
+        assertEquals(2, replayed.getHandler().getPaymentHistory().get(replayed.findContract("C1")).size());
+    }
+
+    @Test
+    void testCallerReturnsAfterItsRecordIsWritten() throws IOException {
+        Path log = directory.resolve("company.wal");
+        InsuranceCompany company = new InsuranceCompany(testTime);
+
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 1000, Duration.ofMillis(1))) {
+            company.attachWriteAheadLog(writeAheadLog);
+            long initialSize = Files.size(log);
+
+            // The group is never full, the commit delay bounds the wait
+            company.setCurrentTime(testTime.plusDays(1));
+            long afterTimeChange = Files.size(log);
+            assertTrue(afterTimeChange > initialSize);
+
+            // Records of a batch are written together when the batch ends
+            writeAheadLog.beginBatch();
+            company.setCurrentTime(testTime.plusDays(2));
+            company.setCurrentTime(testTime.plusDays(3));
+            assertEquals(afterTimeChange, Files.size(log));
+            writeAheadLog.endBatch();
+            assertTrue(Files.size(log) > afterTimeChange);
+
+            assertThrows(IllegalStateException.class, writeAheadLog::endBatch);
+        }
+
+        InsuranceCompany replayed = new InsuranceCompany(testTime);
+        assertEquals(4, WriteAheadLog.replay(log, replayed));
+        assertEquals(testTime.plusDays(3), replayed.getCurrentTime());
+    }
+
+    @Test
+    void testConcurrentCallersShareCommits() throws Exception {
+        Path log = directory.resolve("company.wal");
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 8, Duration.ofMillis(2))) {
+            company.attachWriteAheadLog(writeAheadLog);
+            SingleVehicleContract contract = company.insureVehicle("C1", null, new Person("12345678"), 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+
+            long initialSize = Files.size(log);
+            List<Future<Long>> sizes = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                sizes.add(executor.submit(() -> {
+                    company.getHandler().pay(contract, 1);
+                    return Files.size(log);
+                }));
+            }
+
+            // Each payment is on disk when its caller returns
+            for (Future<Long> size : sizes) {
+                assertTrue(size.get() > initialSize);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        InsuranceCompany replayed = new InsuranceCompany(testTime);
+        assertEquals(402, WriteAheadLog.replay(log, replayed));
+        assertSamePaymentData(company.findContract("C1"), replayed.findContract("C1"));
+        assertEquals(400, replayed.getHandler().getPaymentHistory().get(replayed.findContract("C1")).size());
+    }
+
+    @Test
+    void testDirectPremiumChargesAreReplayed() throws IOException {
+        Path log = directory.resolve("company.wal");
+        InsuranceCompany company = new InsuranceCompany(testTime);
+
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 4)) {
+            company.attachWriteAheadLog(writeAheadLog);
+            Person legalPerson = new Person("12345678");
+            MasterVehicleContract master = company.createMasterVehicleContract("M1", null, legalPerson);
+            SingleVehicleContract child = company.insureVehicle("C1", null, legalPerson, 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+            SingleVehicleContract single = company.insureVehicle("C2", null, legalPerson, 250,
+                    PremiumPaymentFrequency.QUARTERLY, new Vehicle("XYZ9876", 20000));
+            company.moveSingleVehicleContractToMasterVehicleContract(master, child);
+
+            // Charges outside chargePremiumsOnContracts get a record per charged contract
+            company.setCurrentTime(testTime.plusMonths(4));
+            single.updateBalance();
+            master.updateBalance();
+        }
+
+        InsuranceCompany replayed = new InsuranceCompany(testTime);
+        assertEquals(8, WriteAheadLog.replay(log, replayed));
+        assertSamePaymentData(company.findContract("C2"), replayed.findContract("C2"));
+        assertSamePaymentData(
+                ((MasterVehicleContract) company.findContract("M1")).getChildContracts().iterator().next(),
+                ((MasterVehicleContract) replayed.findContract("M1")).getChildContracts().iterator().next());
+    }
+
+    @Test
+    void testBillingAndMasterPaymentsReplayInTheirOrder() throws Exception {
+        Path log = directory.resolve("company.wal");
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 8, Duration.ofMillis(1))) {
+            company.attachWriteAheadLog(writeAheadLog);
+            Person legalPerson = new Person("12345678");
+            MasterVehicleContract master = company.createMasterVehicleContract("M1", null, legalPerson);
+            for (int i = 0; i < 3; i++) {
+                SingleVehicleContract child = company.insureVehicle("C" + i, null, legalPerson, 100 + 50 * i,
+                        PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC123" + i, 10000));
+                company.moveSingleVehicleContractToMasterVehicleContract(master, child);
+            }
+
+            // Master payments split by current balances, so they must land in the log in the order billing saw them
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int month = i;
+                tasks.add(executor.submit(() -> {
+                    if (month % 10 == 0) {
+                        company.setCurrentTime(testTime.plusMonths(month / 10 + 1));
+                        company.chargePremiumsOnContracts();
+                    } else {
+                        company.getHandler().pay(master, 37);
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        InsuranceCompany replayed = new InsuranceCompany(testTime);
+        WriteAheadLog.replay(log, replayed);
+        var children = ((MasterVehicleContract) company.findContract("M1")).getChildContracts().iterator();
+        for (SingleVehicleContract child : ((MasterVehicleContract) replayed.findContract("M1")).getChildContracts()) {
+            assertSamePaymentData(children.next(), child);
+        }
+    }
+
+    @Test
+    void testFailedLogLeavesStateUnchanged() throws IOException {
+        Path log = directory.resolve("company.wal");
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        Person legalPerson = new Person("12345678");
+        WriteAheadLog writeAheadLog = new WriteAheadLog(log, 1);
+        company.attachWriteAheadLog(writeAheadLog);
+        SingleVehicleContract contract = company.insureVehicle("C1", null, legalPerson, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC1234", 10000));
+        MasterVehicleContract master = company.createMasterVehicleContract("M1", null, legalPerson);
+        int balance = contract.getContractPaymentData().getOutstandingBalance();
+        int slotCount = company.getContractSlotCount();
+        writeAheadLog.close();
+
+        // Every change is logged before it is applied, a log that cannot accept it leaves the company unchanged
+        assertThrows(IllegalStateException.class, () -> company.setCurrentTime(testTime.plusMonths(1)));
+        assertEquals(testTime, company.getCurrentTime());
+        assertThrows(IllegalStateException.class, () -> company.insureVehicle("C2", null, legalPerson, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("XYZ9876", 10000)));
+        assertNull(company.findContract("C2"));
+        assertEquals(slotCount, company.getContractSlotCount());
+        assertNull(company.findContractByLicensePlate("XYZ9876"));
+        assertThrows(IllegalStateException.class,
+                () -> company.moveSingleVehicleContractToMasterVehicleContract(master, contract));
+        assertTrue(company.getContracts().contains(contract));
+        assertTrue(master.getChildContracts().isEmpty());
+        assertThrows(IllegalStateException.class, () -> company.processClaim(contract, 10000));
+        assertTrue(contract.isActive());
+        assertEquals(0, legalPerson.getPaidOutAmount());
+
+        // A rejected payment neither changes the balance nor consumes its reference
+        assertThrows(IllegalStateException.class, () -> company.getHandler().pay(contract, 40, "BANK-1"));
+        assertEquals(balance, contract.getContractPaymentData().getOutstandingBalance());
+        assertNull(company.getHandler().getPaymentHistory().get(contract));
+        assertFalse(company.getHandler().getDeduplicator().contains("BANK-1"));
+    }
+
+    @Test
+    void testInvalidUsage() throws IOException {
+        Path log = directory.resolve("company.wal");
+        assertThrows(IllegalArgumentException.class, () -> new WriteAheadLog(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new WriteAheadLog(log, 0));
+        assertThrows(IllegalArgumentException.class, () -> new WriteAheadLog(log, 1, Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> new WriteAheadLog(log, 1, null));
+
+        InsuranceCompany company = new InsuranceCompany(testTime);
+        assertThrows(IllegalArgumentException.class, () -> company.attachWriteAheadLog(null));
+
+        try (WriteAheadLog writeAheadLog = new WriteAheadLog(log, 1)) {
+            company.attachWriteAheadLog(writeAheadLog);
+            assertThrows(IllegalStateException.class, () -> company.attachWriteAheadLog(writeAheadLog));
+            assertThrows(IllegalStateException.class, () -> WriteAheadLog.replay(log, company));
+        }
+
+        Path notLog = directory.resolve("not.wal");
+        Files.write(notLog, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> WriteAheadLog.replay(notLog, new InsuranceCompany(testTime)));
+    }
+}
@@ -9,6 +9,7 @@ import payment.ContractPaymentData;
 import payment.PremiumPaymentFrequency;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -109,4 +110,43 @@ public class AbstractContractTest {
             contract.setCoverageAmount(-1000);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testContractSlots() {
+        ContractPaymentData paymentData = new ContractPaymentData(100, PremiumPaymentFrequency.ANNUAL, insuranceCompany.getCurrentTime(), 0);
+        SingleVehicleContract first = new SingleVehicleContract("C1", insuranceCompany, null, policyHolder, paymentData, 5000, vehicle1);
+        SingleVehicleContract second = new SingleVehicleContract("C2", insuranceCompany, null, policyHolder, paymentData, 5000, vehicle1);
+        SingleVehicleContract sameNumber = new SingleVehicleContract("C1", insuranceCompany, null, policyHolder, paymentData, 5000, vehicle1);
+
+        // Slots are dense per company and shared by equal contracts
+        assertEquals(0, first.getSlot());
+        assertEquals(1, second.getSlot());
+        assertEquals(first.getSlot(), sameNumber.getSlot());
+        assertEquals(2, insuranceCompany.getContractSlotCount());
+        assertEquals(first.getSlot(), insuranceCompany.getContractSlot("C1"));
+
+        InsuranceCompany otherCompany = new InsuranceCompany(LocalDateTime.now());
+        SingleVehicleContract otherContract = new SingleVehicleContract("C2", otherCompany, null, policyHolder, paymentData, 5000, vehicle1);
+        assertEquals(0, otherContract.getSlot());
+        assertNotEquals(first, otherContract);
+
+        assertThrows(IllegalArgumentException.class, () -> insuranceCompany.getContractSlot(null));
+    }
+
+    @Test
+    public void testFailedContractsDoNotTakeSlots() {
+        ContractPaymentData paymentData = new ContractPaymentData(100, PremiumPaymentFrequency.ANNUAL, insuranceCompany.getCurrentTime(), 0);
+
+        // Validation in the subclass constructor fails after the abstract constructor has run
+        assertThrows(IllegalArgumentException.class,
+                () -> new SingleVehicleContract("C1", insuranceCompany, null, policyHolder, paymentData, 5000, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> insuranceCompany.insureVehicle("C2", null, policyHolder, 1, PremiumPaymentFrequency.ANNUAL, vehicle1));
+        assertEquals(0, insuranceCompany.getContractSlotCount());
+
+        SingleVehicleContract contract = insuranceCompany.insureVehicle("C3", null, policyHolder, 1000,
+                PremiumPaymentFrequency.ANNUAL, vehicle1);
+        assertEquals(0, contract.getSlot());
+        assertEquals(1, insuranceCompany.getContractSlotCount());
+    }
+}
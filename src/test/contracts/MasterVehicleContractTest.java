@@ -612,4 +612,111 @@ class MasterVehicleContractTest {
         );
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void testIsActiveAfterRepeatedChildDeactivation() {
+        masterContract.requestAdditionOfChildContract(contract1);
+        masterContract.requestAdditionOfChildContract(contract2);
+
+        // Deactivating an already inactive child must not be counted twice
+        contract1.setInactive();
+        contract1.setInactive();
+        assertTrue(masterContract.isActive());
+
+        contract2.setInactive();
+        assertFalse(masterContract.isActive());
+    }
+
+    @Test
+    void testIsActiveFollowsDirectChildSetChanges() {
+        masterContract.requestAdditionOfChildContract(contract1);
+        assertTrue(masterContract.isActive());
+
+        // Children added straight into the set are picked up on the next check
+        masterContract.getChildContracts().add(contract2);
+        contract1.setInactive();
+        assertTrue(masterContract.isActive());
+
+        contract2.setInactive();
+        assertFalse(masterContract.isActive());
+
+        // Removing the inactive children leaves the master without children again
+        masterContract.getChildContracts().clear();
+        assertTrue(masterContract.isActive());
+    }
+
+    @Test
+    void testChildSharedByTwoMastersNotifiesBoth() {
+        MasterVehicleContract otherMaster = company.createMasterVehicleContract("MC002", beneficiary, legalPerson);
+        masterContract.getChildContracts().add(contract1);
+        otherMaster.getChildContracts().add(contract1);
+        assertTrue(masterContract.isActive());
+        assertTrue(otherMaster.isActive());
+
+        contract1.setInactive();
+
+        assertFalse(masterContract.isActive());
+        assertFalse(otherMaster.isActive());
+    }
+
+    @Test
+    void testAddChildContractCountsInactiveChild() {
+        contract1.setInactive();
+        masterContract.addChildContract(contract1);
+        assertFalse(masterContract.isActive());
+
+        masterContract.addChildContract(contract2);
+        masterContract.addChildContract(contract2);
+        assertEquals(2, masterContract.getChildContracts().size());
+        assertTrue(masterContract.isActive());
+
+        assertThrows(IllegalArgumentException.class, () -> masterContract.addChildContract(null));
+    }
+
+    @Test
+    void testIsActiveAfterDirectRemoveThenAdd() {
+        masterContract.requestAdditionOfChildContract(contract1);
+        contract2.setInactive();
+        assertTrue(masterContract.isActive());
+
+        // Swapping the only active child for an inactive one keeps the set size the same
+        masterContract.getChildContracts().remove(contract1);
+        masterContract.getChildContracts().add(contract2);
+        assertFalse(masterContract.isActive());
+
+        // And the other way round, an active child replaces the inactive one
+        masterContract.getChildContracts().remove(contract2);
+        masterContract.getChildContracts().add(contract3);
+        assertTrue(masterContract.isActive());
+    }
+
+    @Test
+    void testIsActiveFollowsChildDeactivation() {
+        masterContract.addChildContract(contract1);
+        masterContract.addChildContract(contract2);
+        masterContract.addChildContract(contract1);
+
+        // Each child is counted once, its deactivation is reported back to the master
+        contract1.setInactive();
+        assertTrue(masterContract.isActive());
+        contract2.setInactive();
+        contract2.setInactive();
+        assertFalse(masterContract.isActive());
+        assertFalse(masterContract.isActive());
+
+        // An inactive child does not revive the master, an active one does
+        contract4.setInactive();
+        masterContract.addChildContract(contract4);
+        assertFalse(masterContract.isActive());
+        masterContract.addChildContract(contract3);
+        assertTrue(masterContract.isActive());
+
+        // A child shared with another master reports its deactivation to both
+        MasterVehicleContract otherMaster = new MasterVehicleContract("MC002", company, null, legalPerson);
+        otherMaster.addChildContract(contract3);
+        assertTrue(otherMaster.isActive());
+        contract3.setInactive();
+        assertFalse(masterContract.isActive());
+        assertFalse(otherMaster.isActive());
+    }
+}
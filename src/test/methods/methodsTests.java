@@ -774,7 +774,7 @@ public class methodsTests {
                 singleContract.getContractPaymentData().getOutstandingBalance());
 
         // Verify second payment recorded
-        assertEquals(1, history.get(singleContract).size());
+        assertEquals(2, history.get(singleContract).size());
 
         // Test 3: Null contract
         assertThrows(IllegalArgumentException.class, () ->
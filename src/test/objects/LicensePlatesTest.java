@@ -0,0 +1,45 @@
+package objects;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LicensePlatesTest {
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        String[] plates = {"0000000", "ZZZZZZZ", "ABC1234", "BA12345", "9Z0A8Y1"};
+
+        for (String plate : plates) {
+            assertEquals(plate, LicensePlates.decode(LicensePlates.encode(plate)));
+        }
+        assertEquals(0, LicensePlates.encode("0000000"));
+        assertEquals(78_364_164_095L, LicensePlates.encode("ZZZZZZZ"));
+    }
+
+    @Test
+    void testEncodingKeepsPlateOrder() {
+        assertTrue(LicensePlates.encode("ABC1234") < LicensePlates.encode("ABC1235"));
+        assertTrue(LicensePlates.encode("ABC9999") < LicensePlates.encode("ABCA000"));
+        assertTrue(LicensePlates.encode("Z000000") > LicensePlates.encode("9ZZZZZZ"));
+    }
+
+    @Test
+    void testInvalidPlates() {
+        String[] invalid = {null, "", "ABC123", "ABC12345", "abc1234", "ABC-123", "ABČ1234"};
+
+        for (String plate : invalid) {
+            assertFalse(LicensePlates.isValid(plate));
+            assertThrows(IllegalArgumentException.class, () -> LicensePlates.encode(plate));
+        }
+        assertThrows(IllegalArgumentException.class, () -> LicensePlates.decode(-1));
+        assertThrows(IllegalArgumentException.class, () -> LicensePlates.decode(78_364_164_096L));
+    }
+
+    @Test
+    void testVehiclePackedLicensePlate() {
+        Vehicle vehicle = new Vehicle("ABC1234", 5000);
+
+        assertEquals(LicensePlates.encode("ABC1234"), vehicle.getPackedLicensePlate());
+    }
+}
@@ -0,0 +1,90 @@
+package objects;
+
+import company.InsuranceCompany;
+import org.junit.jupiter.api.Test;
+import payment.PremiumPaymentFrequency;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersonRegistryTest {
+
+    @Test
+    void testGetOrCreateReturnsSharedInstance() {
+        PersonRegistry registry = new PersonRegistry();
+
+        Person first = registry.getOrCreate("8004172022");
+        Person second = registry.getOrCreate(new String("8004172022"));
+
+        assertSame(first, second);
+        assertEquals(LegalForm.NATURAL, first.getLegalForm());
+        assertSame(first, registry.find("8004172022"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testGetOrCreateWithInvalidId() {
+        PersonRegistry registry = new PersonRegistry();
+
+        assertThrows(IllegalArgumentException.class, () -> registry.getOrCreate(null));
+        assertThrows(IllegalArgumentException.class, () -> registry.getOrCreate("1234"));
+        assertThrows(IllegalArgumentException.class, () -> registry.find(null));
+
+        // Invalid IDs are not remembered
+        assertNull(registry.find("1234"));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void testContractsAreCollectedOnSharedPerson() {
+        InsuranceCompany insurer = new InsuranceCompany(LocalDateTime.of(2023, 1, 1, 0, 0));
+        PersonRegistry registry = insurer.getPersonRegistry();
+
+        // Every row of an ingest looks the policy holder up again
+        for (int i = 0; i < 3; i++) {
+            insurer.insureVehicle("C" + i, null, registry.getOrCreate("12345678"), 100,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC123" + i, 1000));
+        }
+
+        assertEquals(3, registry.getOrCreate("12345678").getContracts().size());
+    }
+
+    @Test
+    void testConcurrentGetOrCreate() throws Exception {
+        PersonRegistry registry = new PersonRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Person>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 64; i++) {
+            futures.add(executor.submit(() -> registry.getOrCreate("12345678")));
+        }
+
+        Person expected = futures.get(0).get();
+        for (Future<Person> future : futures) {
+            assertSame(expected, future.get());
+        }
+        executor.shutdown();
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testPersonFactory() {
+        assertThrows(IllegalArgumentException.class, () -> new PersonRegistry(null));
+
+        List<String> createdIds = new ArrayList<>();
+        PersonRegistry registry = new PersonRegistry(id -> {
+            createdIds.add(id);
+            return new Person(id);
+        });
+
+        Person person = registry.getOrCreate("12345678");
+        assertSame(person, registry.getOrCreate("12345678"));
+        assertEquals(List.of("12345678"), createdIds);
+    }
+}
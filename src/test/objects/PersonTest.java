@@ -191,4 +191,32 @@ class PersonTest {
         // Test throwing exception with null
         assertThrows(IllegalArgumentException.class, () -> policyHolder.addContract(null));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBirthNumberLeapYears() {
+        // 29 February 2000 exists, 2001 and 1900 (9-digit numbers) were not leap years
+        assertTrue(Person.isValidBirthNumber("0002299000"));
+        assertFalse(Person.isValidBirthNumber("0102290001"));
+        assertFalse(Person.isValidBirthNumber("000229123"));
+        assertTrue(Person.isValidBirthNumber("040229123"));
+
+        // Day zero and day past the end of the month
+        assertFalse(Person.isValidBirthNumber("480400080"));
+        assertFalse(Person.isValidBirthNumber("480431080"));
+    }
+
+    @Test
+    void testValidateIds() {
+        CharSequence[] ids = {
+                "8004172022", "12345678", "123456", new StringBuilder("8054176449"), "8004172023", null, "", "12345A78"
+        };
+
+        LegalForm[] legalForms = Person.validateIds(ids);
+
+        assertArrayEquals(new LegalForm[]{
+                LegalForm.NATURAL, LegalForm.LEGAL, LegalForm.LEGAL, LegalForm.NATURAL, null, null, null, null
+        }, legalForms);
+        assertEquals(0, Person.validateIds(new CharSequence[0]).length);
+        assertThrows(IllegalArgumentException.class, () -> Person.validateIds(null));
+    }
+}
@@ -5,6 +5,10 @@ import payment.ContractPaymentData;
 import payment.PremiumPaymentFrequency;
 import static org.junit.jupiter.api.Assertions.*;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ContractPaymentDataTest {
 
@@ -262,4 +266,132 @@ public class ContractPaymentDataTest {
         assertThrows(IllegalArgumentException.class,
                 () -> new ContractPaymentData(100, null, null, 0));
     }
-}
\ No newline at end of file
+
+    // Catch-up tests
+    @Test
+    void testDuePaymentCount() {
+        ContractPaymentData data = new ContractPaymentData(100, PremiumPaymentFrequency.QUARTERLY, testDate, 0);
+
+        // Payment due exactly at the given time is counted
+        assertEquals(1, data.getDuePaymentCount(testDate));
+        assertEquals(0, data.getDuePaymentCount(testDate.minusSeconds(1)));
+        assertEquals(2, data.getDuePaymentCount(testDate.plusMonths(3)));
+        assertEquals(1, data.getDuePaymentCount(testDate.plusMonths(3).minusSeconds(1)));
+        assertEquals(121, data.getDuePaymentCount(testDate.plusYears(30)));
+
+        assertThrows(IllegalArgumentException.class, () -> data.getDuePaymentCount(null));
+    }
+
+    @Test
+    void testUpdateNextPaymentTimeByPeriodsMatchesRepeatedUpdates() {
+        LocalDateTime endOfMonth = LocalDateTime.of(2023, 1, 31, 12, 0);
+        ContractPaymentData stepped = new ContractPaymentData(100, PremiumPaymentFrequency.MONTHLY, endOfMonth, 0);
+        ContractPaymentData jumped = new ContractPaymentData(100, PremiumPaymentFrequency.MONTHLY, endOfMonth, 0);
+
+        for (int i = 0; i < 3; i++) {
+            stepped.updateNextPaymentTime();
+        }
+        jumped.updateNextPaymentTime(3);
+
+        // Day is clamped to 28 in February and stays there
+        assertEquals(LocalDateTime.of(2023, 4, 28, 12, 0), jumped.getNextPaymentTime());
+        assertEquals(stepped.getNextPaymentTime(), jumped.getNextPaymentTime());
+    }
+
+    @Test
+    void testUpdateNextPaymentTimeByPeriodsOverLeapYears() {
+        LocalDateTime leapDay = LocalDateTime.of(2024, 2, 29, 0, 0);
+        ContractPaymentData data = new ContractPaymentData(100, PremiumPaymentFrequency.ANNUAL, leapDay, 0);
+
+        data.updateNextPaymentTime(4);
+        assertEquals(LocalDateTime.of(2028, 2, 28, 0, 0), data.getNextPaymentTime());
+
+        data.updateNextPaymentTime(0);
+        assertEquals(LocalDateTime.of(2028, 2, 28, 0, 0), data.getNextPaymentTime());
+
+        assertThrows(IllegalArgumentException.class, () -> data.updateNextPaymentTime(-1));
+    }
+
+    @Test
+    void testPayOutstandingBalance() {
+        ContractPaymentData data = new ContractPaymentData(100, PremiumPaymentFrequency.MONTHLY, testDate, 150);
+
+        assertEquals(100, data.payOutstandingBalance(100));
+        assertEquals(50, data.payOutstandingBalance(80));
+        assertEquals(0, data.getOutstandingBalance());
+
+        // Prepayments are not covered by this method
+        assertEquals(0, data.payOutstandingBalance(30));
+        assertEquals(0, data.getOutstandingBalance());
+        assertThrows(IllegalArgumentException.class, () -> data.payOutstandingBalance(-1));
+    }
+
+    @Test
+    void testChargeDuePremiums() {
+        ContractPaymentData data = new ContractPaymentData(100, PremiumPaymentFrequency.QUARTERLY, testDate, 20);
+
+        assertEquals(0, data.chargeDuePremiums(testDate.minusDays(1)));
+        assertEquals(2, data.chargeDuePremiums(testDate.plusMonths(5)));
+        assertEquals(220, data.getOutstandingBalance());
+        assertEquals(testDate.plusMonths(6), data.getNextPaymentTime());
+
+        // Charging the same time again finds nothing due
+        assertEquals(0, data.chargeDuePremiums(testDate.plusMonths(5)));
+        assertThrows(IllegalArgumentException.class, () -> data.chargeDuePremiums(null));
+    }
+
+    @Test
+    void testConcurrentPaymentsAndBillingDoNotLoseUpdates() throws InterruptedException {
+        ContractPaymentData data = new ContractPaymentData(1, PremiumPaymentFrequency.MONTHLY, testDate, 0);
+        int months = 2000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    data.decreaseOutstandingBalance(1);
+                }
+            }));
+        }
+
+        // Two billers race over the same periods, every period must be charged exactly once
+        for (int t = 0; t < 2; t++) {
+            threads.add(new Thread(() -> {
+                for (int month = 0; month < months; month++) {
+                    data.chargeDuePremiums(testDate.plusMonths(month));
+                }
+            }));
+        }
+
+        // A reader never sees the due date advanced without the matching charge
+        AtomicBoolean consistent = new AtomicBoolean(true);
+        threads.add(new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                int readVersion;
+                LocalDateTime nextPaymentTime;
+                int outstandingBalance;
+                do {
+                    readVersion = data.beginRead();
+                    nextPaymentTime = data.getNextPaymentTime();
+                    outstandingBalance = data.getOutstandingBalance();
+                } while (!data.validateRead(readVersion));
+
+                long chargedPeriods = ChronoUnit.MONTHS.between(testDate, nextPaymentTime);
+                if (outstandingBalance > chargedPeriods) {
+                    consistent.set(false);
+                }
+            }
+        }));
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(months - 40_000, data.getOutstandingBalance());
+        assertEquals(testDate.plusMonths(months), data.getNextPaymentTime());
+        assertTrue(consistent.get());
+    }
+}
@@ -0,0 +1,80 @@
+package payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentDataStoreTest {
+
+    private final LocalDateTime testDate = LocalDateTime.of(2023, 1, 31, 10, 15, 30, 123_456_789);
+
+    @Test
+    void testCreateStoresValues() {
+        PaymentDataStore store = new PaymentDataStore(2);
+        ContractPaymentData data = store.create(100, PremiumPaymentFrequency.QUARTERLY, testDate, 50);
+
+        assertEquals(1, store.size());
+        assertEquals(100, data.getPremium());
+        assertEquals(PremiumPaymentFrequency.QUARTERLY, data.getPremiumPaymentFrequency());
+        assertEquals(testDate, data.getNextPaymentTime());
+        assertEquals(50, data.getOutstandingBalance());
+    }
+
+    @Test
+    void testCreateWithInvalidValues() {
+        PaymentDataStore store = new PaymentDataStore();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.create(0, PremiumPaymentFrequency.ANNUAL, testDate, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.create(100, null, testDate, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.create(100, PremiumPaymentFrequency.ANNUAL, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PaymentDataStore(0));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testViewsGrowStoreAndStayIndependent() {
+        PaymentDataStore store = new PaymentDataStore(1);
+        ContractPaymentData first = store.create(100, PremiumPaymentFrequency.MONTHLY, testDate, 0);
+        ContractPaymentData second = store.create(200, PremiumPaymentFrequency.ANNUAL, testDate, 0);
+        ContractPaymentData third = store.create(300, PremiumPaymentFrequency.SEMI_ANNUAL, testDate, 0);
+
+        first.setOutstandingBalance(10);
+        second.decreaseOutstandingBalance(20);
+        third.setPremium(350);
+        third.setPremiumPaymentFrequency(PremiumPaymentFrequency.QUARTERLY);
+
+        assertEquals(3, store.size());
+        assertEquals(10, first.getOutstandingBalance());
+        assertEquals(-20, second.getOutstandingBalance());
+        assertEquals(350, third.getPremium());
+        assertEquals(PremiumPaymentFrequency.QUARTERLY, third.getPremiumPaymentFrequency());
+        assertThrows(IllegalArgumentException.class, () -> third.setPremium(0));
+        assertThrows(IllegalArgumentException.class, () -> third.setPremiumPaymentFrequency(null));
+    }
+
+    @Test
+    void testViewMatchesObjectPaymentData() {
+        PaymentDataStore store = new PaymentDataStore();
+        ContractPaymentData view = store.create(100, PremiumPaymentFrequency.MONTHLY, testDate, 0);
+        ContractPaymentData object = new ContractPaymentData(100, PremiumPaymentFrequency.MONTHLY, testDate, 0);
+
+        LocalDateTime time = testDate.plusMonths(14).plusDays(3);
+        assertEquals(object.getDuePaymentCount(time), view.getDuePaymentCount(time));
+        assertEquals(0, view.getDuePaymentCount(testDate.minusNanos(1)));
+        assertEquals(1, view.getDuePaymentCount(testDate));
+
+        view.updateNextPaymentTime();
+        object.updateNextPaymentTime();
+        view.updateNextPaymentTime(5);
+        object.updateNextPaymentTime(5);
+
+        assertEquals(object.getNextPaymentTime(), view.getNextPaymentTime());
+        assertThrows(IllegalArgumentException.class, () -> view.updateNextPaymentTime(-1));
+        assertThrows(IllegalArgumentException.class, () -> view.getDuePaymentCount(null));
+    }
+}
@@ -0,0 +1,57 @@
+package payment;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentDeduplicatorTest {
+
+    @Test
+    void testRegisterRejectsRepeatedReference() {
+        PaymentDeduplicator deduplicator = new PaymentDeduplicator(10);
+
+        assertFalse(deduplicator.contains("TX-1"));
+        assertTrue(deduplicator.register("TX-1"));
+        assertTrue(deduplicator.contains("TX-1"));
+        assertFalse(deduplicator.register("TX-1"));
+        assertTrue(deduplicator.register("TX-2"));
+    }
+
+    @Test
+    void testOldReferencesLeaveTheWindow() {
+        PaymentDeduplicator deduplicator = new PaymentDeduplicator(2);
+
+        for (String reference : new String[]{"A", "B", "C", "D", "E"}) {
+            assertTrue(deduplicator.register(reference));
+        }
+
+        // The last two references are always remembered, the oldest generation was dropped
+        assertFalse(deduplicator.register("D"));
+        assertFalse(deduplicator.register("E"));
+        assertFalse(deduplicator.contains("A"));
+        assertTrue(deduplicator.register("A"));
+    }
+
+    @Test
+    void testDistinctReferencesAreNeverReportedAsDuplicates() {
+        // The Bloom filter only shortcuts new references, the exact set decides duplicates
+        PaymentDeduplicator deduplicator = new PaymentDeduplicator(50_000);
+
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(deduplicator.register("REF" + i));
+        }
+        for (int i = 150_000; i < 200_000; i++) {
+            assertFalse(deduplicator.register("REF" + i));
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        PaymentDeduplicator deduplicator = new PaymentDeduplicator(PaymentDeduplicator.DEFAULT_WINDOW_SIZE);
+
+        assertEquals(PaymentDeduplicator.DEFAULT_WINDOW_SIZE, deduplicator.getWindowSize());
+        assertThrows(IllegalArgumentException.class, () -> new PaymentDeduplicator(0));
+        assertThrows(IllegalArgumentException.class, () -> deduplicator.register(null));
+        assertThrows(IllegalArgumentException.class, () -> deduplicator.contains(null));
+    }
+}
@@ -1,6 +1,7 @@
 package payment;
 
 import contracts.InvalidContractException;
+import contracts.MasterVehicleContract;
 import org.junit.jupiter.api.Test;
 import payment.PaymentHandler;
 import company.InsuranceCompany;
@@ -12,8 +13,12 @@ import objects.Vehicle;
 import payment.PremiumPaymentFrequency;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class PaymentHandlerTest {
@@ -135,4 +140,272 @@ public class PaymentHandlerTest {
         // Paying for contract from different insurer should throw InvalidContractException
         assertThrows(InvalidContractException.class, () -> handler.pay(contract, 100));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPayMasterContractDistributesManyRounds() {
+        InsuranceCompany insurer = new InsuranceCompany(testTime);
+        Person legalPerson = new Person("12345678");
+        MasterVehicleContract master = insurer.createMasterVehicleContract("M001", null, legalPerson);
+
+        SingleVehicleContract first = insurer.insureVehicle("C001", null, legalPerson, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC123D", 10000));
+        SingleVehicleContract second = insurer.insureVehicle("C002", null, legalPerson, 300,
+                PremiumPaymentFrequency.QUARTERLY, new Vehicle("ABC123E", 10000));
+        SingleVehicleContract inactive = insurer.insureVehicle("C003", null, legalPerson, 200,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("ABC123F", 10000));
+        master.requestAdditionOfChildContract(first);
+        master.requestAdditionOfChildContract(second);
+        master.requestAdditionOfChildContract(inactive);
+        inactive.setInactive();
+
+        // Outstanding balances 100 + 300 are paid first, then 12 full rounds of 400 and 50 left over
+        insurer.getHandler().pay(master, 400 + 12 * 400 + 50);
+
+        assertEquals(-12 * 100 - 50, first.getContractPaymentData().getOutstandingBalance());
+        assertEquals(-12 * 300, second.getContractPaymentData().getOutstandingBalance());
+        assertEquals(200, inactive.getContractPaymentData().getOutstandingBalance());
+    }
+
+    // Same portfolio in every company: a fleet with three children, two single contracts and an inactive one
+    private InsuranceCompany createPortfolio() {
+        InsuranceCompany insurer = new InsuranceCompany(testTime);
+        Person legalPerson = new Person("12345678");
+
+        MasterVehicleContract master = insurer.createMasterVehicleContract("M1", null, legalPerson);
+        for (int i = 0; i < 3; i++) {
+            SingleVehicleContract child = insurer.insureVehicle("F" + i, null, legalPerson, 100 + 50 * i,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("FLT000" + i, 10000));
+            insurer.moveSingleVehicleContractToMasterVehicleContract(master, child);
+        }
+        insurer.insureVehicle("S1", null, legalPerson, 120, PremiumPaymentFrequency.MONTHLY,
+                new Vehicle("SGL0001", 5000));
+        insurer.insureVehicle("S2", null, legalPerson, 300, PremiumPaymentFrequency.QUARTERLY,
+                new Vehicle("SGL0002", 5000));
+        SingleVehicleContract inactive = insurer.insureVehicle("S3", null, legalPerson, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("SGL0003", 5000));
+        inactive.setInactive();
+
+        insurer.setCurrentTime(testTime.plusMonths(2));
+        insurer.chargePremiumsOnContracts();
+        return insurer;
+    }
+
+    private static List<PaymentRequest> requests(InsuranceCompany insurer, Object... numbersAndAmounts) {
+        List<PaymentRequest> requests = new ArrayList<>();
+        for (int i = 0; i < numbersAndAmounts.length; i += 2) {
+            requests.add(new PaymentRequest(insurer.findContract((String) numbersAndAmounts[i]),
+                    (Integer) numbersAndAmounts[i + 1]));
+        }
+        return requests;
+    }
+
+    @Test
+    void testPayAllMatchesSequentialPayments() {
+        Object[] rows = {"M1", 700, "S1", 50, "M1", 130, "S2", 1000, "S1", 70, "M1", 2000, "S1", 5};
+
+        InsuranceCompany sequential = createPortfolio();
+        for (PaymentRequest request : requests(sequential, rows)) {
+            if (request.getContract() instanceof MasterVehicleContract master) {
+                sequential.getHandler().pay(master, request.getAmount());
+            } else {
+                sequential.getHandler().pay(request.getContract(), request.getAmount());
+            }
+        }
+
+        InsuranceCompany batched = createPortfolio();
+        PaymentStatus[] statuses = batched.getHandler().payAll(requests(batched, rows));
+        assertTrue(Arrays.stream(statuses).allMatch(status -> status == PaymentStatus.ACCEPTED));
+
+        for (String number : new String[]{"S1", "S2"}) {
+            assertEquals(sequential.findContract(number).getContractPaymentData().getOutstandingBalance(),
+                    batched.findContract(number).getContractPaymentData().getOutstandingBalance());
+        }
+
+        // Prepayments of a master contract depend on the order of its payments
+        var sequentialChildren = ((MasterVehicleContract) sequential.findContract("M1")).getChildContracts().iterator();
+        for (SingleVehicleContract child : ((MasterVehicleContract) batched.findContract("M1")).getChildContracts()) {
+            assertEquals(sequentialChildren.next().getContractPaymentData().getOutstandingBalance(),
+                    child.getContractPaymentData().getOutstandingBalance());
+        }
+
+        for (String number : new String[]{"M1", "S1", "S2"}) {
+            List<Integer> expectedAmounts = new ArrayList<>();
+            sequential.getHandler().getPaymentHistory().get(sequential.findContract(number))
+                    .forEach(payment -> expectedAmounts.add(payment.getPaymentAmount()));
+            List<Integer> actualAmounts = new ArrayList<>();
+            batched.getHandler().getPaymentHistory().get(batched.findContract(number))
+                    .forEach(payment -> actualAmounts.add(payment.getPaymentAmount()));
+            assertEquals(expectedAmounts, actualAmounts);
+        }
+    }
+
+    @Test
+    void testPayAllReportsInvalidRows() {
+        InsuranceCompany insurer = createPortfolio();
+        InsuranceCompany otherInsurer = createPortfolio();
+        MasterVehicleContract emptyMaster = insurer.createMasterVehicleContract("M2", null, new Person("12345678"));
+        int balance = insurer.findContract("S1").getContractPaymentData().getOutstandingBalance();
+
+        List<PaymentRequest> requests = new ArrayList<>(requests(insurer, "S1", 100, "S1", 0, "S3", 100));
+        requests.add(null);
+        requests.add(new PaymentRequest(null, 100));
+        requests.add(new PaymentRequest(otherInsurer.findContract("S1"), 100));
+        requests.add(new PaymentRequest(emptyMaster, 100));
+        requests.add(new PaymentRequest(insurer.findContract("S1"), -5));
+
+        PaymentStatus[] statuses = insurer.getHandler().payAll(requests);
+
+        assertArrayEquals(new PaymentStatus[]{PaymentStatus.ACCEPTED, PaymentStatus.INVALID_AMOUNT,
+                PaymentStatus.INACTIVE_CONTRACT, PaymentStatus.MISSING_REQUEST, PaymentStatus.MISSING_CONTRACT,
+                PaymentStatus.FOREIGN_CONTRACT, PaymentStatus.NO_CHILD_CONTRACTS, PaymentStatus.INVALID_AMOUNT},
+                statuses);
+        assertEquals(balance - 100, insurer.findContract("S1").getContractPaymentData().getOutstandingBalance());
+        assertEquals(1, insurer.getHandler().getPaymentHistory().get(insurer.findContract("S1")).size());
+        assertNull(insurer.getHandler().getPaymentHistory().get(insurer.findContract("S3")));
+    }
+
+    @Test
+    void testPayAllWithEmptyOrNullBatch() {
+        InsuranceCompany insurer = createPortfolio();
+
+        assertEquals(0, insurer.getHandler().payAll(List.of()).length);
+        assertTrue(insurer.getHandler().getPaymentHistory().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> insurer.getHandler().payAll(null));
+    }
+
+    @Test
+    void testPayWithReferenceIgnoresRetries() {
+        InsuranceCompany insurer = createPortfolio();
+        AbstractContract single = insurer.findContract("S1");
+        MasterVehicleContract master = (MasterVehicleContract) insurer.findContract("M1");
+        int balance = single.getContractPaymentData().getOutstandingBalance();
+
+        assertTrue(insurer.getHandler().pay(single, 100, "BANK-1"));
+        assertFalse(insurer.getHandler().pay(single, 100, "BANK-1"));
+        assertTrue(insurer.getHandler().pay(master, 300, "BANK-2"));
+        assertFalse(insurer.getHandler().pay(master, 300, "BANK-2"));
+
+        // The same reference cannot be reused for another contract either
+        assertFalse(insurer.getHandler().pay(insurer.findContract("S2"), 100, "BANK-1"));
+
+        assertEquals(balance - 100, single.getContractPaymentData().getOutstandingBalance());
+        assertEquals(1, insurer.getHandler().getPaymentHistory().get(single).size());
+        assertEquals(1, insurer.getHandler().getPaymentHistory().get(master).size());
+        assertNull(insurer.getHandler().getPaymentHistory().get(insurer.findContract("S2")));
+
+        // Rejected payments do not consume their reference
+        assertThrows(InvalidContractException.class, () -> insurer.getHandler().pay(insurer.findContract("S3"), 100, "BANK-3"));
+        assertTrue(insurer.getHandler().pay(single, 10, "BANK-3"));
+        assertThrows(IllegalArgumentException.class, () -> insurer.getHandler().pay(single, 10, null));
+    }
+
+    @Test
+    void testPayAllReportsDuplicateReferences() {
+        InsuranceCompany insurer = createPortfolio();
+        AbstractContract single = insurer.findContract("S1");
+        int balance = single.getContractPaymentData().getOutstandingBalance();
+
+        List<PaymentRequest> batch = List.of(new PaymentRequest(single, 100, "BANK-1"),
+                new PaymentRequest(single, 100, "BANK-1"), new PaymentRequest(single, 50),
+                new PaymentRequest(single, 50), new PaymentRequest(single, 0, "BANK-2"));
+
+        assertArrayEquals(new PaymentStatus[]{PaymentStatus.ACCEPTED, PaymentStatus.DUPLICATE_REFERENCE,
+                PaymentStatus.ACCEPTED, PaymentStatus.ACCEPTED, PaymentStatus.INVALID_AMOUNT},
+                insurer.getHandler().payAll(batch));
+
+        // A redelivered batch only applies rows without a reference
+        assertArrayEquals(new PaymentStatus[]{PaymentStatus.DUPLICATE_REFERENCE, PaymentStatus.DUPLICATE_REFERENCE,
+                PaymentStatus.ACCEPTED, PaymentStatus.ACCEPTED, PaymentStatus.INVALID_AMOUNT},
+                insurer.getHandler().payAll(batch));
+
+        assertEquals(balance - 300, single.getContractPaymentData().getOutstandingBalance());
+        assertEquals(5, insurer.getHandler().getPaymentHistory().get(single).size());
+    }
+
+    // A fleet with children of different premiums and an inactive child, all with an outstanding balance
+    private static MasterVehicleContract createFleet(InsuranceCompany insurer) {
+        Person legalPerson = new Person("12345678");
+        MasterVehicleContract master = insurer.createMasterVehicleContract("M1", null, legalPerson);
+        int[] premiums = {100, 35, 250, 80, 120, 60};
+        for (int i = 0; i < premiums.length; i++) {
+            SingleVehicleContract child = insurer.insureVehicle("F" + i, null, legalPerson, premiums[i],
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("FLT000" + i, 1000));
+            insurer.moveSingleVehicleContractToMasterVehicleContract(master, child);
+            if (i == 3) {
+                child.setInactive();
+            }
+        }
+        return master;
+    }
+
+    private static List<Integer> childBalances(MasterVehicleContract master) {
+        List<Integer> balances = new ArrayList<>();
+        for (SingleVehicleContract child : master.getChildContracts()) {
+            balances.add(child.getContractPaymentData().getOutstandingBalance());
+        }
+        return balances;
+    }
+
+    @Test
+    void testBatchedMasterPaymentsMatchSequentialPayments() {
+        SplittableRandom random = new SplittableRandom(7);
+        InsuranceCompany sequential = new InsuranceCompany(testTime);
+        InsuranceCompany batched = new InsuranceCompany(testTime);
+        MasterVehicleContract sequentialMaster = createFleet(sequential);
+        MasterVehicleContract batchedMaster = createFleet(batched);
+
+        // Small payments leave outstanding balances, large ones cover several full rounds
+        List<PaymentRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int amount = i % 10 == 0 ? 1 + random.nextInt(5000) : 1 + random.nextInt(300);
+            sequential.getHandler().pay(sequentialMaster, amount);
+            requests.add(new PaymentRequest(batchedMaster, amount));
+        }
+        batched.getHandler().payAll(requests);
+
+        assertEquals(childBalances(sequentialMaster), childBalances(batchedMaster));
+    }
+
+    @Test
+    void testCombinedConcurrentMasterPayments() throws InterruptedException {
+        InsuranceCompany expected = new InsuranceCompany(testTime);
+        InsuranceCompany insurer = new InsuranceCompany(testTime, 16);
+        MasterVehicleContract expectedMaster = createFleet(expected);
+        MasterVehicleContract master = createFleet(insurer);
+        PaymentHandler handler = insurer.getHandler();
+        handler.enablePaymentCombining();
+        assertTrue(handler.isPaymentCombiningEnabled());
+
+        // Equal amounts make the result independent of the order in which the threads are combined
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    handler.pay(master, 7);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < 4000; i++) {
+            expected.getHandler().pay(expectedMaster, 7);
+        }
+
+        assertEquals(childBalances(expectedMaster), childBalances(master));
+        assertEquals(4000, handler.getPaymentHistory().get(master).size());
+
+        // Validation still happens in the calling thread
+        assertThrows(IllegalArgumentException.class, () -> handler.pay(master, 0));
+        assertTrue(handler.pay(master, 10, "REF-1"));
+        assertFalse(handler.pay(master, 10, "REF-1"));
+
+        handler.disablePaymentCombining();
+        assertFalse(handler.isPaymentCombiningEnabled());
+        handler.pay(master, 7);
+        assertEquals(4002, handler.getPaymentHistory().get(master).size());
+    }
+}
@@ -0,0 +1,84 @@
+package payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentLedgerTest {
+
+    private final LocalDateTime testTime = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Test
+    void testAppendKeepsPaymentsWithSameTime() {
+        PaymentLedger ledger = new PaymentLedger();
+        ledger.append(testTime, 100);
+        ledger.append(testTime, 50);
+
+        assertEquals(2, ledger.size());
+        assertEquals(150, ledger.getTotalAmount());
+
+        // Payments with the same time stay in insertion order
+        Iterator<PaymentInstance> iterator = ledger.iterator();
+        assertEquals(100, iterator.next().getPaymentAmount());
+        assertEquals(50, iterator.next().getPaymentAmount());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testAppendOutOfOrderKeepsPaymentsSorted() {
+        PaymentLedger ledger = new PaymentLedger();
+        for (int i = 5; i > 0; i--) {
+            ledger.append(testTime.plusDays(i), i);
+        }
+        ledger.append(testTime.plusDays(3), 30);
+
+        int[] expectedAmounts = {1, 2, 3, 30, 4, 5};
+        int index = 0;
+        for (PaymentInstance payment : ledger) {
+            assertEquals(expectedAmounts[index], payment.getPaymentAmount());
+            assertEquals(payment.getPaymentTime(), ledger.getPaymentTime(index));
+            index++;
+        }
+        assertEquals(expectedAmounts.length, index);
+    }
+
+    @Test
+    void testPaymentTimeIsSharedInstance() {
+        PaymentLedger ledger = new PaymentLedger();
+        ledger.append(testTime, 100);
+
+        assertSame(testTime, ledger.iterator().next().getPaymentTime());
+        assertSame(testTime, ledger.getPaymentTime(0));
+    }
+
+    @Test
+    void testContainsAndRemove() {
+        PaymentLedger ledger = new PaymentLedger();
+        ledger.add(new PaymentInstance(testTime, 100));
+        ledger.add(new PaymentInstance(testTime.plusDays(1), 200));
+
+        assertTrue(ledger.contains(new PaymentInstance(testTime, 100)));
+        assertFalse(ledger.contains(new PaymentInstance(testTime, 200)));
+        assertFalse(ledger.contains("payment"));
+
+        ledger.removeIf(payment -> payment.getPaymentAmount() == 100);
+        assertEquals(1, ledger.size());
+        assertEquals(200, ledger.getPaymentAmount(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> ledger.getPaymentAmount(1));
+
+        ledger.clear();
+        assertTrue(ledger.isEmpty());
+    }
+
+    @Test
+    void testAppendWithInvalidValues() {
+        PaymentLedger ledger = new PaymentLedger();
+
+        assertThrows(IllegalArgumentException.class, () -> ledger.append(null, 100));
+        assertThrows(IllegalArgumentException.class, () -> ledger.append(testTime, 0));
+        assertTrue(ledger.isEmpty());
+    }
+}
@@ -0,0 +1,216 @@
+package payment;
+
+import company.InsuranceCompany;
+import contracts.MasterVehicleContract;
+import contracts.SingleVehicleContract;
+import objects.Person;
+import objects.Vehicle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentStatementReaderTest {
+
+    private final LocalDateTime testTime = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    private InsuranceCompany createPortfolio() {
+        InsuranceCompany insurer = new InsuranceCompany(testTime);
+        Person legalPerson = new Person("12345678");
+
+        MasterVehicleContract master = insurer.createMasterVehicleContract("M1", null, legalPerson);
+        for (int i = 0; i < 3; i++) {
+            SingleVehicleContract child = insurer.insureVehicle("F" + i, null, legalPerson, 100 + 50 * i,
+                    PremiumPaymentFrequency.MONTHLY, new Vehicle("FLT000" + i, 10000));
+            insurer.moveSingleVehicleContractToMasterVehicleContract(master, child);
+        }
+        insurer.insureVehicle("S1", null, legalPerson, 120, PremiumPaymentFrequency.MONTHLY,
+                new Vehicle("SGL0001", 5000));
+        insurer.insureVehicle("S2", null, legalPerson, 300, PremiumPaymentFrequency.QUARTERLY,
+                new Vehicle("SGL0002", 5000));
+        SingleVehicleContract inactive = insurer.insureVehicle("S3", null, legalPerson, 100,
+                PremiumPaymentFrequency.MONTHLY, new Vehicle("SGL0003", 5000));
+        inactive.setInactive();
+
+        insurer.setCurrentTime(testTime.plusMonths(2));
+        insurer.chargePremiumsOnContracts();
+        return insurer;
+    }
+
+    private Path writeStatement(String content) throws IOException {
+        return Files.writeString(directory.resolve("statement.txt"), content, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void assertBalance(InsuranceCompany expected, InsuranceCompany actual, String contractNumber) {
+        assertEquals(expected.findContract(contractNumber).getContractPaymentData().getOutstandingBalance(),
+                actual.findContract(contractNumber).getContractPaymentData().getOutstandingBalance());
+    }
+
+    @Test
+    void testCsvStatementMatchesSequentialPayments() throws IOException {
+        Path statement = writeStatement("""
+                date;contract;amount;note\r
+                2023-03-01;S1;50;first\r
+                2023-03-01; "M1" ;700;"fleet; March"\r
+                \r
+                2023-03-02;S2;1000;\r
+                2023-03-02;X9;100;unknown\r
+                2023-03-02;S1;12.50;decimal\r
+                2023-03-03;S3;100;inactive\r
+                2023-03-03;S1;-5;negative\r
+                2023-03-04;S1;70""");
+
+        InsuranceCompany expected = createPortfolio();
+        expected.getHandler().pay(expected.findContract("S1"), 50);
+        expected.getHandler().pay((MasterVehicleContract) expected.findContract("M1"), 700);
+        expected.getHandler().pay(expected.findContract("S2"), 1000);
+        expected.getHandler().pay(expected.findContract("S1"), 70);
+
+        InsuranceCompany insurer = createPortfolio();
+        PaymentStatementSummary summary = PaymentStatementReader.csv(';', 1, 2, true).ingest(statement, insurer);
+
+        assertEquals(8, summary.getRowCount());
+        assertEquals(4, summary.getCount(PaymentStatus.ACCEPTED));
+        assertEquals(1, summary.getCount(PaymentStatus.UNKNOWN_CONTRACT));
+        assertEquals(1, summary.getCount(PaymentStatus.MALFORMED_ROW));
+        assertEquals(1, summary.getCount(PaymentStatus.INACTIVE_CONTRACT));
+        assertEquals(1, summary.getCount(PaymentStatus.INVALID_AMOUNT));
+        assertEquals(50 + 700 + 1000 + 70, summary.getAcceptedAmount());
+
+        assertBalance(expected, insurer, "S1");
+        assertBalance(expected, insurer, "S2");
+        var expectedChildren = ((MasterVehicleContract) expected.findContract("M1")).getChildContracts().iterator();
+        for (SingleVehicleContract child : ((MasterVehicleContract) insurer.findContract("M1")).getChildContracts()) {
+            assertEquals(expectedChildren.next().getContractPaymentData().getOutstandingBalance(),
+                    child.getContractPaymentData().getOutstandingBalance());
+        }
+        assertEquals(2, insurer.getHandler().getPaymentHistory().get(insurer.findContract("S1")).size());
+    }
+
+    @Test
+    void testFixedWidthStatementAcrossMappingWindows() throws IOException {
+        // Contract number in bytes 0-9, amount right-aligned in bytes 10-17
+        StringBuilder content = new StringBuilder();
+        int expectedAmount = 0;
+        for (int i = 1; i <= 50; i++) {
+            String number = i % 2 == 0 ? "S1" : "S2";
+            content.append(String.format("%-10s%8d", number, i));
+            expectedAmount += i;
+            if (i < 50) {
+                content.append('\n');
+            }
+        }
+        Path statement = writeStatement(content.toString());
+
+        InsuranceCompany insurer = createPortfolio();
+        int s1Balance = insurer.findContract("S1").getContractPaymentData().getOutstandingBalance();
+        int s2Balance = insurer.findContract("S2").getContractPaymentData().getOutstandingBalance();
+
+        // A small window splits lines between mappings, a single pending batch forces the reader to wait
+        PaymentStatementSummary summary = PaymentStatementReader.fixedWidth(0, 10, 10, 8)
+                .withWindowSize(64).ingest(statement, insurer, 3, 1);
+
+        assertEquals(50, summary.getRowCount());
+        assertEquals(50, summary.getCount(PaymentStatus.ACCEPTED));
+        assertEquals(expectedAmount, summary.getAcceptedAmount());
+        assertEquals(s1Balance - 650, insurer.findContract("S1").getContractPaymentData().getOutstandingBalance());
+        assertEquals(s2Balance - 625, insurer.findContract("S2").getContractPaymentData().getOutstandingBalance());
+        assertEquals(25, insurer.getHandler().getPaymentHistory().get(insurer.findContract("S1")).size());
+    }
+
+    @Test
+    void testRedeliveredStatementIsNotAppliedTwice() throws IOException {
+        Path statement = writeStatement("""
+                S1,50,BANK-1
+                S2,100,BANK-2
+                S1,20,
+                S1,70,BANK-3
+                """);
+        InsuranceCompany insurer = createPortfolio();
+        int balance = insurer.findContract("S1").getContractPaymentData().getOutstandingBalance();
+        PaymentStatementReader reader = PaymentStatementReader.csv(',', 0, 1, 2, false);
+
+        assertEquals(4, reader.ingest(statement, insurer).getCount(PaymentStatus.ACCEPTED));
+        PaymentStatementSummary retry = reader.ingest(statement, insurer);
+
+        // Only the row without a reference is applied again
+        assertEquals(1, retry.getCount(PaymentStatus.ACCEPTED));
+        assertEquals(3, retry.getCount(PaymentStatus.DUPLICATE_REFERENCE));
+        assertEquals(20, retry.getAcceptedAmount());
+        assertEquals(balance - 160, insurer.findContract("S1").getContractPaymentData().getOutstandingBalance());
+    }
+
+    @Test
+    void testFixedWidthReferenceField() throws IOException {
+        Path statement = writeStatement("S1              15REF-0001\nS1              15REF-0001\nS1              15\n");
+        InsuranceCompany insurer = createPortfolio();
+
+        PaymentStatementSummary summary = PaymentStatementReader.fixedWidth(0, 10, 10, 8, 18, 10)
+                .ingest(statement, insurer);
+
+        assertEquals(2, summary.getCount(PaymentStatus.ACCEPTED));
+        assertEquals(1, summary.getCount(PaymentStatus.DUPLICATE_REFERENCE));
+    }
+
+    @Test
+    void testLineLongerThanWindow() throws IOException {
+        Path statement = writeStatement("S1;" + "1".repeat(100) + "\nS1;10\n");
+        InsuranceCompany insurer = createPortfolio();
+
+        PaymentStatementReader reader = PaymentStatementReader.csv(';', 0, 1, false).withWindowSize(32);
+        assertThrows(IOException.class, () -> reader.ingest(statement, insurer));
+    }
+
+    @Test
+    void testRowWithoutContractColumnAfterLongerRow() throws IOException {
+        // The short row starts a new, shorter window, offsets of the previous row lie past its end
+        Path statement = writeStatement("10,x,S1" + " ".repeat(56) + "\n5\n");
+        InsuranceCompany insurer = createPortfolio();
+
+        PaymentStatementSummary summary = PaymentStatementReader.csv(',', 2, 0, false).withWindowSize(64)
+                .ingest(statement, insurer);
+
+        assertEquals(1, summary.getCount(PaymentStatus.ACCEPTED));
+        assertEquals(1, summary.getCount(PaymentStatus.MALFORMED_ROW));
+    }
+
+    @Test
+    void testEmptyStatement() throws IOException {
+        Path statement = writeStatement("");
+        InsuranceCompany insurer = createPortfolio();
+
+        PaymentStatementSummary summary = PaymentStatementReader.csv(',', 0, 1, false).ingest(statement, insurer);
+
+        assertEquals(0, summary.getRowCount());
+        assertTrue(insurer.getHandler().getPaymentHistory().isEmpty());
+    }
+
+    @Test
+    void testInvalidArguments() throws IOException {
+        Path statement = writeStatement("S1,10\n");
+        InsuranceCompany insurer = createPortfolio();
+        PaymentStatementReader reader = PaymentStatementReader.csv(',', 0, 1, false);
+
+        assertThrows(IllegalArgumentException.class, () -> PaymentStatementReader.csv('"', 0, 1, false));
+        assertThrows(IllegalArgumentException.class, () -> PaymentStatementReader.csv(',', 1, 1, false));
+        assertThrows(IllegalArgumentException.class, () -> PaymentStatementReader.csv(',', -1, 1, false));
+        assertThrows(IllegalArgumentException.class, () -> PaymentStatementReader.fixedWidth(0, 10, 5, 8));
+        assertThrows(IllegalArgumentException.class, () -> PaymentStatementReader.fixedWidth(0, 0, 10, 8));
+        assertThrows(IllegalArgumentException.class, () -> PaymentStatementReader.csv(',', 0, 1, 1, false));
+        assertThrows(IllegalArgumentException.class, () -> PaymentStatementReader.fixedWidth(0, 10, 10, 8, 15, 5));
+        assertThrows(IllegalArgumentException.class, () -> reader.ingest(null, insurer));
+        assertThrows(IllegalArgumentException.class, () -> reader.ingest(statement, null));
+        assertThrows(IllegalArgumentException.class, () -> reader.ingest(statement, insurer, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> reader.ingest(statement, insurer, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PaymentStatementSummary().getCount(null));
+    }
+}